@@ -1,68 +1,301 @@
-package com.tts.jobrunner.model;
-
-import java.io.Serializable;
-
-/**
- * Global configuration for all jobs.
- * Compatible with Java 8+
- */
-public class GlobalConfig implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private String javaHome;
-    private String javaOpts;
-    private String configDir;
-    private String logsDir;
-
-    public GlobalConfig() {
-        // Defaults
-        this.javaHome = System.getProperty("java.home");
-        this.javaOpts = "-Xms256m -Xmx512m";
-        this.configDir = "/opt/config";
-        this.logsDir = "/opt/logs/jobs";
-    }
-
-    // Getters and Setters
-    public String getJavaHome() {
-        return javaHome;
-    }
-
-    public void setJavaHome(String javaHome) {
-        this.javaHome = javaHome;
-    }
-
-    public String getJavaOpts() {
-        return javaOpts;
-    }
-
-    public void setJavaOpts(String javaOpts) {
-        this.javaOpts = javaOpts;
-    }
-
-    public String getConfigDir() {
-        return configDir;
-    }
-
-    public void setConfigDir(String configDir) {
-        this.configDir = configDir;
-    }
-
-    public String getLogsDir() {
-        return logsDir;
-    }
-
-    public void setLogsDir(String logsDir) {
-        this.logsDir = logsDir;
-    }
-
-    public String getJavaCmd() {
-        // Handle both Windows and Unix paths
-        String separator = System.getProperty("file.separator");
-        String cmd = javaHome + separator + "bin" + separator + "java";
-        // On Windows, add .exe extension
-        if (System.getProperty("os.name").toLowerCase().contains("win")) {
-            cmd += ".exe";
-        }
-        return cmd;
-    }
-}
+package com.tts.jobrunner.model;
+
+import java.io.Serializable;
+
+/**
+ * Global configuration for all jobs.
+ * Compatible with Java 8+
+ */
+public class GlobalConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+    public static final int DEFAULT_CONFIG_BACKUPS = 5;
+    public static final int DEFAULT_SLOW_REQUEST_MS = 1000;
+    public static final double DEFAULT_API_READ_RATE = 50;
+    public static final double DEFAULT_API_CONTROL_RATE = 20;
+    public static final double DEFAULT_API_EXPENSIVE_RATE = 2;
+    public static final int DEFAULT_API_MAX_EXPENSIVE = 4;
+
+    private String javaHome;
+    private String javaOpts;
+    private String configDir;
+    private String logsDir;
+    private int poolSize;      // Pre-started worker JVMs per app for pooled jobs
+    private int poolMaxRuns;   // Runs before a pooled worker is recycled
+    private boolean cds;       // Generate and use AppCDS archives (jobs can override)
+    private String cgroupRoot; // Delegated cgroup v2 directory for per-job cgroups (empty = off)
+    private String memoryBudget; // Memory shared by heap = "auto" jobs, e.g. "24G" (empty = off)
+    private boolean killOnShutdown; // Kill process jobs when the runner stops (false = reattach later)
+    private double suspendLoad;  // Load average per CPU above which batch jobs are suspended (0 = off)
+    private double resumeLoad;   // Load average per CPU below which they are resumed (0 = 75% of suspend_load)
+    private boolean restartOnDeploy; // Rolling restart of an app's continuous jobs when it is redeployed
+    private int deployDebounce;      // Seconds without changes before a redeploy counts as settled
+    private int rollingBatchSize;    // Jobs restarted at a time in a rolling restart
+    private int rollingReadyTimeout; // Seconds to wait for a restarted job before the rollout is aborted
+    private boolean watchConfig;     // Reload the config file when it changes on disk
+    private boolean restartOnConfigChange; // Restart running jobs whose launch settings changed in a reload
+    private int configBackups;       // Previous versions of each config file kept as jobs.toml.1 .. .N (0 = none)
+    private int slowRequestMs;       // API requests slower than this are logged (0 = off)
+    private double apiReadRate;      // API reads per second per client (0 = unlimited)
+    private double apiControlRate;   // API changes (start, stop, edits) per second per client (0 = unlimited)
+    private double apiExpensiveRate; // Log reads and searches per second per client (0 = unlimited)
+    private int apiMaxExpensive;     // Log reads and searches in progress at once, all clients (0 = unlimited)
+
+    public GlobalConfig() {
+        // Defaults
+        this.javaHome = System.getProperty("java.home");
+        this.javaOpts = "-Xms256m -Xmx512m";
+        this.configDir = "/opt/config";
+        this.logsDir = "/opt/logs/jobs";
+        this.poolSize = 2;
+        this.poolMaxRuns = 50;
+        this.cgroupRoot = "";
+        this.memoryBudget = "";
+        this.killOnShutdown = true;
+        this.deployDebounce = 10;
+        this.rollingBatchSize = 1;
+        this.rollingReadyTimeout = 120;
+        this.watchConfig = true;
+        this.configBackups = DEFAULT_CONFIG_BACKUPS;
+        this.slowRequestMs = DEFAULT_SLOW_REQUEST_MS;
+        this.apiReadRate = DEFAULT_API_READ_RATE;
+        this.apiControlRate = DEFAULT_API_CONTROL_RATE;
+        this.apiExpensiveRate = DEFAULT_API_EXPENSIVE_RATE;
+        this.apiMaxExpensive = DEFAULT_API_MAX_EXPENSIVE;
+    }
+
+    /**
+     * Copy of these settings, to be changed and published in a new config snapshot
+     */
+    public GlobalConfig copy() {
+        GlobalConfig copy = new GlobalConfig();
+        copy.javaHome = javaHome;
+        copy.javaOpts = javaOpts;
+        copy.configDir = configDir;
+        copy.logsDir = logsDir;
+        copy.poolSize = poolSize;
+        copy.poolMaxRuns = poolMaxRuns;
+        copy.cds = cds;
+        copy.cgroupRoot = cgroupRoot;
+        copy.memoryBudget = memoryBudget;
+        copy.killOnShutdown = killOnShutdown;
+        copy.suspendLoad = suspendLoad;
+        copy.resumeLoad = resumeLoad;
+        copy.restartOnDeploy = restartOnDeploy;
+        copy.deployDebounce = deployDebounce;
+        copy.rollingBatchSize = rollingBatchSize;
+        copy.rollingReadyTimeout = rollingReadyTimeout;
+        copy.watchConfig = watchConfig;
+        copy.restartOnConfigChange = restartOnConfigChange;
+        copy.configBackups = configBackups;
+        copy.slowRequestMs = slowRequestMs;
+        copy.apiReadRate = apiReadRate;
+        copy.apiControlRate = apiControlRate;
+        copy.apiExpensiveRate = apiExpensiveRate;
+        copy.apiMaxExpensive = apiMaxExpensive;
+        return copy;
+    }
+
+    // Getters and Setters
+    public String getJavaHome() {
+        return javaHome;
+    }
+
+    public void setJavaHome(String javaHome) {
+        this.javaHome = javaHome;
+    }
+
+    public String getJavaOpts() {
+        return javaOpts;
+    }
+
+    public void setJavaOpts(String javaOpts) {
+        this.javaOpts = javaOpts;
+    }
+
+    public String getConfigDir() {
+        return configDir;
+    }
+
+    public void setConfigDir(String configDir) {
+        this.configDir = configDir;
+    }
+
+    public String getLogsDir() {
+        return logsDir;
+    }
+
+    public void setLogsDir(String logsDir) {
+        this.logsDir = logsDir;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getPoolMaxRuns() {
+        return poolMaxRuns;
+    }
+
+    public void setPoolMaxRuns(int poolMaxRuns) {
+        this.poolMaxRuns = poolMaxRuns;
+    }
+
+    public boolean isCds() {
+        return cds;
+    }
+
+    public void setCds(boolean cds) {
+        this.cds = cds;
+    }
+
+    public String getCgroupRoot() {
+        return cgroupRoot;
+    }
+
+    public void setCgroupRoot(String cgroupRoot) {
+        this.cgroupRoot = cgroupRoot;
+    }
+
+    public String getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    public void setMemoryBudget(String memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public boolean isKillOnShutdown() {
+        return killOnShutdown;
+    }
+
+    public void setKillOnShutdown(boolean killOnShutdown) {
+        this.killOnShutdown = killOnShutdown;
+    }
+
+    public double getSuspendLoad() {
+        return suspendLoad;
+    }
+
+    public void setSuspendLoad(double suspendLoad) {
+        this.suspendLoad = suspendLoad;
+    }
+
+    public double getResumeLoad() {
+        return resumeLoad;
+    }
+
+    public void setResumeLoad(double resumeLoad) {
+        this.resumeLoad = resumeLoad;
+    }
+
+    public boolean isRestartOnDeploy() {
+        return restartOnDeploy;
+    }
+
+    public void setRestartOnDeploy(boolean restartOnDeploy) {
+        this.restartOnDeploy = restartOnDeploy;
+    }
+
+    public int getDeployDebounce() {
+        return deployDebounce;
+    }
+
+    public void setDeployDebounce(int deployDebounce) {
+        this.deployDebounce = deployDebounce;
+    }
+
+    public int getRollingBatchSize() {
+        return rollingBatchSize;
+    }
+
+    public void setRollingBatchSize(int rollingBatchSize) {
+        this.rollingBatchSize = rollingBatchSize;
+    }
+
+    public int getRollingReadyTimeout() {
+        return rollingReadyTimeout;
+    }
+
+    public void setRollingReadyTimeout(int rollingReadyTimeout) {
+        this.rollingReadyTimeout = rollingReadyTimeout;
+    }
+
+    public boolean isWatchConfig() {
+        return watchConfig;
+    }
+
+    public void setWatchConfig(boolean watchConfig) {
+        this.watchConfig = watchConfig;
+    }
+
+    public boolean isRestartOnConfigChange() {
+        return restartOnConfigChange;
+    }
+
+    public void setRestartOnConfigChange(boolean restartOnConfigChange) {
+        this.restartOnConfigChange = restartOnConfigChange;
+    }
+
+    public int getConfigBackups() {
+        return configBackups;
+    }
+
+    public void setConfigBackups(int configBackups) {
+        this.configBackups = configBackups;
+    }
+
+    public int getSlowRequestMs() {
+        return slowRequestMs;
+    }
+
+    public void setSlowRequestMs(int slowRequestMs) {
+        this.slowRequestMs = slowRequestMs;
+    }
+
+    public double getApiReadRate() {
+        return apiReadRate;
+    }
+
+    public void setApiReadRate(double apiReadRate) {
+        this.apiReadRate = apiReadRate;
+    }
+
+    public double getApiControlRate() {
+        return apiControlRate;
+    }
+
+    public void setApiControlRate(double apiControlRate) {
+        this.apiControlRate = apiControlRate;
+    }
+
+    public double getApiExpensiveRate() {
+        return apiExpensiveRate;
+    }
+
+    public void setApiExpensiveRate(double apiExpensiveRate) {
+        this.apiExpensiveRate = apiExpensiveRate;
+    }
+
+    public int getApiMaxExpensive() {
+        return apiMaxExpensive;
+    }
+
+    public void setApiMaxExpensive(int apiMaxExpensive) {
+        this.apiMaxExpensive = apiMaxExpensive;
+    }
+
+    public String getJavaCmd() {
+        // Handle both Windows and Unix paths
+        String separator = System.getProperty("file.separator");
+        String cmd = javaHome + separator + "bin" + separator + "java";
+        // On Windows, add .exe extension
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            cmd += ".exe";
+        }
+        return cmd;
+    }
+}
@@ -1,194 +1,491 @@
-package com.tts.jobrunner.model;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
-
-/**
- * Job definition model.
- * Compatible with Java 8+
- */
-public class Job implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    public enum JobType {
-        CONTINUOUS("continuous"),
-        ON_DEMAND("on-demand");
-
-        private final String value;
-
-        JobType(String value) {
-            this.value = value;
-        }
-
-        public String getValue() {
-            return value;
-        }
-
-        public static JobType fromString(String text) {
-            for (JobType type : JobType.values()) {
-                if (type.value.equalsIgnoreCase(text)) {
-                    return type;
-                }
-            }
-            return ON_DEMAND;
-        }
-    }
-
-    public enum JobStatus {
-        STOPPED("stopped"),
-        RUNNING("running"),
-        ERROR("error");
-
-        private final String value;
-
-        JobStatus(String value) {
-            this.value = value;
-        }
-
-        public String getValue() {
-            return value;
-        }
-    }
-
-    private String id;
-    private String name;
-    private List<String> apps;  // Can be single app or multiple
-    private String mainClass;
-    private JobType type;
-    private boolean enabled;
-    private List<String> params;
-    private String description;
-    private boolean argsRequired;  // If true, show args modal on start
-    private String javaOpts;  // Per-job JVM options (appended after global java_opts)
-
-    // Runtime state (not persisted)
-    private transient JobStatus status = JobStatus.STOPPED;
-    private transient Long pid;
-    private transient Long startTime;
-
-    public Job() {
-        this.apps = new ArrayList<>();
-        this.params = new ArrayList<>();
-        this.type = JobType.ON_DEMAND;
-        this.enabled = true;
-    }
-
-    // Getters and Setters
-    public String getId() {
-        return id;
-    }
-
-    public void setId(String id) {
-        this.id = id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public List<String> getApps() {
-        return apps;
-    }
-
-    public void setApps(List<String> apps) {
-        this.apps = apps;
-    }
-
-    public void setApp(String app) {
-        this.apps = new ArrayList<>();
-        this.apps.add(app);
-    }
-
-    public String getMainClass() {
-        return mainClass;
-    }
-
-    public void setMainClass(String mainClass) {
-        this.mainClass = mainClass;
-    }
-
-    public JobType getType() {
-        return type;
-    }
-
-    public void setType(JobType type) {
-        this.type = type;
-    }
-
-    public void setType(String type) {
-        this.type = JobType.fromString(type);
-    }
-
-    public boolean isEnabled() {
-        return enabled;
-    }
-
-    public void setEnabled(boolean enabled) {
-        this.enabled = enabled;
-    }
-
-    public List<String> getParams() {
-        return params;
-    }
-
-    public void setParams(List<String> params) {
-        this.params = params;
-    }
-
-    public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
-    public boolean isArgsRequired() {
-        return argsRequired;
-    }
-
-    public void setArgsRequired(boolean argsRequired) {
-        this.argsRequired = argsRequired;
-    }
-
-    public String getJavaOpts() {
-        return javaOpts;
-    }
-
-    public void setJavaOpts(String javaOpts) {
-        this.javaOpts = javaOpts;
-    }
-
-    public JobStatus getStatus() {
-        return status;
-    }
-
-    public void setStatus(JobStatus status) {
-        this.status = status;
-    }
-
-    public Long getPid() {
-        return pid;
-    }
-
-    public void setPid(Long pid) {
-        this.pid = pid;
-    }
-
-    public Long getStartTime() {
-        return startTime;
-    }
-
-    public void setStartTime(Long startTime) {
-        this.startTime = startTime;
-    }
-
-    public boolean isRunning() {
-        return status == JobStatus.RUNNING;
-    }
-}
+package com.tts.jobrunner.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Job definition model.
+ * Compatible with Java 8+
+ */
+public class Job implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum JobType {
+        CONTINUOUS("continuous"),
+        ON_DEMAND("on-demand");
+
+        private final String value;
+
+        JobType(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static JobType fromString(String text) {
+            for (JobType type : JobType.values()) {
+                if (type.value.equalsIgnoreCase(text)) {
+                    return type;
+                }
+            }
+            return ON_DEMAND;
+        }
+    }
+
+    public enum ExecutionMode {
+        PROCESS("process"),
+        POOLED("pooled");
+
+        private final String value;
+
+        ExecutionMode(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static ExecutionMode fromString(String text) {
+            for (ExecutionMode mode : ExecutionMode.values()) {
+                if (mode.value.equalsIgnoreCase(text)) {
+                    return mode;
+                }
+            }
+            return PROCESS;
+        }
+    }
+
+    public enum PriorityClass {
+        LATENCY_CRITICAL("latency-critical"),
+        NORMAL("normal"),
+        BATCH("batch");
+
+        private final String value;
+
+        PriorityClass(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static PriorityClass fromString(String text) {
+            for (PriorityClass priorityClass : PriorityClass.values()) {
+                if (priorityClass.value.equalsIgnoreCase(text)) {
+                    return priorityClass;
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    public enum HealthAction {
+        RESTART("restart"),
+        STOP("stop"),
+        NONE("none");
+
+        private final String value;
+
+        HealthAction(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public static HealthAction fromString(String text) {
+            for (HealthAction action : HealthAction.values()) {
+                if (action.value.equalsIgnoreCase(text)) {
+                    return action;
+                }
+            }
+            return RESTART;
+        }
+    }
+
+    public enum JobStatus {
+        STOPPED("stopped"),
+        RUNNING("running"),
+        SUSPENDED("suspended"),
+        ERROR("error");
+
+        private final String value;
+
+        JobStatus(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    private String id;
+    private String name;
+    private List<String> apps;  // Can be single app or multiple
+    private String mainClass;
+    private JobType type;
+    private boolean enabled;
+    private List<String> params;
+    private String description;
+    private boolean argsRequired;  // If true, show args modal on start
+    private String javaOpts;  // Per-job JVM options (appended after global java_opts)
+    private long timeout;  // Maximum wall time in seconds (0 = no limit)
+    private long stallTimeout;  // Maximum seconds without log output (0 = no limit)
+    private ExecutionMode execution;  // New JVM per run, or a pre-started pooled worker
+    private Boolean cds;  // Use an AppCDS archive (null = follow global setting)
+    private PriorityClass priorityClass;  // CPU and I/O scheduling priority
+    private String cpus;  // CPU pinning as a cpu list, e.g. "0-3" or "0,2" (null = any CPU)
+    private String memoryMax;  // cgroup memory.max, e.g. "2G" (null = no limit)
+    private String cpuMax;  // cgroup cpu.max as CPUs ("1.5") or "quota period" (null = no limit)
+    private int cpuWeight;  // cgroup cpu.weight 1-10000 (0 = default)
+    private int pidsMax;  // cgroup pids.max (0 = no limit)
+    private String heap;  // "auto" = size -Xmx from the global memory_budget (null = java_opts)
+    private int heapWeight;  // Share of the memory budget relative to other auto jobs
+    private String healthLogPattern;  // Regex a healthy job logs at least every health_max_age seconds
+    private int healthPort;  // TCP port on localhost that must accept connections (0 = no probe)
+    private String healthFile;  // File a healthy job touches at least every health_max_age seconds
+    private long healthMaxAge;  // Maximum seconds between heartbeat lines / file touches
+    private long healthGrace;  // Seconds after start before failed checks count
+    private int healthFailures;  // Consecutive failed checks before the health action is taken
+    private HealthAction healthAction;  // What to do with an unhealthy job
+    private transient String source;  // Config file the job is defined in (null = main jobs.toml)
+
+    public Job() {
+        this.apps = new ArrayList<>();
+        this.params = new ArrayList<>();
+        this.type = JobType.ON_DEMAND;
+        this.execution = ExecutionMode.PROCESS;
+        this.priorityClass = PriorityClass.NORMAL;
+        this.heapWeight = 1;
+        this.healthMaxAge = 60;
+        this.healthGrace = 30;
+        this.healthFailures = 3;
+        this.healthAction = HealthAction.RESTART;
+        this.enabled = true;
+    }
+
+    /**
+     * Copy of this definition, to be changed and published in a new config snapshot
+     */
+    public Job copy() {
+        Job copy = new Job();
+        copy.id = id;
+        copy.name = name;
+        copy.apps = new ArrayList<>(apps);
+        copy.mainClass = mainClass;
+        copy.type = type;
+        copy.enabled = enabled;
+        copy.params = new ArrayList<>(params);
+        copy.description = description;
+        copy.argsRequired = argsRequired;
+        copy.javaOpts = javaOpts;
+        copy.timeout = timeout;
+        copy.stallTimeout = stallTimeout;
+        copy.execution = execution;
+        copy.cds = cds;
+        copy.priorityClass = priorityClass;
+        copy.cpus = cpus;
+        copy.memoryMax = memoryMax;
+        copy.cpuMax = cpuMax;
+        copy.cpuWeight = cpuWeight;
+        copy.pidsMax = pidsMax;
+        copy.heap = heap;
+        copy.heapWeight = heapWeight;
+        copy.healthLogPattern = healthLogPattern;
+        copy.healthPort = healthPort;
+        copy.healthFile = healthFile;
+        copy.healthMaxAge = healthMaxAge;
+        copy.healthGrace = healthGrace;
+        copy.healthFailures = healthFailures;
+        copy.healthAction = healthAction;
+        copy.source = source;
+        return copy;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getApps() {
+        return apps;
+    }
+
+    public void setApps(List<String> apps) {
+        this.apps = apps;
+    }
+
+    public void setApp(String app) {
+        this.apps = new ArrayList<>();
+        this.apps.add(app);
+    }
+
+    public String getMainClass() {
+        return mainClass;
+    }
+
+    public void setMainClass(String mainClass) {
+        this.mainClass = mainClass;
+    }
+
+    public JobType getType() {
+        return type;
+    }
+
+    public void setType(JobType type) {
+        this.type = type;
+    }
+
+    public void setType(String type) {
+        this.type = JobType.fromString(type);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getParams() {
+        return params;
+    }
+
+    public void setParams(List<String> params) {
+        this.params = params;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public boolean isArgsRequired() {
+        return argsRequired;
+    }
+
+    public void setArgsRequired(boolean argsRequired) {
+        this.argsRequired = argsRequired;
+    }
+
+    public String getJavaOpts() {
+        return javaOpts;
+    }
+
+    public void setJavaOpts(String javaOpts) {
+        this.javaOpts = javaOpts;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public long getStallTimeout() {
+        return stallTimeout;
+    }
+
+    public void setStallTimeout(long stallTimeout) {
+        this.stallTimeout = stallTimeout;
+    }
+
+    public ExecutionMode getExecution() {
+        return execution;
+    }
+
+    public void setExecution(ExecutionMode execution) {
+        this.execution = execution;
+    }
+
+    public void setExecution(String execution) {
+        this.execution = ExecutionMode.fromString(execution);
+    }
+
+    public boolean isPooled() {
+        return execution == ExecutionMode.POOLED;
+    }
+
+    public Boolean getCds() {
+        return cds;
+    }
+
+    public void setCds(Boolean cds) {
+        this.cds = cds;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    public void setPriorityClass(PriorityClass priorityClass) {
+        this.priorityClass = priorityClass;
+    }
+
+    public void setPriorityClass(String priorityClass) {
+        this.priorityClass = PriorityClass.fromString(priorityClass);
+    }
+
+    public String getCpus() {
+        return cpus;
+    }
+
+    public void setCpus(String cpus) {
+        this.cpus = cpus;
+    }
+
+    public String getMemoryMax() {
+        return memoryMax;
+    }
+
+    public void setMemoryMax(String memoryMax) {
+        this.memoryMax = memoryMax;
+    }
+
+    public String getCpuMax() {
+        return cpuMax;
+    }
+
+    public void setCpuMax(String cpuMax) {
+        this.cpuMax = cpuMax;
+    }
+
+    public int getCpuWeight() {
+        return cpuWeight;
+    }
+
+    public void setCpuWeight(int cpuWeight) {
+        this.cpuWeight = cpuWeight;
+    }
+
+    public int getPidsMax() {
+        return pidsMax;
+    }
+
+    public void setPidsMax(int pidsMax) {
+        this.pidsMax = pidsMax;
+    }
+
+    public String getHeap() {
+        return heap;
+    }
+
+    public void setHeap(String heap) {
+        this.heap = heap;
+    }
+
+    public boolean isAutoHeap() {
+        return "auto".equalsIgnoreCase(heap);
+    }
+
+    public int getHeapWeight() {
+        return heapWeight;
+    }
+
+    public void setHeapWeight(int heapWeight) {
+        this.heapWeight = heapWeight;
+    }
+
+    public String getHealthLogPattern() {
+        return healthLogPattern;
+    }
+
+    public void setHealthLogPattern(String healthLogPattern) {
+        this.healthLogPattern = healthLogPattern;
+    }
+
+    public int getHealthPort() {
+        return healthPort;
+    }
+
+    public void setHealthPort(int healthPort) {
+        this.healthPort = healthPort;
+    }
+
+    public String getHealthFile() {
+        return healthFile;
+    }
+
+    public void setHealthFile(String healthFile) {
+        this.healthFile = healthFile;
+    }
+
+    public long getHealthMaxAge() {
+        return healthMaxAge;
+    }
+
+    public void setHealthMaxAge(long healthMaxAge) {
+        this.healthMaxAge = healthMaxAge;
+    }
+
+    public long getHealthGrace() {
+        return healthGrace;
+    }
+
+    public void setHealthGrace(long healthGrace) {
+        this.healthGrace = healthGrace;
+    }
+
+    public int getHealthFailures() {
+        return healthFailures;
+    }
+
+    public void setHealthFailures(int healthFailures) {
+        this.healthFailures = healthFailures;
+    }
+
+    public HealthAction getHealthAction() {
+        return healthAction;
+    }
+
+    public void setHealthAction(HealthAction healthAction) {
+        this.healthAction = healthAction;
+    }
+
+    public void setHealthAction(String healthAction) {
+        this.healthAction = HealthAction.fromString(healthAction);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public boolean hasHealthChecks() {
+        return (healthLogPattern != null && !healthLogPattern.isEmpty()) || healthPort > 0
+                || (healthFile != null && !healthFile.isEmpty());
+    }
+
+    public boolean hasResourceLimits() {
+        return (memoryMax != null && !memoryMax.isEmpty()) || (cpuMax != null && !cpuMax.isEmpty())
+                || cpuWeight > 0 || pidsMax > 0;
+    }
+}
@@ -0,0 +1,145 @@
+package com.tts.jobrunner.model;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runtime state of a job (not persisted).
+ * Kept apart from the Job definition, so a config edit or reload never resets
+ * the status of a running job. Owned by JobManager, one per job id; every change of
+ * a value is reported to it, so API responses can be cached per state version.
+ * Compatible with Java 11+
+ */
+public class JobState {
+    private volatile Job.JobStatus status = Job.JobStatus.STOPPED;
+    private volatile Long pid;
+    private volatile Long startTime;
+    private volatile Map<String, Object> effectivePriority;
+    private volatile Map<String, Object> heapAllocation;
+    private volatile Long suspendedSince;  // Start of the current suspension (null = not suspended)
+    private volatile long suspendedMillis;  // Time spent in finished suspensions of this run
+    private volatile String suspendReason;  // "manual" or "load"
+    private volatile Integer exitCode;  // Exit code of the last finished run (null while running or unknown)
+    private final Runnable onChange;
+
+    public JobState() {
+        this(null);
+    }
+
+    public JobState(Runnable onChange) {
+        this.onChange = onChange;
+    }
+
+    // Getters and Setters
+    public Job.JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Job.JobStatus status) {
+        Object previous = this.status;
+        this.status = status;
+        changed(previous, status);
+    }
+
+    public Long getPid() {
+        return pid;
+    }
+
+    public void setPid(Long pid) {
+        Object previous = this.pid;
+        this.pid = pid;
+        changed(previous, pid);
+    }
+
+    public Long getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(Long startTime) {
+        Object previous = this.startTime;
+        this.startTime = startTime;
+        changed(previous, startTime);
+    }
+
+    public Map<String, Object> getEffectivePriority() {
+        return effectivePriority;
+    }
+
+    public void setEffectivePriority(Map<String, Object> effectivePriority) {
+        Object previous = this.effectivePriority;
+        this.effectivePriority = effectivePriority;
+        changed(previous, effectivePriority);
+    }
+
+    public Map<String, Object> getHeapAllocation() {
+        return heapAllocation;
+    }
+
+    public void setHeapAllocation(Map<String, Object> heapAllocation) {
+        Object previous = this.heapAllocation;
+        this.heapAllocation = heapAllocation;
+        changed(previous, heapAllocation);
+    }
+
+    public Long getSuspendedSince() {
+        return suspendedSince;
+    }
+
+    public void setSuspendedSince(Long suspendedSince) {
+        Object previous = this.suspendedSince;
+        this.suspendedSince = suspendedSince;
+        changed(previous, suspendedSince);
+    }
+
+    public long getSuspendedMillis() {
+        return suspendedMillis;
+    }
+
+    public void setSuspendedMillis(long suspendedMillis) {
+        Object previous = this.suspendedMillis;
+        this.suspendedMillis = suspendedMillis;
+        changed(previous, suspendedMillis);
+    }
+
+    public String getSuspendReason() {
+        return suspendReason;
+    }
+
+    public void setSuspendReason(String suspendReason) {
+        Object previous = this.suspendReason;
+        this.suspendReason = suspendReason;
+        changed(previous, suspendReason);
+    }
+
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public void setExitCode(Integer exitCode) {
+        Object previous = this.exitCode;
+        this.exitCode = exitCode;
+        changed(previous, exitCode);
+    }
+
+    /**
+     * Total time this run has been suspended, including a suspension still in progress
+     */
+    public long getTotalSuspendedMillis(long now) {
+        Long since = suspendedSince;
+        return suspendedMillis + (since != null ? now - since : 0);
+    }
+
+    private void changed(Object previous, Object current) {
+        if (onChange != null && !Objects.equals(previous, current)) {
+            onChange.run();
+        }
+    }
+
+    /**
+     * True while the job has a live process (running or suspended)
+     */
+    public boolean isRunning() {
+        Job.JobStatus current = status;
+        return current == Job.JobStatus.RUNNING || current == Job.JobStatus.SUSPENDED;
+    }
+}
@@ -1,100 +1,187 @@
-package com.tts.jobrunner.model;
-
-import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-/**
- * Complete jobs configuration model.
- * Compatible with Java 8+
- */
-public class JobsConfig implements Serializable {
-    private static final long serialVersionUID = 1L;
-
-    private GlobalConfig global;
-    private Map<String, AppConfig> apps;
-    private List<Job> jobs;
-
-    public JobsConfig() {
-        this.global = new GlobalConfig();
-        this.apps = new HashMap<>();
-        this.jobs = new ArrayList<>();
-    }
-
-    // Getters and Setters
-    public GlobalConfig getGlobal() {
-        return global;
-    }
-
-    public void setGlobal(GlobalConfig global) {
-        this.global = global;
-    }
-
-    public Map<String, AppConfig> getApps() {
-        return apps;
-    }
-
-    public void setApps(Map<String, AppConfig> apps) {
-        this.apps = apps;
-    }
-
-    public void addApp(AppConfig app) {
-        this.apps.put(app.getId(), app);
-    }
-
-    public AppConfig getApp(String appId) {
-        return this.apps.get(appId);
-    }
-
-    public List<Job> getJobs() {
-        return jobs;
-    }
-
-    public void setJobs(List<Job> jobs) {
-        this.jobs = jobs;
-    }
-
-    public void addJob(Job job) {
-        this.jobs.add(job);
-    }
-
-    public Job getJob(String jobId) {
-        for (Job job : jobs) {
-            if (job.getId().equals(jobId)) {
-                return job;
-            }
-        }
-        return null;
-    }
-
-    public void removeJob(String jobId) {
-        jobs.removeIf(job -> job.getId().equals(jobId));
-    }
-
-    /**
-     * Build complete classpath for a job
-     */
-    public String buildClasspathForJob(Job job) {
-        StringBuilder cp = new StringBuilder();
-        String configDir = global.getConfigDir();
-
-        for (String appId : job.getApps()) {
-            AppConfig app = apps.get(appId);
-            if (app != null) {
-                if (cp.length() > 0) {
-                    cp.append(java.io.File.pathSeparator);
-                }
-                cp.append(app.buildClasspath(null)); // Don't add config multiple times
-            }
-        }
-
-        // Add config dir once at the end
-        if (configDir != null && !configDir.isEmpty()) {
-            cp.append(java.io.File.pathSeparator).append(configDir);
-        }
-
-        return cp.toString();
-    }
-}
+package com.tts.jobrunner.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Complete jobs configuration model - an immutable snapshot.
+ *
+ * Jobs are indexed by id, app and type when the snapshot is built, so lookups are O(1)
+ * however many jobs there are. A snapshot is never changed after it has been
+ * published by ConfigManager: edits copy the affected definition, apply the change
+ * and publish a new snapshot (see the with/without methods), so readers can use a
+ * snapshot without locking and always see one consistent config.
+ * Compatible with Java 8+
+ */
+public class JobsConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final GlobalConfig global;
+    private final Map<String, AppConfig> apps;
+    private final List<Job> jobs;
+
+    // Indexes (rebuilt with every snapshot)
+    private final transient Map<String, Job> jobsById;
+    private final transient Map<String, List<Job>> jobsByApp;
+    private final transient Map<Job.JobType, List<Job>> jobsByType;
+    private final transient Map<String, Integer> positions;  // Index of each job in getJobs()
+    private transient volatile String[] searchText;  // Lowercase searchable text per position, built on first search
+
+    public JobsConfig() {
+        this(new GlobalConfig(), Collections.<AppConfig>emptyList(), Collections.<Job>emptyList());
+    }
+
+    public JobsConfig(GlobalConfig global, Collection<AppConfig> apps, List<Job> jobs) {
+        Map<String, AppConfig> appMap = new LinkedHashMap<>();
+        for (AppConfig app : apps) {
+            appMap.put(app.getId(), app);
+        }
+
+        Map<String, Job> byId = new LinkedHashMap<>();
+        Map<String, List<Job>> byApp = new LinkedHashMap<>();
+        Map<Job.JobType, List<Job>> byType = new LinkedHashMap<>();
+        Map<String, Integer> positionMap = new HashMap<>();
+        for (Job job : jobs) {
+            if (byId.put(job.getId(), job) != null) {
+                throw new IllegalArgumentException("Duplicate job id: " + job.getId());
+            }
+            positionMap.put(job.getId(), positionMap.size());
+            byType.computeIfAbsent(job.getType(), type -> new ArrayList<>()).add(job);
+            for (String appId : job.getApps()) {
+                List<Job> appJobs = byApp.get(appId);
+                if (appJobs == null) {
+                    appJobs = new ArrayList<>();
+                    byApp.put(appId, appJobs);
+                }
+                appJobs.add(job);
+            }
+        }
+        for (Map.Entry<String, List<Job>> entry : byApp.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        for (Map.Entry<Job.JobType, List<Job>> entry : byType.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+
+        this.global = global;
+        this.apps = Collections.unmodifiableMap(appMap);
+        this.jobs = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+        this.jobsById = byId;
+        this.jobsByApp = byApp;
+        this.jobsByType = byType;
+        this.positions = positionMap;
+    }
+
+    // Getters
+    public GlobalConfig getGlobal() {
+        return global;
+    }
+
+    public Map<String, AppConfig> getApps() {
+        return apps;
+    }
+
+    public AppConfig getApp(String appId) {
+        return apps.get(appId);
+    }
+
+    public List<Job> getJobs() {
+        return jobs;
+    }
+
+    public Job getJob(String jobId) {
+        return jobId != null ? jobsById.get(jobId) : null;
+    }
+
+    /**
+     * Jobs that have the app on their classpath
+     */
+    public List<Job> getJobsForApp(String appId) {
+        List<Job> appJobs = jobsByApp.get(appId);
+        return appJobs != null ? appJobs : Collections.<Job>emptyList();
+    }
+
+    /**
+     * Jobs of a type, in config order
+     */
+    public List<Job> getJobsOfType(Job.JobType type) {
+        List<Job> typeJobs = jobsByType.get(type);
+        return typeJobs != null ? typeJobs : Collections.<Job>emptyList();
+    }
+
+    /**
+     * Position of the job in getJobs(), or -1 if there is no such job
+     */
+    public int indexOf(String jobId) {
+        Integer position = jobId != null ? positions.get(jobId) : null;
+        return position != null ? position : -1;
+    }
+
+    /**
+     * Jobs whose id, name, description, main class or apps contain the text (ignoring
+     * case), in config order. The searchable text is built once per snapshot.
+     */
+    public List<Job> search(String text) {
+        String[] index = searchText;
+        if (index == null) {
+            index = new String[jobs.size()];
+            for (int i = 0; i < index.length; i++) {
+                Job job = jobs.get(i);
+                index[i] = (job.getId() + '\n' + job.getName() + '\n' + job.getDescription() + '\n'
+                        + job.getMainClass() + '\n' + String.join("\n", job.getApps())).toLowerCase(Locale.ROOT);
+            }
+            searchText = index;
+        }
+        String term = text.toLowerCase(Locale.ROOT);
+        List<Job> result = new ArrayList<>();
+        for (int i = 0; i < index.length; i++) {
+            if (index[i].contains(term)) {
+                result.add(jobs.get(i));
+            }
+        }
+        return result;
+    }
+
+    // ==================== Copy-on-Write ====================
+
+    public JobsConfig withGlobal(GlobalConfig global) {
+        return new JobsConfig(global, apps.values(), jobs);
+    }
+
+    /**
+     * Snapshot with the app added, or replaced if it exists
+     */
+    public JobsConfig withApp(AppConfig app) {
+        Map<String, AppConfig> changed = new LinkedHashMap<>(apps);
+        changed.put(app.getId(), app);
+        return new JobsConfig(global, changed.values(), jobs);
+    }
+
+    public JobsConfig withoutApp(String appId) {
+        Map<String, AppConfig> changed = new LinkedHashMap<>(apps);
+        changed.remove(appId);
+        return new JobsConfig(global, changed.values(), jobs);
+    }
+
+    /**
+     * Snapshot with the job added, or replaced in place if a job with its id exists
+     */
+    public JobsConfig withJob(Job job) {
+        Map<String, Job> changed = new LinkedHashMap<>(jobsById);
+        changed.put(job.getId(), job);
+        return new JobsConfig(global, apps.values(), new ArrayList<>(changed.values()));
+    }
+
+    public JobsConfig withoutJob(String jobId) {
+        Map<String, Job> changed = new LinkedHashMap<>(jobsById);
+        changed.remove(jobId);
+        return new JobsConfig(global, apps.values(), new ArrayList<>(changed.values()));
+    }
+}
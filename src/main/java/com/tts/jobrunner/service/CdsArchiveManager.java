@@ -0,0 +1,229 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * AppCDS archive manager - one dynamic Class Data Sharing archive per job classpath.
+ * The first launch is a training run (-XX:ArchiveClassesAtExit), later launches
+ * map the archive (-XX:SharedArchiveFile). Archive names are a hash of the job id
+ * followed by a fingerprint of java_cmd, java_opts, the classpath, WEB-INF/lib and
+ * WEB-INF/classes, so a redeploy or option change produces a fresh archive and the
+ * job's previous one is deleted.
+ *
+ * CDS refuses non-empty directories on the classpath before the last entry classes
+ * are loaded from, so CDS launches use a jar snapshot of WEB-INF/classes and keep
+ * the config dir (resources only) at the end.
+ * Compatible with Java 11+ (jobs need a JDK 13+ java_home)
+ */
+class CdsArchiveManager {
+    private static final Logger LOGGER = Logger.getLogger(CdsArchiveManager.class.getName());
+    private static final String CDS_DIR = ".cds";
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final String TRAINING_SUFFIX = ".jsa.tmp";
+    private static final String TRAIN_OPTION = "-XX:ArchiveClassesAtExit=";
+    private static final String SHARE_OPTION = "-XX:SharedArchiveFile=";
+    private static final int MIN_JAVA_VERSION = 13;
+
+    private final ClasspathResolver classpathResolver;
+    private final Map<String, Process> trainingRuns;
+    private final Set<String> warnedJavaHomes;
+
+    CdsArchiveManager(ClasspathResolver classpathResolver) {
+        this.classpathResolver = classpathResolver;
+        this.trainingRuns = new ConcurrentHashMap<>();
+        this.warnedJavaHomes = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Returns the CDS option and classpath for this launch, or null when CDS is off,
+     * unsupported, or a training run for the same archive is still in progress
+     */
+    Launch prepare(Job job, JobsConfig config) {
+        GlobalConfig global = config.getGlobal();
+        boolean enabled = job.getCds() != null ? job.getCds() : global.isCds();
+        if (!enabled || !isSupported(global.getJavaHome())) {
+            return null;
+        }
+
+        try {
+            File cdsDir = new File(global.getLogsDir(), CDS_DIR);
+            cdsDir.mkdirs();
+
+            String prefix = Hashes.sha256(job.getId(), 6);
+            String name = prefix + "-" + fingerprint(job, config);
+            File archive = new File(cdsDir, name + ARCHIVE_SUFFIX);
+            File training = new File(cdsDir, name + TRAINING_SUFFIX);
+            String classpath = buildClasspath(job, config, cdsDir, name);
+
+            if (archive.isFile()) {
+                return new Launch(SHARE_OPTION + archive.getAbsolutePath(), classpath, null);
+            }
+
+            Process trainer = trainingRuns.get(name);
+            if (trainer != null && trainer.isAlive()) {
+                return null;
+            }
+            trainingRuns.remove(name);
+
+            // Promote a finished training run's output
+            if (training.isFile() && training.length() > 0) {
+                Files.move(training.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                deleteStale(cdsDir, prefix, name);
+                LOGGER.info("CDS archive ready for job " + job.getId() + ": " + archive);
+                return new Launch(SHARE_OPTION + archive.getAbsolutePath(), classpath, null);
+            }
+
+            Files.deleteIfExists(training.toPath());
+            LOGGER.info("CDS training run for job " + job.getId() + ": " + training);
+            return new Launch(TRAIN_OPTION + training.getAbsolutePath(), classpath, name);
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "CDS disabled for job " + job.getId(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Remember the process of a training run so the archive is not trained twice at once
+     */
+    void launched(Launch launch, Process process) {
+        if (launch != null && launch.trainingName != null) {
+            trainingRuns.put(launch.trainingName, process);
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    /**
+     * Classpath for CDS launches: classes jar + libs per app, then the config dir
+     */
+    private String buildClasspath(Job job, JobsConfig config, File cdsDir, String name) throws IOException {
+        StringBuilder cp = new StringBuilder();
+        for (String appId : job.getApps()) {
+            AppConfig app = config.getApp(appId);
+            if (app == null) {
+                continue;
+            }
+            if (cp.length() > 0) {
+                cp.append(File.pathSeparator);
+            }
+            cp.append(classesJar(app, new File(cdsDir, name + "-" + appId + ".jar")).getAbsolutePath());
+            for (String jar : classpathResolver.getLibJars(app)) {
+                cp.append(File.pathSeparator).append(jar);
+            }
+        }
+
+        String configDir = config.getGlobal().getConfigDir();
+        if (configDir != null && !configDir.isEmpty()) {
+            cp.append(File.pathSeparator).append(configDir);
+        }
+        return cp.toString();
+    }
+
+    /**
+     * Snapshot WEB-INF/classes into a jar (once per fingerprint)
+     */
+    private File classesJar(AppConfig app, File jar) throws IOException {
+        if (jar.isFile()) {
+            return jar;
+        }
+
+        Path classes = Paths.get(app.getClassesPath());
+        File tmp = new File(jar.getPath() + ".tmp");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(tmp));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path path : (Iterable<Path>) files.sorted()::iterator) {
+                if (path.equals(classes)) {
+                    continue;
+                }
+                String entry = classes.relativize(path).toString().replace(File.separatorChar, '/');
+                if (Files.isDirectory(path)) {
+                    out.putNextEntry(new JarEntry(entry + "/"));
+                } else {
+                    out.putNextEntry(new JarEntry(entry));
+                    Files.copy(path, out);
+                }
+                out.closeEntry();
+            }
+        }
+        Files.move(tmp.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return jar;
+    }
+
+    /**
+     * Fingerprint of the JVM, options and classpath plus the job's apps
+     * (see ClasspathResolver#getFingerprint)
+     */
+    private String fingerprint(Job job, JobsConfig config) {
+        GlobalConfig global = config.getGlobal();
+        StringBuilder sb = new StringBuilder();
+        sb.append(global.getJavaCmd()).append('\n')
+                .append(global.getJavaOpts()).append('\n')
+                .append(job.getJavaOpts()).append('\n')
+                .append(classpathResolver.buildClasspath(job, config)).append('\n');
+        for (String appId : job.getApps()) {
+            AppConfig app = config.getApp(appId);
+            if (app != null) {
+                sb.append(appId).append(':').append(classpathResolver.getFingerprint(app)).append('\n');
+            }
+        }
+        return Hashes.sha256(sb.toString(), 6);
+    }
+
+    /**
+     * Delete the job's archives, classes jars and training output of earlier fingerprints
+     */
+    private void deleteStale(File cdsDir, String prefix, String current) {
+        File[] files = cdsDir.listFiles((dir, n) -> n.startsWith(prefix + "-") && !n.startsWith(current));
+        if (files != null) {
+            for (File file : files) {
+                if (file.delete()) {
+                    LOGGER.info("Deleted stale CDS archive: " + file);
+                }
+            }
+        }
+    }
+
+    private boolean isSupported(String javaHome) {
+        int version = JavaRuntime.featureVersion(javaHome);
+        if (version < MIN_JAVA_VERSION && warnedJavaHomes.add(javaHome)) {
+            LOGGER.warning("CDS needs Java " + MIN_JAVA_VERSION + "+, not enabled for java_home: " + javaHome);
+        }
+        return version >= MIN_JAVA_VERSION;
+    }
+
+    // ==================== Launch ====================
+
+    /**
+     * JVM option and classpath to use for a CDS launch
+     */
+    static class Launch {
+        private final String option;
+        private final String classpath;
+        private final String trainingName;
+
+        Launch(String option, String classpath, String trainingName) {
+            this.option = option;
+            this.classpath = classpath;
+            this.trainingName = trainingName;
+        }
+
+        String getOption() {
+            return option;
+        }
+
+        String getClasspath() {
+            return classpath;
+        }
+    }
+}
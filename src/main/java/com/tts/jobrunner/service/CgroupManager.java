@@ -0,0 +1,349 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.GlobalConfig;
+import com.tts.jobrunner.model.Job;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * cgroup v2 manager - puts each job JVM into its own cgroup under the delegated
+ * [global] cgroup_root and applies memory_max, cpu_max, cpu_weight and pids_max.
+ *
+ * The JVM joins its cgroup before it starts: the command is wrapped in
+ * sh -c 'echo $$ > cgroup.procs; exec java ...', so the PID is unchanged and
+ * every byte the JVM allocates (heap, metaspace, native) is charged to the job.
+ * When cgroup_root is unset, not cgroup v2, or not writable, jobs run without
+ * limits and a note is written to the job log.
+ * Compatible with Java 11+
+ */
+class CgroupManager {
+    private static final Logger LOGGER = Logger.getLogger(CgroupManager.class.getName());
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+    private static final Pattern MEMORY = Pattern.compile("max|\\d+[KkMmGgTt]?");
+    private static final Pattern CPU_QUOTA = Pattern.compile("(max|\\d+)( \\d+)?");
+    private static final Pattern CPUS = Pattern.compile("\\d+(\\.\\d+)?");
+    private static final String[] CONTROLLERS = {"memory", "cpu", "pids"};
+    private static final long CPU_PERIOD = 100000;
+
+    private final Map<String, Path> activeGroups;
+    private volatile String checkedRoot;
+    private volatile String unavailableReason;
+
+    CgroupManager() {
+        this.activeGroups = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create the job's cgroup and write its limits. Returns null when cgroups are
+     * unavailable (see getUnavailableReason), throws IllegalArgumentException for
+     * invalid limits and IOException when a limit cannot be written.
+     */
+    Path place(Job job, GlobalConfig global) throws IOException {
+        String cpuMax = validate(job);
+        if (!isAvailable(global)) {
+            return null;
+        }
+
+        String name = job.getId().replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + System.currentTimeMillis();
+        Path group = Paths.get(global.getCgroupRoot(), name);
+        Files.createDirectory(group);
+
+        try {
+            if (job.getMemoryMax() != null && !job.getMemoryMax().isEmpty()) {
+                writeLimit(group, "memory.max", job.getMemoryMax());
+            }
+            if (cpuMax != null) {
+                writeLimit(group, "cpu.max", cpuMax);
+            }
+            if (job.getCpuWeight() > 0) {
+                writeLimit(group, "cpu.weight", String.valueOf(job.getCpuWeight()));
+            }
+            if (job.getPidsMax() > 0) {
+                writeLimit(group, "pids.max", String.valueOf(job.getPidsMax()));
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(group);
+            throw e;
+        }
+
+        activeGroups.put(job.getId(), group);
+        return group;
+    }
+
+    /**
+     * Wrap the command so the process joins the cgroup before exec'ing the JVM
+     */
+    List<String> wrap(Path group, List<String> command) {
+        if (group == null) {
+            return command;
+        }
+        List<String> wrapped = new ArrayList<>();
+        wrapped.add("/bin/sh");
+        wrapped.add("-c");
+        wrapped.add("echo $$ > \"$0\" || echo \"jobrunner: could not join cgroup $0, running without limits\" >&2; "
+                + "exec \"$@\"");
+        wrapped.add(group.resolve("cgroup.procs").toString());
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * Track the cgroup of a run adopted from a previous runner
+     */
+    void adopt(String jobId, Path group) {
+        if (Files.isDirectory(group)) {
+            activeGroups.put(jobId, group);
+        }
+    }
+
+    /**
+     * Freeze or thaw every process in the job's cgroup. Returns false if the job has
+     * no cgroup or the kernel lacks cgroup.freeze (before Linux 5.2).
+     */
+    boolean freeze(String jobId, boolean frozen) throws IOException {
+        Path group = activeGroups.get(jobId);
+        if (group == null || !Files.isRegularFile(group.resolve("cgroup.freeze"))) {
+            return false;
+        }
+        writeLimit(group, "cgroup.freeze", frozen ? "1" : "0");
+        return true;
+    }
+
+    /**
+     * Current usage of a running job's cgroup, or null if it has none
+     */
+    Map<String, Object> usage(String jobId) {
+        Path group = activeGroups.get(jobId);
+        if (group == null || !Files.isDirectory(group)) {
+            return null;
+        }
+
+        Map<String, Object> usage = new LinkedHashMap<>();
+        usage.put("cgroup", group.getFileName().toString());
+        putLong(usage, "memoryCurrent", readLong(group.resolve("memory.current")));
+        putLong(usage, "memoryPeak", readLong(group.resolve("memory.peak")));
+        String memoryMax = readFirstLine(group.resolve("memory.max"));
+        if (memoryMax != null) {
+            usage.put("memoryMax", memoryMax);
+        }
+        putLong(usage, "oomKills", readKey(group.resolve("memory.events"), "oom_kill"));
+        putLong(usage, "cpuUsageUsec", readKey(group.resolve("cpu.stat"), "usage_usec"));
+        putLong(usage, "cpuThrottledUsec", readKey(group.resolve("cpu.stat"), "throttled_usec"));
+        putLong(usage, "pidsCurrent", readLong(group.resolve("pids.current")));
+        return usage;
+    }
+
+    /**
+     * Final usage of a finished job; removes its cgroup
+     */
+    Map<String, Object> release(String jobId) {
+        Map<String, Object> usage = usage(jobId);
+        Path group = activeGroups.remove(jobId);
+        if (group != null) {
+            try {
+                Files.deleteIfExists(group);
+            } catch (IOException e) {
+                // Still has processes (e.g. an orphaned child); removed on next startup
+                LOGGER.log(Level.FINE, "Could not remove cgroup " + group, e);
+            }
+        }
+        return usage;
+    }
+
+    String getUnavailableReason() {
+        return unavailableReason;
+    }
+
+    /**
+     * One-line summary of a usage map for the job log, or null if nothing was measured
+     */
+    static String summarize(Map<String, Object> usage) {
+        List<String> parts = new ArrayList<>();
+        if (usage.get("cpuUsageUsec") != null) {
+            String cpu = String.format("cpu %.1fs", (Long) usage.get("cpuUsageUsec") / 1e6);
+            if (usage.get("cpuThrottledUsec") != null && (Long) usage.get("cpuThrottledUsec") > 0) {
+                cpu += String.format(" (throttled %.1fs)", (Long) usage.get("cpuThrottledUsec") / 1e6);
+            }
+            parts.add(cpu);
+        }
+        if (usage.get("memoryPeak") != null) {
+            parts.add("memory peak " + (Long) usage.get("memoryPeak") / (1024 * 1024) + " MB");
+        }
+        if (usage.get("oomKills") != null && (Long) usage.get("oomKills") > 0) {
+            parts.add("OOM kills " + usage.get("oomKills"));
+        }
+        return parts.isEmpty() ? null : "Resource usage: " + String.join(", ", parts);
+    }
+
+    // ==================== Availability ====================
+
+    /**
+     * Check (once per cgroup_root) that the root is a writable cgroup v2 directory and
+     * enable the memory, cpu and pids controllers for its children
+     */
+    private synchronized boolean isAvailable(GlobalConfig global) {
+        String root = global.getCgroupRoot() != null ? global.getCgroupRoot() : "";
+        if (root.equals(checkedRoot)) {
+            return unavailableReason == null;
+        }
+        checkedRoot = root;
+        unavailableReason = checkRoot(root);
+        if (unavailableReason != null) {
+            if (!root.isEmpty()) {
+                LOGGER.warning("cgroup limits disabled: " + unavailableReason);
+            }
+        } else {
+            LOGGER.info("cgroup limits enabled under " + root);
+        }
+        return unavailableReason == null;
+    }
+
+    private String checkRoot(String root) {
+        if (root.isEmpty()) {
+            return "cgroup_root is not set";
+        }
+        if (WINDOWS) {
+            return "cgroups are not available on Windows";
+        }
+        Path rootPath = Paths.get(root).toAbsolutePath();
+        Path existing = rootPath;
+        while (existing != null && !Files.isDirectory(existing)) {
+            existing = existing.getParent();
+        }
+        if (existing == null || !Files.isRegularFile(existing.resolve("cgroup.controllers"))) {
+            return root + " is not on a cgroup v2 hierarchy";
+        }
+        try {
+            Files.createDirectories(rootPath);
+        } catch (IOException e) {
+            return "cannot create " + root + " (" + e.getMessage() + ")";
+        }
+        if (!Files.isWritable(rootPath.resolve("cgroup.subtree_control"))) {
+            return root + " is not delegated to this user";
+        }
+
+        String available = readFirstLine(rootPath.resolve("cgroup.controllers"));
+        List<String> availableList = available != null ? Arrays.asList(available.split(" ")) : Collections.emptyList();
+        for (String controller : CONTROLLERS) {
+            if (!availableList.contains(controller)) {
+                LOGGER.warning("cgroup controller not delegated to " + root + ": " + controller);
+                continue;
+            }
+            try {
+                Files.write(rootPath.resolve("cgroup.subtree_control"),
+                        ("+" + controller).getBytes(StandardCharsets.US_ASCII));
+            } catch (IOException e) {
+                return "cannot enable " + controller + " controller in " + root + " (" + e.getMessage()
+                        + "); the root must not contain processes";
+            }
+        }
+
+        removeStaleGroups(rootPath);
+        return null;
+    }
+
+    /**
+     * Remove empty cgroups left behind by a previous runner
+     */
+    private void removeStaleGroups(Path root) {
+        try (Stream<Path> children = Files.list(root)) {
+            children.filter(Files::isDirectory).forEach(dir -> {
+                try {
+                    Files.delete(dir);
+                } catch (IOException e) {
+                    // Still in use
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not list " + root, e);
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    /**
+     * Validate the job's limits; returns the cpu.max value (or null)
+     */
+    private String validate(Job job) {
+        if (job.getMemoryMax() != null && !job.getMemoryMax().isEmpty()
+                && !MEMORY.matcher(job.getMemoryMax()).matches()) {
+            throw new IllegalArgumentException("Invalid memory_max for job " + job.getId() + ": "
+                    + job.getMemoryMax() + " (expected bytes with optional K/M/G/T suffix, or max)");
+        }
+        if (job.getCpuWeight() < 0 || job.getCpuWeight() > 10000) {
+            throw new IllegalArgumentException("Invalid cpu_weight for job " + job.getId() + ": "
+                    + job.getCpuWeight() + " (expected 1-10000)");
+        }
+
+        String cpuMax = job.getCpuMax() != null ? job.getCpuMax().trim() : "";
+        if (cpuMax.isEmpty()) {
+            return null;
+        }
+        if (CPUS.matcher(cpuMax).matches()) {
+            // Number of CPUs, e.g. 1.5 = 150ms per 100ms period
+            long quota = Math.round(Double.parseDouble(cpuMax) * CPU_PERIOD);
+            return Math.max(quota, 1000) + " " + CPU_PERIOD;
+        }
+        if (CPU_QUOTA.matcher(cpuMax).matches()) {
+            return cpuMax;
+        }
+        throw new IllegalArgumentException("Invalid cpu_max for job " + job.getId() + ": " + cpuMax
+                + " (expected CPUs like 1.5, or \"quota period\")");
+    }
+
+    private void writeLimit(Path group, String file, String value) throws IOException {
+        try {
+            Files.write(group.resolve(file), value.getBytes(StandardCharsets.US_ASCII));
+        } catch (IOException e) {
+            throw new IOException("Cannot set " + file + " = " + value + " in " + group + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String readFirstLine(Path file) {
+        try {
+            List<String> lines = Files.readAllLines(file);
+            return lines.isEmpty() ? null : lines.get(0).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Long readLong(Path file) {
+        String line = readFirstLine(file);
+        try {
+            return line != null ? Long.parseLong(line) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Value of a "key value" line in a flat-keyed cgroup file (cpu.stat, memory.events)
+     */
+    private static Long readKey(Path file, String key) {
+        try {
+            for (String line : Files.readAllLines(file)) {
+                if (line.startsWith(key + " ")) {
+                    return Long.parseLong(line.substring(key.length() + 1).trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Controller not enabled
+        }
+        return null;
+    }
+
+    private static void putLong(Map<String, Object> map, String key, Long value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+}
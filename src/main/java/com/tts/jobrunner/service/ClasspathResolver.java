@@ -0,0 +1,424 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Classpath resolver - resolves each app's WEB-INF/classes + WEB-INF/lib into a
+ * concrete, ordered entry list once and caches it. A WatchService on WEB-INF,
+ * WEB-INF/lib and the WEB-INF/classes tree drops the cached entry on any change,
+ * and tells the listeners (DeployWatcher) which app changed.
+ *
+ * Launches pass the classpath through a generated @argfile (JDK 9+) or a
+ * manifest-only Class-Path jar (JDK 8), so the command line stays short no
+ * matter how many jars an app ships. When an app's fingerprint changes, classpath
+ * files not used for PRUNE_GRACE_MS are deleted (a file still needed is rewritten).
+ * Compatible with Java 11+
+ */
+class ClasspathResolver {
+    private static final Logger LOGGER = Logger.getLogger(ClasspathResolver.class.getName());
+    private static final String CLASSPATH_DIR = ".classpath";
+    private static final long PRUNE_GRACE_MS = 60_000;  // A file used this recently may be read by a starting JVM
+
+    private final Map<String, Resolution> resolutions;
+    private final Map<WatchKey, AppConfig> watchKeys;
+    private final List<Consumer<AppConfig>> listeners;
+    private final Map<String, String> launchArgs;
+    private final Map<String, Long> generations;
+    private final Map<String, String> fingerprints;  // Last resolved fingerprint by app key
+    private volatile boolean pruneNeeded;
+    private WatchService watchService;
+
+    ClasspathResolver() {
+        this.resolutions = new ConcurrentHashMap<>();
+        this.watchKeys = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.launchArgs = new ConcurrentHashMap<>();
+        this.generations = new ConcurrentHashMap<>();
+        this.fingerprints = new ConcurrentHashMap<>();
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            Thread watcher = new Thread(this::watch, "JobRunner-ClasspathWatcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "File watching unavailable, classpaths will not be cached", e);
+        }
+    }
+
+    /**
+     * Complete classpath for a job: each app's classes dir and jars, then the config dir
+     */
+    String buildClasspath(Job job, JobsConfig config) {
+        StringBuilder cp = new StringBuilder();
+        for (String appId : job.getApps()) {
+            AppConfig app = config.getApp(appId);
+            if (app != null) {
+                for (String entry : resolve(app).entries) {
+                    if (cp.length() > 0) {
+                        cp.append(File.pathSeparator);
+                    }
+                    cp.append(entry);
+                }
+            }
+        }
+
+        // Add config dir once at the end
+        String configDir = config.getGlobal().getConfigDir();
+        if (configDir != null && !configDir.isEmpty()) {
+            cp.append(File.pathSeparator).append(configDir);
+        }
+        return cp.toString();
+    }
+
+    /**
+     * Jars in the app's WEB-INF/lib, sorted by name
+     */
+    List<String> getLibJars(AppConfig app) {
+        return resolve(app).libJars;
+    }
+
+    /**
+     * Hash of jar names, sizes and timestamps plus the newest WEB-INF/classes timestamp
+     */
+    String getFingerprint(AppConfig app) {
+        return resolve(app).fingerprint;
+    }
+
+    /**
+     * Rescan an app now, dropping any cached resolution; returns the new fingerprint
+     */
+    String rescan(AppConfig app) {
+        invalidate(keyOf(app));
+        return resolve(app).fingerprint;
+    }
+
+    /**
+     * Call listener on the watcher thread for every change under a watched app's WEB-INF.
+     * An app is watched from its first resolve (or rescan) on.
+     */
+    void addListener(Consumer<AppConfig> listener) {
+        listeners.add(listener);
+    }
+
+    boolean isWatching() {
+        return watchService != null;
+    }
+
+    /**
+     * True if changes of the app are seen (its last resolve could register the watches)
+     */
+    boolean isWatched(AppConfig app) {
+        String key = keyOf(app);
+        for (AppConfig watched : watchKeys.values()) {
+            if (keyOf(watched).equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * JVM arguments that put the classpath on the command line: an @argfile on
+     * JDK 9+, a Class-Path manifest jar on JDK 8, or the plain string as a fallback
+     */
+    List<String> classpathArgs(GlobalConfig global, String classpath) {
+        int version = JavaRuntime.featureVersion(global.getJavaHome());
+        String cacheKey = global.getLogsDir() + "\n" + version + "\n" + classpath;
+
+        File dir = new File(global.getLogsDir(), CLASSPATH_DIR);
+        if (pruneNeeded) {
+            pruneNeeded = false;
+            prune(dir);
+        }
+
+        String arg = launchArgs.get(cacheKey);
+        // Touching the file marks it in use for prune; it fails if the file was just pruned
+        if (arg == null || !fileOf(arg).setLastModified(System.currentTimeMillis())) {
+            try {
+                dir.mkdirs();
+                String name = Hashes.sha256(classpath, 6);
+                arg = version >= 9 || version == 0
+                        ? "@" + writeArgFile(new File(dir, name + ".args"), classpath).getAbsolutePath()
+                        : writeManifestJar(new File(dir, name + ".jar"), classpath).getAbsolutePath();
+                launchArgs.put(cacheKey, arg);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Could not write classpath file, passing classpath inline", e);
+                return Arrays.asList("-classpath", classpath);
+            }
+        }
+
+        return arg.startsWith("@")
+                ? Collections.singletonList(arg)
+                : Arrays.asList("-classpath", arg);
+    }
+
+    void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    // ==================== Resolution ====================
+
+    private Resolution resolve(AppConfig app) {
+        String key = keyOf(app);
+        Resolution resolution = resolutions.get(key);
+        if (resolution != null) {
+            return resolution;
+        }
+
+        // Watch before scanning so a change during the scan is not missed
+        long generation = generations.getOrDefault(key, 0L);
+        File webInf = new File(app.getWebappPath(), "WEB-INF");
+        boolean watched = watchService != null && webInf.isDirectory() && register(key, app);
+
+        resolution = scan(app);
+        String previous = fingerprints.put(key, resolution.fingerprint);
+        if (previous != null && !previous.equals(resolution.fingerprint)) {
+            pruneNeeded = true;  // Classpath files of the old jar set may be unused now
+        }
+        if (watched) {
+            synchronized (this) {
+                if (generations.getOrDefault(key, 0L) == generation) {
+                    resolutions.put(key, resolution);
+                }
+            }
+        }
+        return resolution;
+    }
+
+    private Resolution scan(AppConfig app) {
+        List<String> entries = new ArrayList<>();
+        List<String> libJars = new ArrayList<>();
+        StringBuilder stamp = new StringBuilder();
+
+        entries.add(app.getClassesPath());
+
+        File[] jars = new File(app.getLibPath()).listFiles((dir, n) -> n.toLowerCase().endsWith(".jar"));
+        if (jars != null) {
+            Arrays.sort(jars);
+            for (File jar : jars) {
+                libJars.add(jar.getAbsolutePath());
+                stamp.append(jar.getName()).append(':').append(jar.length())
+                        .append(':').append(jar.lastModified()).append('\n');
+            }
+        }
+        entries.addAll(libJars);
+
+        Path classes = Paths.get(app.getClassesPath());
+        if (Files.isDirectory(classes)) {
+            try (Stream<Path> files = Files.walk(classes)) {
+                long newest = files.mapToLong(p -> p.toFile().lastModified()).max().orElse(0L);
+                stamp.append("classes:").append(newest).append('\n');
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not scan " + classes, e);
+            }
+        }
+
+        String fingerprint;
+        try {
+            fingerprint = Hashes.sha256(stamp.toString(), 6);
+        } catch (Exception e) {
+            fingerprint = Integer.toHexString(stamp.toString().hashCode());
+        }
+
+        LOGGER.fine("Resolved classpath for app " + app.getId() + ": " + libJars.size() + " jars");
+        return new Resolution(Collections.unmodifiableList(entries),
+                Collections.unmodifiableList(libJars), fingerprint);
+    }
+
+    // ==================== Change Detection ====================
+
+    private static String keyOf(AppConfig app) {
+        return app.getId() + "|" + app.getWebappPath();
+    }
+
+    /**
+     * Watch WEB-INF, WEB-INF/lib and every directory under WEB-INF/classes. Directories
+     * already watched keep their key, so no change is missed while re-registering.
+     */
+    private boolean register(String key, AppConfig app) {
+        WatchEvent.Kind<?>[] kinds = {
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY
+        };
+        try {
+            List<Path> dirs = new ArrayList<>();
+            dirs.add(Paths.get(app.getWebappPath(), "WEB-INF"));
+            Path lib = Paths.get(app.getLibPath());
+            if (Files.isDirectory(lib)) {
+                dirs.add(lib);
+            }
+            Path classes = Paths.get(app.getClassesPath());
+            if (Files.isDirectory(classes)) {
+                try (Stream<Path> tree = Files.walk(classes)) {
+                    tree.filter(Files::isDirectory).forEach(dirs::add);
+                }
+            }
+            Set<WatchKey> registered = new HashSet<>();
+            for (Path dir : dirs) {
+                WatchKey watchKey = dir.register(watchService, kinds);
+                watchKeys.put(watchKey, app);
+                registered.add(watchKey);
+            }
+            unwatch(key, registered);
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not watch app " + app.getId() + ", classpath will not be cached", e);
+            unwatch(key, Collections.emptySet());
+            invalidate(key);
+            return false;
+        }
+    }
+
+    /**
+     * Cancel the app's watches except the given ones
+     */
+    private void unwatch(String key, Set<WatchKey> keep) {
+        Iterator<Map.Entry<WatchKey, AppConfig>> it = watchKeys.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<WatchKey, AppConfig> entry = it.next();
+            if (keyOf(entry.getValue()).equals(key) && !keep.contains(entry.getKey())) {
+                entry.getKey().cancel();
+                it.remove();
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                watchKey.pollEvents();
+                AppConfig app = watchKeys.get(watchKey);
+                if (!watchKey.reset()) {
+                    // Directory deleted (e.g. the webapp is being re-expanded)
+                    watchKeys.remove(watchKey);
+                }
+                if (app != null) {
+                    invalidate(keyOf(app));
+                    for (Consumer<AppConfig> listener : listeners) {
+                        try {
+                            listener.accept(app);
+                        } catch (RuntimeException e) {
+                            LOGGER.log(Level.WARNING, "Classpath change listener failed", e);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    /**
+     * Drop the cached resolution; the next launch rescans (the watches stay)
+     */
+    private synchronized void invalidate(String key) {
+        generations.merge(key, 1L, Long::sum);
+        if (resolutions.remove(key) != null) {
+            LOGGER.info("Classpath changed, cache invalidated: " + key);
+        }
+    }
+
+    // ==================== Classpath Files ====================
+
+    private File writeArgFile(File file, String classpath) throws IOException {
+        // Inside quotes an argfile treats backslash as an escape character
+        String quoted = classpath.replace("\\", "\\\\").replace("\"", "\\\"");
+        String content = "-classpath \"" + quoted + "\"\n";
+        writeAtomically(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private File writeManifestJar(File file, String classpath) throws IOException {
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            if (classPath.length() > 0) {
+                classPath.append(' ');
+            }
+            // Directories must end with a slash to be treated as class directories
+            classPath.append(new File(entry).toURI().toString());
+        }
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new JarOutputStream(bytes, manifest).close();  // Manifest only
+        writeAtomically(file, bytes.toByteArray());
+        return file;
+    }
+
+    /**
+     * Delete classpath files not used for PRUNE_GRACE_MS and forget their launch args
+     */
+    private void prune(File dir) {
+        File[] stale = dir.listFiles((d, n) -> (n.endsWith(".args") || n.endsWith(".jar"))
+                && new File(d, n).lastModified() < System.currentTimeMillis() - PRUNE_GRACE_MS);
+        if (stale == null) {
+            return;
+        }
+        int deleted = 0;
+        for (File file : stale) {
+            try {
+                Files.deleteIfExists(file.toPath());
+                deleted++;
+            } catch (IOException e) {
+                // A manifest jar held open by a running JVM on Windows
+                LOGGER.log(Level.FINE, "Could not delete " + file, e);
+            }
+        }
+        launchArgs.values().removeIf(arg -> !fileOf(arg).isFile());
+        if (deleted > 0) {
+            LOGGER.info("Pruned " + deleted + " unused classpath file(s) in " + dir);
+        }
+    }
+
+    private static File fileOf(String arg) {
+        return new File(arg.startsWith("@") ? arg.substring(1) : arg);
+    }
+
+    private void writeAtomically(File file, byte[] content) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), content);
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ==================== Cached Resolution ====================
+
+    private static class Resolution {
+        final List<String> entries;
+        final List<String> libJars;
+        final String fingerprint;
+
+        Resolution(List<String> entries, List<String> libJars, String fingerprint) {
+            this.entries = entries;
+            this.libJars = libJars;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.tts.jobrunner.service;
+
+import java.util.*;
+
+/**
+ * What a config reload changed, by job id.
+ * Compatible with Java 11+
+ */
+class ConfigDiff {
+    final List<String> added = new ArrayList<>();
+    final List<String> removed = new ArrayList<>();
+    final List<String> changed = new ArrayList<>();
+    final List<String> relaunch = new ArrayList<>();  // Changed jobs whose command line or process setup differs
+    final List<String> apps = new ArrayList<>();  // Apps added, removed or changed
+    // Filled in when the diff is applied, by one task per job
+    final List<String> restarted = Collections.synchronizedList(new ArrayList<>());
+    final List<String> stopped = Collections.synchronizedList(new ArrayList<>());
+    boolean globalChanged;
+
+    boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty() && apps.isEmpty() && !globalChanged;
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("added", added);
+        result.put("removed", removed);
+        result.put("changed", changed);
+        result.put("relaunch", relaunch);
+        result.put("apps", apps);
+        result.put("globalChanged", globalChanged);
+        result.put("restarted", restarted);
+        result.put("stopped", stopped);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "no changes";
+        }
+        StringBuilder sb = new StringBuilder();
+        append(sb, "added", added);
+        append(sb, "removed", removed);
+        append(sb, "changed", changed);
+        append(sb, "apps changed", apps);
+        if (globalChanged) {
+            sb.append(sb.length() > 0 ? ", " : "").append("global settings changed");
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String label, List<String> ids) {
+        if (!ids.isEmpty()) {
+            sb.append(sb.length() > 0 ? ", " : "").append(label).append(' ').append(ids);
+        }
+    }
+}
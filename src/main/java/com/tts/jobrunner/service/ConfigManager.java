@@ -1,284 +1,1160 @@
-package com.tts.jobrunner.service;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.moandjiezana.toml.Toml;
-import com.moandjiezana.toml.TomlWriter;
-import com.tts.jobrunner.model.*;
-
-import java.io.*;
-import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-/**
- * Configuration manager - loads/saves jobs.toml
- * Compatible with Java 8+
- */
-public class ConfigManager {
-    private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
-    private static final String CONFIG_FILE_NAME = "jobs.toml";
-    private static final String EXTERNAL_CONFIG_PATH = "/opt/config/" + CONFIG_FILE_NAME;
-
-    private static ConfigManager instance;
-    private JobsConfig config;
-    private String configFilePath;
-    private final Gson gson;
-
-    private ConfigManager() {
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-    }
-
-    public static synchronized ConfigManager getInstance() {
-        if (instance == null) {
-            instance = new ConfigManager();
-        }
-        return instance;
-    }
-
-    /**
-     * Initialize and load configuration
-     */
-    public void init(String webappPath) {
-        // Try external config first, then fall back to WEB-INF
-        File externalConfig = new File(EXTERNAL_CONFIG_PATH);
-        File webappConfig = new File(webappPath + "/WEB-INF/" + CONFIG_FILE_NAME);
-
-        if (externalConfig.exists()) {
-            configFilePath = EXTERNAL_CONFIG_PATH;
-            LOGGER.info("Using external config: " + configFilePath);
-        } else if (webappConfig.exists()) {
-            configFilePath = webappConfig.getAbsolutePath();
-            LOGGER.info("Using webapp config: " + configFilePath);
-        } else {
-            // Create default config
-            configFilePath = EXTERNAL_CONFIG_PATH;
-            config = createDefaultConfig();
-            saveConfig();
-            LOGGER.info("Created default config: " + configFilePath);
-            return;
-        }
-
-        loadConfig();
-    }
-
-    /**
-     * Load configuration from TOML file
-     */
-    public void loadConfig() {
-        try {
-            File configFile = new File(configFilePath);
-            if (!configFile.exists()) {
-                LOGGER.warning("Config file not found: " + configFilePath);
-                config = createDefaultConfig();
-                return;
-            }
-
-            Toml toml = new Toml().read(configFile);
-            config = new JobsConfig();
-
-            // Parse global section
-            Toml globalToml = toml.getTable("global");
-            if (globalToml != null) {
-                GlobalConfig global = new GlobalConfig();
-                global.setJavaHome(globalToml.getString("java_home", global.getJavaHome()));
-                global.setJavaOpts(globalToml.getString("java_opts", global.getJavaOpts()));
-                global.setConfigDir(globalToml.getString("config_dir", global.getConfigDir()));
-                global.setLogsDir(globalToml.getString("logs_dir", global.getLogsDir()));
-                config.setGlobal(global);
-            }
-
-            // Parse apps section
-            Toml appsToml = toml.getTable("apps");
-            if (appsToml != null) {
-                Map<String, Object> appsMap = appsToml.toMap();
-                for (String appId : appsMap.keySet()) {
-                    Toml appToml = appsToml.getTable(appId);
-                    if (appToml != null) {
-                        AppConfig app = new AppConfig();
-                        app.setId(appId);
-                        app.setName(appToml.getString("name", appId));
-                        app.setWebappPath(appToml.getString("webapp_path", ""));
-                        config.addApp(app);
-                    }
-                }
-            }
-
-            // Parse jobs array
-            List<Toml> jobsToml = toml.getTables("jobs");
-            if (jobsToml != null) {
-                for (Toml jobToml : jobsToml) {
-                    Job job = new Job();
-                    job.setId(jobToml.getString("id"));
-                    job.setName(jobToml.getString("name"));
-                    job.setMainClass(jobToml.getString("main_class"));
-                    job.setType(jobToml.getString("type", "on-demand"));
-                    job.setEnabled(jobToml.getBoolean("enabled", true));
-                    job.setDescription(jobToml.getString("description", ""));
-
-                    // Handle app (string or array)
-                    Object appObj = jobToml.toMap().get("app");
-                    if (appObj instanceof String) {
-                        job.setApp((String) appObj);
-                    } else if (appObj instanceof List) {
-                        @SuppressWarnings("unchecked")
-                        List<String> appList = (List<String>) appObj;
-                        job.setApps(appList);
-                    }
-
-                    // Handle params
-                    List<String> params = jobToml.getList("params");
-                    if (params != null) {
-                        job.setParams(params);
-                    }
-
-                    // Handle args_required flag
-                    job.setArgsRequired(jobToml.getBoolean("args_required", false));
-
-                    // Handle per-job java_opts
-                    String jobJavaOpts = jobToml.getString("java_opts");
-                    if (jobJavaOpts != null && !jobJavaOpts.isEmpty()) {
-                        job.setJavaOpts(jobJavaOpts);
-                    }
-
-                    config.addJob(job);
-                }
-            }
-
-            LOGGER.info("Loaded " + config.getJobs().size() + " jobs from config");
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error loading config", e);
-            config = createDefaultConfig();
-        }
-    }
-
-    /**
-     * Save configuration to TOML file
-     */
-    public void saveConfig() {
-        try {
-            File configFile = new File(configFilePath);
-            File parentDir = configFile.getParentFile();
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
-            }
-
-            // Build TOML content manually for better formatting
-            StringBuilder sb = new StringBuilder();
-            sb.append("# Job Runner Configuration\n");
-            sb.append("# Generated by Job Runner UI\n\n");
-
-            // Global section
-            GlobalConfig global = config.getGlobal();
-            sb.append("[global]\n");
-            sb.append("java_home = \"").append(escapeToml(global.getJavaHome())).append("\"\n");
-            sb.append("java_opts = \"").append(escapeToml(global.getJavaOpts())).append("\"\n");
-            sb.append("config_dir = \"").append(escapeToml(global.getConfigDir())).append("\"\n");
-            sb.append("logs_dir = \"").append(escapeToml(global.getLogsDir())).append("\"\n\n");
-
-            // Apps section
-            for (AppConfig app : config.getApps().values()) {
-                sb.append("[apps.").append(app.getId()).append("]\n");
-                sb.append("name = \"").append(escapeToml(app.getName())).append("\"\n");
-                sb.append("webapp_path = \"").append(escapeToml(app.getWebappPath())).append("\"\n\n");
-            }
-
-            // Jobs section
-            for (Job job : config.getJobs()) {
-                sb.append("[[jobs]]\n");
-                sb.append("id = \"").append(escapeToml(job.getId())).append("\"\n");
-                sb.append("name = \"").append(escapeToml(job.getName())).append("\"\n");
-
-                // App (string or array)
-                List<String> apps = job.getApps();
-                if (apps.size() == 1) {
-                    sb.append("app = \"").append(escapeToml(apps.get(0))).append("\"\n");
-                } else {
-                    sb.append("app = [");
-                    for (int i = 0; i < apps.size(); i++) {
-                        if (i > 0) sb.append(", ");
-                        sb.append("\"").append(escapeToml(apps.get(i))).append("\"");
-                    }
-                    sb.append("]\n");
-                }
-
-                sb.append("main_class = \"").append(escapeToml(job.getMainClass())).append("\"\n");
-                sb.append("type = \"").append(job.getType().getValue()).append("\"\n");
-                sb.append("enabled = ").append(job.isEnabled()).append("\n");
-
-                if (job.getDescription() != null && !job.getDescription().isEmpty()) {
-                    sb.append("description = \"").append(escapeToml(job.getDescription())).append("\"\n");
-                }
-
-                if (job.getParams() != null && !job.getParams().isEmpty()) {
-                    sb.append("params = [");
-                    for (int i = 0; i < job.getParams().size(); i++) {
-                        if (i > 0) sb.append(", ");
-                        sb.append("\"").append(escapeToml(job.getParams().get(i))).append("\"");
-                    }
-                    sb.append("]\n");
-                }
-
-                // Write args_required if true
-                if (job.isArgsRequired()) {
-                    sb.append("args_required = true\n");
-                }
-
-                // Write per-job java_opts if set
-                if (job.getJavaOpts() != null && !job.getJavaOpts().isEmpty()) {
-                    sb.append("java_opts = \"").append(escapeToml(job.getJavaOpts())).append("\"\n");
-                }
-
-                sb.append("\n");
-            }
-
-            try (FileWriter writer = new FileWriter(configFile)) {
-                writer.write(sb.toString());
-            }
-
-            LOGGER.info("Saved config to: " + configFilePath);
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error saving config", e);
-        }
-    }
-
-    private String escapeToml(String value) {
-        if (value == null) return "";
-        return value.replace("\\", "\\\\").replace("\"", "\\\"");
-    }
-
-    /**
-     * Create default configuration
-     */
-    private JobsConfig createDefaultConfig() {
-        JobsConfig config = new JobsConfig();
-
-        // Default global config
-        GlobalConfig global = new GlobalConfig();
-        global.setJavaHome("/opt/java/openjdk");
-        global.setJavaOpts("-Xms256m -Xmx512m");
-        global.setConfigDir("/opt/config");
-        global.setLogsDir("/usr/local/tomcat/logs/jobs");
-        config.setGlobal(global);
-
-        // Default app
-        AppConfig adxsip = new AppConfig("adxsip", "ADXSIP", "/usr/local/tomcat/webapps/ADXSIP");
-        config.addApp(adxsip);
-
-        return config;
-    }
-
-    public JobsConfig getConfig() {
-        return config;
-    }
-
-    public String getConfigFilePath() {
-        return configFilePath;
-    }
-
-    public String toJson() {
-        return gson.toJson(config);
-    }
-}
+package com.tts.jobrunner.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.moandjiezana.toml.Toml;
+import com.moandjiezana.toml.TomlWriter;
+import com.tts.jobrunner.model.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Configuration manager - loads/saves jobs.toml
+ *
+ * The config is an immutable JobsConfig snapshot held in a volatile field: readers
+ * never lock, and a reload or edit builds a new snapshot and swaps it in at once.
+ *
+ * Apps and jobs can also live in jobs.d/*.toml next to jobs.toml ([global] is only
+ * read from jobs.toml). Each job remembers the file it came from; a save rewrites only
+ * the files whose apps or jobs changed, and a reload re-parses only the files whose
+ * content changed. A file that does not parse keeps its previous definitions and
+ * its error is reported, without failing the rest of the load.
+ *
+ * Edits are saved in the background: edits made within SAVE_DELAY_MS are written
+ * together, so a burst of API calls costs one save and no request waits on disk.
+ * Each file is replaced atomically (temp file, fsync, rename) and its previous content
+ * is kept as jobs.toml.1 .. jobs.toml.N. A file that does not parse at startup is
+ * loaded from its newest good backup; if jobs.toml cannot be loaded at all, the runner
+ * starts empty and does not save until the file is fixed.
+ * Compatible with Java 8+
+ */
+public class ConfigManager {
+    private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
+    private static final String CONFIG_FILE_NAME = "jobs.toml";
+    private static final String EXTERNAL_CONFIG_PATH = "/opt/config/" + CONFIG_FILE_NAME;
+    private static final String JOBS_DIR_NAME = "jobs.d";
+    private static final long SAVE_DELAY_MS = 200;  // Edits within this window are saved together
+    private static final long SAVE_RETRY_MS = 5000;  // First retry of a failed save, doubled per failure
+    private static final long SAVE_RETRY_MAX_MS = 300_000;
+    private static final Set<String> LIVE_SETTINGS = new HashSet<>(Arrays.asList(
+            "name", "type", "enabled", "description", "args_required", "timeout", "stall_timeout"));
+
+    private static ConfigManager instance;
+    private volatile JobsConfig config;
+    private volatile String configFilePath;
+    private volatile Map<String, String> configErrors;  // Parse and save errors by file
+    private final Map<String, ConfigFile> files;  // Config files as last loaded or saved, by path
+    private final Set<String> dirtyFiles;  // Files with edits not yet saved
+    private final Map<String, Integer> saveFailures = new HashMap<>();  // Failed saves in a row, by file
+    private final ScheduledExecutorService saver;
+    private ScheduledFuture<?> pendingSave;
+    private boolean saveBlocked;  // jobs.toml did not load: never overwrite it with the defaults
+    private final Object saveLock = new Object();  // Held while files are written; taken before the monitor
+    private final Gson gson;
+
+    private ConfigManager() {
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.files = new HashMap<>();
+        this.dirtyFiles = new LinkedHashSet<>();
+        this.configErrors = Collections.emptyMap();
+        this.saver = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-ConfigSave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized ConfigManager getInstance() {
+        if (instance == null) {
+            instance = new ConfigManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Initialize and load configuration
+     */
+    public void init(String webappPath) {
+        // Try external config first, then fall back to WEB-INF
+        File externalConfig = new File(EXTERNAL_CONFIG_PATH);
+        File webappConfig = new File(webappPath + "/WEB-INF/" + CONFIG_FILE_NAME);
+
+        if (externalConfig.exists()) {
+            configFilePath = EXTERNAL_CONFIG_PATH;
+            LOGGER.info("Using external config: " + configFilePath);
+        } else if (webappConfig.exists()) {
+            configFilePath = webappConfig.getAbsolutePath();
+            LOGGER.info("Using webapp config: " + configFilePath);
+        } else {
+            // Create default config
+            configFilePath = EXTERNAL_CONFIG_PATH;
+            config = createDefaultConfig();
+            saveConfig();
+            LOGGER.info("Created default config: " + configFilePath);
+            return;
+        }
+
+        loadConfig();
+    }
+
+    /**
+     * Load configuration from TOML file
+     */
+    public synchronized void loadConfig() {
+        try {
+            File configFile = new File(configFilePath);
+            if (!configFile.exists()) {
+                LOGGER.warning("Config file not found: " + configFilePath);
+                config = createDefaultConfig();
+                return;
+            }
+
+            List<ConfigFile> loaded = readFiles();
+            Map<String, String> errors = new LinkedHashMap<>();
+            config = assemble(loaded, errors, false);
+            remember(loaded, errors);
+            saveBlocked = false;
+            LOGGER.info("Loaded " + config.getJobs().size() + " jobs from " + loaded.size() + " config file(s)");
+
+        } catch (Exception e) {
+            // Never replace the file with defaults: start empty and wait for it to be fixed
+            LOGGER.log(Level.SEVERE, "Error loading config " + configFilePath
+                    + ", starting without jobs; changes are not saved until the file loads", e);
+            config = createDefaultConfig();
+            saveBlocked = true;
+            configErrors = Collections.singletonMap(configFilePath, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Re-read the config file and publish only what changed. Jobs whose definition is
+     * the same keep their Job object; the returned diff lists added, removed and changed
+     * jobs. Throws if jobs.toml cannot be read or parsed - the current config stays.
+     * A jobs.d file that does not parse keeps its previous jobs (see getConfigErrors).
+     */
+    ConfigDiff reloadConfig() throws IOException {
+        synchronized (saveLock) {  // No save may land between the flush and the read
+            while (true) {
+                boolean saved = savePending();  // Pending edits must not be mistaken for changes on disk
+                synchronized (this) {
+                    if (!saved || saveBlocked || dirtyFiles.isEmpty()) {  // Else an edit came in meanwhile
+                        return reloadFiles();
+                    }
+                }
+            }
+        }
+    }
+
+    private ConfigDiff reloadFiles() throws IOException {
+        List<ConfigFile> loaded = readFiles();
+        Map<String, String> errors = new LinkedHashMap<>();
+        JobsConfig parsed = assemble(loaded, errors, true);
+        if (saveBlocked) {
+            LOGGER.info("Config file loads again, saving is enabled");
+            saveBlocked = false;
+            dirtyFiles.clear();  // Edits of the empty startup config
+        }
+
+        JobsConfig current = config;
+        ConfigDiff diff = new ConfigDiff();
+        List<Job> jobs = new ArrayList<>();
+        for (Job job : parsed.getJobs()) {
+            Job old = current.getJob(job.getId());
+            if (old == null) {
+                diff.added.add(job.getId());
+                jobs.add(job);
+            } else if (render(old).equals(render(job))) {
+                // Same definition; a job moved to another file takes the new object's source
+                jobs.add(Objects.equals(old.getSource(), job.getSource()) ? old : job);
+            } else {
+                diff.changed.add(job.getId());
+                if (!launchSettings(old).equals(launchSettings(job))) {
+                    diff.relaunch.add(job.getId());
+                }
+                jobs.add(job);
+            }
+        }
+        for (Job old : current.getJobs()) {
+            if (parsed.getJob(old.getId()) == null) {
+                diff.removed.add(old.getId());
+            }
+        }
+
+        GlobalConfig global = current.getGlobal();
+        if (!render(global).equals(render(parsed.getGlobal()))) {
+            global = parsed.getGlobal();
+            diff.globalChanged = true;
+        }
+        List<AppConfig> apps = new ArrayList<>();
+        for (AppConfig app : parsed.getApps().values()) {
+            AppConfig old = current.getApp(app.getId());
+            if (old != null && Objects.equals(old.getName(), app.getName())
+                    && Objects.equals(old.getWebappPath(), app.getWebappPath())) {
+                apps.add(Objects.equals(old.getSource(), app.getSource()) ? old : app);
+            } else {
+                diff.apps.add(app.getId());
+                apps.add(app);
+            }
+        }
+        for (String appId : current.getApps().keySet()) {
+            if (parsed.getApp(appId) == null) {
+                diff.apps.add(appId);
+            }
+        }
+
+        if (!diff.isEmpty()) {
+            config = new JobsConfig(global, apps, jobs);
+        }
+        remember(loaded, errors);
+        return diff;
+    }
+
+    /**
+     * True if a config file was added, removed or changed since this runner last loaded or saved it
+     */
+    synchronized boolean hasExternalChanges() {
+        List<File> current = listFiles();
+        if (current.size() != files.size()) {
+            return true;
+        }
+        for (File file : current) {
+            ConfigFile known = files.get(file.getPath());
+            try {
+                if (known == null || !Arrays.equals(known.content, Files.readAllBytes(file.toPath()))) {
+                    return true;
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse errors of the last load, by config file (empty if every file parsed)
+     */
+    public Map<String, String> getConfigErrors() {
+        return configErrors;
+    }
+
+    /**
+     * The jobs.d directory next to the main config file
+     */
+    File getJobsDir() {
+        return new File(new File(configFilePath).getAbsoluteFile().getParentFile(), JOBS_DIR_NAME);
+    }
+
+    /**
+     * File a new job is saved to: jobs.d/&lt;app&gt;.toml if it exists for the job's first app,
+     * otherwise jobs.toml (null)
+     */
+    public String defaultSource(Job job) {
+        if (job.getApps().isEmpty()) {
+            return null;
+        }
+        File appFile = new File(getJobsDir(), job.getApps().get(0) + ".toml");
+        return appFile.isFile() ? appFile.getPath() : null;
+    }
+
+    // ==================== Loading ====================
+
+    /**
+     * jobs.toml followed by jobs.d/*.toml in name order
+     */
+    private List<File> listFiles() {
+        List<File> result = new ArrayList<>();
+        result.add(new File(configFilePath));
+        File[] jobFiles = getJobsDir().listFiles((dir, name) -> name.endsWith(".toml"));
+        if (jobFiles != null) {
+            Arrays.sort(jobFiles);
+            result.addAll(Arrays.asList(jobFiles));
+        }
+        return result;
+    }
+
+    /**
+     * Read all config files; files whose content changed since they were last loaded
+     * or saved are parsed, in parallel
+     */
+    private List<ConfigFile> readFiles() {
+        return listFiles().parallelStream().map(this::readFile).collect(Collectors.toList());
+    }
+
+    private ConfigFile readFile(File file) {
+        String path = file.getPath();
+        ConfigFile previous = files.get(path);
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file.toPath());
+        } catch (IOException e) {
+            return new ConfigFile(path, null, previous != null ? previous.parsed : null, "cannot read: " + e);
+        }
+        if (previous != null && previous.error == null && Arrays.equals(previous.content, content)) {
+            return previous;
+        }
+        try {
+            return new ConfigFile(path, content, parseConfig(path, content), null);
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                return new ConfigFile(path, content, previous.parsed, e.getMessage());
+            }
+            return recoverFromBackup(file, content, e.getMessage());
+        }
+    }
+
+    /**
+     * Load the newest backup of a file that does not parse (first load only)
+     */
+    private ConfigFile recoverFromBackup(File file, byte[] content, String error) {
+        String path = file.getPath();
+        for (int i = 1; ; i++) {
+            File backup = new File(path + "." + i);
+            if (!backup.isFile()) {
+                return new ConfigFile(path, content, null, error);
+            }
+            try {
+                JobsConfig parsed = parseConfig(path, Files.readAllBytes(backup.toPath()));
+                LOGGER.warning("Config file " + path + " does not parse, using backup " + backup.getName());
+                return new ConfigFile(path, content, parsed, error + " (using backup " + backup.getName() + ")");
+            } catch (IOException | RuntimeException e) {
+                // Try the next older one
+            }
+        }
+    }
+
+    /**
+     * Combine the files into one snapshot. The first definition of an id wins; later
+     * duplicates are reported as errors of their file. Throws if jobs.toml does not parse
+     * (when not strict: only if it has no backup to use either).
+     */
+    private JobsConfig assemble(List<ConfigFile> loaded, Map<String, String> errors, boolean strict)
+            throws IOException {
+        ConfigFile main = loaded.get(0);
+        if (main.parsed == null || (strict && main.error != null)) {
+            throw new IOException("Invalid config " + main.path + ": " + main.error);
+        }
+
+        Map<String, AppConfig> apps = new LinkedHashMap<>();
+        Map<String, Job> jobs = new LinkedHashMap<>();
+        for (ConfigFile file : loaded) {
+            List<String> problems = new ArrayList<>();
+            if (file.error != null) {
+                problems.add(file.error + (file.parsed != null && !file.error.endsWith(")")
+                        ? " (previous definitions kept)" : ""));
+            }
+            if (file.parsed != null) {
+                for (AppConfig app : file.parsed.getApps().values()) {
+                    AppConfig existing = apps.putIfAbsent(app.getId(), app);
+                    if (existing != null) {
+                        problems.add("duplicate app " + app.getId() + ", already defined in " + fileOf(existing.getSource()));
+                    }
+                }
+                for (Job job : file.parsed.getJobs()) {
+                    Job existing = jobs.putIfAbsent(job.getId(), job);
+                    if (existing != null) {
+                        problems.add("duplicate job " + job.getId() + ", already defined in " + fileOf(existing.getSource()));
+                    }
+                }
+            }
+            if (!problems.isEmpty()) {
+                errors.put(file.path, String.join("; ", problems));
+                LOGGER.warning("Config file " + file.path + ": " + String.join("; ", problems));
+            }
+        }
+        return new JobsConfig(main.parsed.getGlobal(), apps.values(), new ArrayList<>(jobs.values()));
+    }
+
+    private void remember(List<ConfigFile> loaded, Map<String, String> errors) {
+        files.clear();
+        for (ConfigFile file : loaded) {
+            files.put(file.path, file);
+        }
+        configErrors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Parse one config file into a snapshot of its own (without publishing it)
+     */
+    private JobsConfig parseConfig(String path, byte[] content) {
+        Toml toml = new Toml().read(new String(content, StandardCharsets.UTF_8));
+        boolean main = path.equals(configFilePath);
+        String source = main ? null : path;
+        GlobalConfig global = new GlobalConfig();
+        List<AppConfig> apps = new ArrayList<>();
+        Map<String, Job> jobs = new LinkedHashMap<>();
+
+        // Parse global section
+        Toml globalToml = main ? toml.getTable("global") : null;
+        if (!main && toml.getTable("global") != null) {
+            LOGGER.warning("Ignoring [global] in " + path + ", global settings are only read from jobs.toml");
+        }
+        if (globalToml != null) {
+            global.setJavaHome(globalToml.getString("java_home", global.getJavaHome()));
+            global.setJavaOpts(globalToml.getString("java_opts", global.getJavaOpts()));
+            global.setConfigDir(globalToml.getString("config_dir", global.getConfigDir()));
+            global.setLogsDir(globalToml.getString("logs_dir", global.getLogsDir()));
+            global.setPoolSize(globalToml.getLong("pool_size", (long) global.getPoolSize()).intValue());
+            global.setPoolMaxRuns(globalToml.getLong("pool_max_runs", (long) global.getPoolMaxRuns()).intValue());
+            global.setCds(globalToml.getBoolean("cds", global.isCds()));
+            global.setCgroupRoot(globalToml.getString("cgroup_root", global.getCgroupRoot()));
+            global.setMemoryBudget(globalToml.getString("memory_budget", global.getMemoryBudget()));
+            global.setKillOnShutdown(globalToml.getBoolean("kill_on_shutdown", global.isKillOnShutdown()));
+            Object suspendLoad = globalToml.toMap().get("suspend_load");
+            if (suspendLoad instanceof Number) {
+                global.setSuspendLoad(((Number) suspendLoad).doubleValue());
+            }
+            Object resumeLoad = globalToml.toMap().get("resume_load");
+            if (resumeLoad instanceof Number) {
+                global.setResumeLoad(((Number) resumeLoad).doubleValue());
+            }
+            global.setRestartOnDeploy(globalToml.getBoolean("restart_on_deploy", global.isRestartOnDeploy()));
+            global.setDeployDebounce(globalToml.getLong("deploy_debounce", (long) global.getDeployDebounce()).intValue());
+            global.setRollingBatchSize(globalToml.getLong("rolling_batch_size", (long) global.getRollingBatchSize()).intValue());
+            global.setRollingReadyTimeout(globalToml.getLong("rolling_ready_timeout",
+                    (long) global.getRollingReadyTimeout()).intValue());
+            global.setWatchConfig(globalToml.getBoolean("watch_config", global.isWatchConfig()));
+            global.setRestartOnConfigChange(globalToml.getBoolean("restart_on_config_change",
+                    global.isRestartOnConfigChange()));
+            global.setConfigBackups(globalToml.getLong("config_backups", (long) global.getConfigBackups()).intValue());
+            global.setSlowRequestMs(globalToml.getLong("slow_request_ms", (long) global.getSlowRequestMs()).intValue());
+            Object apiReadRate = globalToml.toMap().get("api_read_rate");
+            if (apiReadRate instanceof Number) {
+                global.setApiReadRate(((Number) apiReadRate).doubleValue());
+            }
+            Object apiControlRate = globalToml.toMap().get("api_control_rate");
+            if (apiControlRate instanceof Number) {
+                global.setApiControlRate(((Number) apiControlRate).doubleValue());
+            }
+            Object apiExpensiveRate = globalToml.toMap().get("api_expensive_rate");
+            if (apiExpensiveRate instanceof Number) {
+                global.setApiExpensiveRate(((Number) apiExpensiveRate).doubleValue());
+            }
+            global.setApiMaxExpensive(globalToml.getLong("api_max_expensive", (long) global.getApiMaxExpensive()).intValue());
+        }
+
+        // Parse apps section
+        Toml appsToml = toml.getTable("apps");
+        if (appsToml != null) {
+            Map<String, Object> appsMap = appsToml.toMap();
+            for (String appId : appsMap.keySet()) {
+                Toml appToml = appsToml.getTable(appId);
+                if (appToml != null) {
+                    AppConfig app = new AppConfig();
+                    app.setId(appId);
+                    app.setName(appToml.getString("name", appId));
+                    app.setWebappPath(appToml.getString("webapp_path", ""));
+                    app.setSource(source);
+                    apps.add(app);
+                }
+            }
+        }
+
+        // Parse jobs array
+        List<Toml> jobsToml = toml.getTables("jobs");
+        if (jobsToml != null) {
+            for (Toml jobToml : jobsToml) {
+                Job job = new Job();
+                job.setId(jobToml.getString("id"));
+                job.setName(jobToml.getString("name"));
+                job.setMainClass(jobToml.getString("main_class"));
+                job.setType(jobToml.getString("type", "on-demand"));
+                job.setEnabled(jobToml.getBoolean("enabled", true));
+                job.setDescription(jobToml.getString("description", ""));
+
+                // Handle app (string or array)
+                Object appObj = jobToml.toMap().get("app");
+                if (appObj instanceof String) {
+                    job.setApp((String) appObj);
+                } else if (appObj instanceof List) {
+                    @SuppressWarnings("unchecked")
+                    List<String> appList = (List<String>) appObj;
+                    job.setApps(appList);
+                }
+
+                // Handle params
+                List<String> params = jobToml.getList("params");
+                if (params != null) {
+                    job.setParams(params);
+                }
+
+                // Handle args_required flag
+                job.setArgsRequired(jobToml.getBoolean("args_required", false));
+
+                // Handle per-job java_opts
+                String jobJavaOpts = jobToml.getString("java_opts");
+                if (jobJavaOpts != null && !jobJavaOpts.isEmpty()) {
+                    job.setJavaOpts(jobJavaOpts);
+                }
+
+                // Handle watchdog limits (seconds)
+                job.setTimeout(jobToml.getLong("timeout", 0L));
+                job.setStallTimeout(jobToml.getLong("stall_timeout", 0L));
+
+                // Handle execution mode (process or pooled)
+                job.setExecution(jobToml.getString("execution", "process"));
+
+                // Handle per-job CDS override
+                job.setCds(jobToml.getBoolean("cds"));
+
+                // Handle scheduling priority and CPU pinning
+                job.setPriorityClass(jobToml.getString("priority_class", "normal"));
+                String cpus = jobToml.getString("cpus");
+                if (cpus != null && !cpus.isEmpty()) {
+                    job.setCpus(cpus);
+                }
+
+                // Handle cgroup limits
+                job.setMemoryMax(jobToml.getString("memory_max"));
+                Object cpuMax = jobToml.toMap().get("cpu_max");
+                if (cpuMax != null) {
+                    job.setCpuMax(cpuMax.toString());
+                }
+                job.setCpuWeight(jobToml.getLong("cpu_weight", 0L).intValue());
+                job.setPidsMax(jobToml.getLong("pids_max", 0L).intValue());
+
+                // Handle heap sizing (auto = from the global memory_budget)
+                job.setHeap(jobToml.getString("heap"));
+                job.setHeapWeight(jobToml.getLong("heap_weight", 1L).intValue());
+
+                // Handle health checks
+                job.setHealthLogPattern(jobToml.getString("health_log_pattern"));
+                job.setHealthPort(jobToml.getLong("health_port", 0L).intValue());
+                job.setHealthFile(jobToml.getString("health_file"));
+                job.setHealthMaxAge(jobToml.getLong("health_max_age", job.getHealthMaxAge()));
+                job.setHealthGrace(jobToml.getLong("health_grace", job.getHealthGrace()));
+                job.setHealthFailures(jobToml.getLong("health_failures", (long) job.getHealthFailures()).intValue());
+                job.setHealthAction(jobToml.getString("health_action", "restart"));
+                job.setSource(source);
+
+                if (jobs.putIfAbsent(job.getId(), job) != null) {
+                    LOGGER.warning("Ignoring duplicate job id " + job.getId() + " in " + path);
+                }
+            }
+        }
+
+        return new JobsConfig(global, apps, new ArrayList<>(jobs.values()));
+    }
+
+    /**
+     * Apply a change to the config: the function gets the current snapshot and returns
+     * the new one (see the JobsConfig with/without methods), which is swapped in and saved.
+     * Changes are serialized, so concurrent edits never overwrite each other.
+     * Returning the current snapshot unchanged skips the save; otherwise only the
+     * files that hold a changed app or job (or the global settings) are rewritten,
+     * shortly afterwards in the background (see flush).
+     */
+    public JobsConfig update(UnaryOperator<JobsConfig> change) {
+        JobsConfig changed;
+        boolean saveNow = false;
+        synchronized (this) {
+            JobsConfig before = config;
+            changed = change.apply(before);
+            if (changed != before) {
+                config = changed;
+                dirtyFiles.addAll(changedFiles(before, changed));
+                saveNow = !scheduleSave(SAVE_DELAY_MS);
+                Map<String, Object> event = editDiff(before, changed).describe();
+                event.put("reason", "edit");
+                EventFeed.getInstance().publish("config", null, event);
+            }
+        }
+        if (saveNow) {
+            flush();  // Shutting down
+        }
+        return changed;
+    }
+
+    /**
+     * Write pending edits now. The content is rendered under the config lock, but the
+     * files are written outside it (one save at a time, under saveLock), so update()
+     * and readers of the config never wait on disk.
+     */
+    public void flush() {
+        savePending();
+    }
+
+    /**
+     * Write pending edits; false if a file could not be written
+     */
+    private boolean savePending() {
+        synchronized (saveLock) {
+            List<ConfigFile> pending;
+            int backups;
+            synchronized (this) {
+                if (pendingSave != null) {
+                    pendingSave.cancel(false);
+                    pendingSave = null;
+                }
+                if (dirtyFiles.isEmpty()) {
+                    return true;
+                }
+                if (saveBlocked) {
+                    LOGGER.warning("Not saving config: " + configFilePath + " did not load, fix it first");
+                    return true;
+                }
+                Set<String> paths = new LinkedHashSet<>(dirtyFiles);
+                dirtyFiles.clear();
+                backups = config.getGlobal().getConfigBackups();
+                pending = renderFiles(paths);
+            }
+            return saveFiles(pending, backups);
+        }
+    }
+
+    /**
+     * Write pending edits and stop the background saver
+     */
+    public void shutdown() {
+        flush();
+        saver.shutdownNow();
+    }
+
+    /**
+     * Save configuration to TOML files (jobs.toml and every jobs.d file in use)
+     */
+    public void saveConfig() {
+        synchronized (this) {
+            JobsConfig config = this.config;
+            Set<String> paths = new LinkedHashSet<>();
+            paths.add(configFilePath);
+            for (AppConfig app : config.getApps().values()) {
+                paths.add(fileOf(app.getSource()));
+            }
+            for (Job job : config.getJobs()) {
+                paths.add(fileOf(job.getSource()));
+            }
+            dirtyFiles.addAll(paths);
+        }
+        flush();
+    }
+
+    // ==================== Saving ====================
+
+    /**
+     * Schedule a flush; false if the saver is shut down and the caller has to flush
+     * itself (after releasing the monitor)
+     */
+    private boolean scheduleSave(long delayMs) {
+        if (pendingSave != null) {
+            return true;  // Joins the save already scheduled
+        }
+        try {
+            pendingSave = saver.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * What an edit changed, by object identity (update keeps unchanged objects)
+     */
+    private static ConfigDiff editDiff(JobsConfig before, JobsConfig after) {
+        ConfigDiff diff = new ConfigDiff();
+        for (Job job : after.getJobs()) {
+            Job old = before.getJob(job.getId());
+            if (old == null) {
+                diff.added.add(job.getId());
+            } else if (old != job) {
+                diff.changed.add(job.getId());
+            }
+        }
+        for (Job old : before.getJobs()) {
+            if (after.getJob(old.getId()) == null) {
+                diff.removed.add(old.getId());
+            }
+        }
+        for (AppConfig app : after.getApps().values()) {
+            if (before.getApp(app.getId()) != app) {
+                diff.apps.add(app.getId());
+            }
+        }
+        for (String appId : before.getApps().keySet()) {
+            if (after.getApp(appId) == null) {
+                diff.apps.add(appId);
+            }
+        }
+        diff.globalChanged = before.getGlobal() != after.getGlobal();
+        return diff;
+    }
+
+    /**
+     * Files holding an app or job that differs between the two snapshots (both the old
+     * and the new file if it moved); jobs.toml if the global settings changed
+     */
+    private Set<String> changedFiles(JobsConfig before, JobsConfig after) {
+        Set<String> paths = new LinkedHashSet<>();
+        if (before.getGlobal() != after.getGlobal()) {
+            paths.add(configFilePath);
+        }
+        for (Job job : before.getJobs()) {
+            Job now = after.getJob(job.getId());
+            if (now != job) {
+                paths.add(fileOf(job.getSource()));
+                if (now != null) {
+                    paths.add(fileOf(now.getSource()));
+                }
+            }
+        }
+        for (Job job : after.getJobs()) {
+            if (before.getJob(job.getId()) == null) {
+                paths.add(fileOf(job.getSource()));
+            }
+        }
+        for (AppConfig app : before.getApps().values()) {
+            AppConfig now = after.getApp(app.getId());
+            if (now != app) {
+                paths.add(fileOf(app.getSource()));
+                if (now != null) {
+                    paths.add(fileOf(now.getSource()));
+                }
+            }
+        }
+        for (AppConfig app : after.getApps().values()) {
+            if (before.getApp(app.getId()) == null) {
+                paths.add(fileOf(app.getSource()));
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Render the files to save from the current snapshot, skipping those whose content
+     * did not change. Called with the monitor held.
+     */
+    private List<ConfigFile> renderFiles(Set<String> paths) {
+        JobsConfig config = this.config;
+        List<ConfigFile> pending = new ArrayList<>();
+        for (String path : paths) {
+            boolean main = path.equals(configFilePath);
+            List<AppConfig> apps = new ArrayList<>();
+            for (AppConfig app : config.getApps().values()) {
+                if (fileOf(app.getSource()).equals(path)) {
+                    apps.add(app);
+                }
+            }
+            List<Job> jobs = new ArrayList<>();
+            for (Job job : config.getJobs()) {
+                if (fileOf(job.getSource()).equals(path)) {
+                    jobs.add(job);
+                }
+            }
+
+            byte[] content = renderFile(path, main ? config.getGlobal() : null, apps, jobs)
+                    .getBytes(StandardCharsets.UTF_8);
+            ConfigFile known = files.get(path);
+            if (known != null && Arrays.equals(known.content, content)) {
+                continue;
+            }
+            JobsConfig parsed = new JobsConfig(main ? config.getGlobal() : new GlobalConfig(), apps, jobs);
+            pending.add(new ConfigFile(path, content, parsed, null));
+        }
+        return pending;
+    }
+
+    /**
+     * Write rendered files; called with saveLock held and the monitor free
+     */
+    private boolean saveFiles(List<ConfigFile> pending, int backups) {
+        boolean saved = true;
+        for (ConfigFile file : pending) {
+            try {
+                writeFile(new File(file.path).getAbsoluteFile().toPath(), file.content, backups);
+                synchronized (this) {
+                    files.put(file.path, file);
+                    saveFailures.remove(file.path);
+                    if (configErrors.containsKey(file.path)) {
+                        Map<String, String> errors = new LinkedHashMap<>(configErrors);
+                        errors.remove(file.path);
+                        configErrors = Collections.unmodifiableMap(errors);
+                    }
+                }
+
+                LOGGER.info("Saved config to: " + file.path);
+
+            } catch (Exception e) {
+                saved = false;
+                synchronized (this) {
+                    saveFailed(file.path, e);
+                }
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Keep a file that could not be written dirty and retry it later, backing off
+     * from SAVE_RETRY_MS to SAVE_RETRY_MAX_MS; the failure shows in getConfigErrors.
+     * Called with the monitor held.
+     */
+    private void saveFailed(String path, Exception e) {
+        int failures = saveFailures.merge(path, 1, Integer::sum);
+        long delay = Math.min(SAVE_RETRY_MAX_MS, SAVE_RETRY_MS << Math.min(failures - 1, 16));
+        if (failures == 1) {
+            LOGGER.log(Level.SEVERE, "Error saving config " + path + ", retrying in " + delay / 1000 + "s", e);
+        } else {
+            LOGGER.warning("Saving config " + path + " failed again (" + failures + " attempts, retrying in "
+                    + delay / 1000 + "s): " + e);
+        }
+        Map<String, String> errors = new LinkedHashMap<>(configErrors);
+        errors.put(path, "Not saved: " + e.getMessage() + " (" + failures + " attempt(s), retrying in "
+                + delay / 1000 + "s)");
+        configErrors = Collections.unmodifiableMap(errors);
+        dirtyFiles.add(path);
+        scheduleSave(delay);  // Not retried once the saver is shut down
+    }
+
+    /**
+     * Replace a file atomically: write a temp file next to it, fsync it and rename it
+     * over the target, so a crash leaves either the old or the new content. Once the
+     * temp file is on disk, the old content is kept as file.1 (shifting older backups
+     * up to file.N); a write that fails leaves the backups alone.
+     */
+    private static void writeFile(Path target, byte[] content, int backups) throws IOException {
+        Path dir = target.getParent();
+        Files.createDirectories(dir);
+        Path temp = dir.resolve("." + target.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            // Only now that the new content is safely on disk, so a failed write keeps the backups
+            if (backups > 0 && Files.exists(target)) {
+                rotateBackups(target, backups);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        // Make the rename itself durable (directories cannot be opened on Windows)
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static void rotateBackups(Path target, int backups) throws IOException {
+        String name = target.getFileName().toString();
+        Path dir = target.getParent();
+        Files.deleteIfExists(dir.resolve(name + "." + backups));
+        for (int i = backups - 1; i >= 1; i--) {
+            Path backup = dir.resolve(name + "." + i);
+            if (Files.exists(backup)) {
+                Files.move(backup, dir.resolve(name + "." + (i + 1)), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.copy(target, dir.resolve(name + ".1"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Build the TOML content of one file (global is null for a jobs.d file)
+     */
+    private String renderFile(String path, GlobalConfig global, List<AppConfig> apps, List<Job> jobs) {
+        // Build TOML content manually for better formatting
+        StringBuilder sb = new StringBuilder();
+        if (global != null) {
+            sb.append("# Job Runner Configuration\n");
+            sb.append("# Generated by Job Runner UI\n\n");
+
+            // Global section
+            appendGlobal(sb, global);
+            sb.append("\n");
+        } else {
+            sb.append("# Job Runner jobs (").append(new File(path).getName()).append(")\n");
+            sb.append("# Generated by Job Runner UI\n\n");
+        }
+
+        // Apps section
+        for (AppConfig app : apps) {
+            sb.append("[apps.").append(app.getId()).append("]\n");
+            sb.append("name = \"").append(escapeToml(app.getName())).append("\"\n");
+            sb.append("webapp_path = \"").append(escapeToml(app.getWebappPath())).append("\"\n\n");
+        }
+
+        // Jobs section
+        for (Job job : jobs) {
+            appendJob(sb, job);
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    private String fileOf(String source) {
+        return source != null ? source : configFilePath;
+    }
+
+    /**
+     * Append the [global] table
+     */
+    private void appendGlobal(StringBuilder sb, GlobalConfig global) {
+        sb.append("[global]\n");
+        sb.append("java_home = \"").append(escapeToml(global.getJavaHome())).append("\"\n");
+        sb.append("java_opts = \"").append(escapeToml(global.getJavaOpts())).append("\"\n");
+        sb.append("config_dir = \"").append(escapeToml(global.getConfigDir())).append("\"\n");
+        sb.append("logs_dir = \"").append(escapeToml(global.getLogsDir())).append("\"\n");
+        sb.append("pool_size = ").append(global.getPoolSize()).append("\n");
+        sb.append("pool_max_runs = ").append(global.getPoolMaxRuns()).append("\n");
+        sb.append("cds = ").append(global.isCds()).append("\n");
+        if (global.getCgroupRoot() != null && !global.getCgroupRoot().isEmpty()) {
+            sb.append("cgroup_root = \"").append(escapeToml(global.getCgroupRoot())).append("\"\n");
+        }
+        if (global.getMemoryBudget() != null && !global.getMemoryBudget().isEmpty()) {
+            sb.append("memory_budget = \"").append(escapeToml(global.getMemoryBudget())).append("\"\n");
+        }
+        if (!global.isKillOnShutdown()) {
+            sb.append("kill_on_shutdown = false\n");
+        }
+        if (global.getSuspendLoad() > 0) {
+            sb.append("suspend_load = ").append(global.getSuspendLoad()).append("\n");
+        }
+        if (global.getResumeLoad() > 0) {
+            sb.append("resume_load = ").append(global.getResumeLoad()).append("\n");
+        }
+        if (global.isRestartOnDeploy()) {
+            sb.append("restart_on_deploy = true\n");
+            sb.append("deploy_debounce = ").append(global.getDeployDebounce()).append("\n");
+            sb.append("rolling_batch_size = ").append(global.getRollingBatchSize()).append("\n");
+            sb.append("rolling_ready_timeout = ").append(global.getRollingReadyTimeout()).append("\n");
+        }
+        if (!global.isWatchConfig()) {
+            sb.append("watch_config = false\n");
+        }
+        if (global.isRestartOnConfigChange()) {
+            sb.append("restart_on_config_change = true\n");
+        }
+        if (global.getConfigBackups() != GlobalConfig.DEFAULT_CONFIG_BACKUPS) {
+            sb.append("config_backups = ").append(global.getConfigBackups()).append("\n");
+        }
+        if (global.getSlowRequestMs() != GlobalConfig.DEFAULT_SLOW_REQUEST_MS) {
+            sb.append("slow_request_ms = ").append(global.getSlowRequestMs()).append("\n");
+        }
+        if (global.getApiReadRate() != GlobalConfig.DEFAULT_API_READ_RATE) {
+            sb.append("api_read_rate = ").append(global.getApiReadRate()).append("\n");
+        }
+        if (global.getApiControlRate() != GlobalConfig.DEFAULT_API_CONTROL_RATE) {
+            sb.append("api_control_rate = ").append(global.getApiControlRate()).append("\n");
+        }
+        if (global.getApiExpensiveRate() != GlobalConfig.DEFAULT_API_EXPENSIVE_RATE) {
+            sb.append("api_expensive_rate = ").append(global.getApiExpensiveRate()).append("\n");
+        }
+        if (global.getApiMaxExpensive() != GlobalConfig.DEFAULT_API_MAX_EXPENSIVE) {
+            sb.append("api_max_expensive = ").append(global.getApiMaxExpensive()).append("\n");
+        }
+    }
+
+    /**
+     * Append a job as a [[jobs]] table (without the trailing blank line)
+     */
+    private void appendJob(StringBuilder sb, Job job) {
+        sb.append("[[jobs]]\n");
+        sb.append("id = \"").append(escapeToml(job.getId())).append("\"\n");
+        sb.append("name = \"").append(escapeToml(job.getName())).append("\"\n");
+
+        // App (string or array)
+        List<String> apps = job.getApps();
+        if (apps.size() == 1) {
+            sb.append("app = \"").append(escapeToml(apps.get(0))).append("\"\n");
+        } else {
+            sb.append("app = [");
+            for (int i = 0; i < apps.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append("\"").append(escapeToml(apps.get(i))).append("\"");
+            }
+            sb.append("]\n");
+        }
+
+        sb.append("main_class = \"").append(escapeToml(job.getMainClass())).append("\"\n");
+        sb.append("type = \"").append(job.getType().getValue()).append("\"\n");
+        sb.append("enabled = ").append(job.isEnabled()).append("\n");
+
+        if (job.getDescription() != null && !job.getDescription().isEmpty()) {
+            sb.append("description = \"").append(escapeToml(job.getDescription())).append("\"\n");
+        }
+
+        if (job.getParams() != null && !job.getParams().isEmpty()) {
+            sb.append("params = [");
+            for (int i = 0; i < job.getParams().size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append("\"").append(escapeToml(job.getParams().get(i))).append("\"");
+            }
+            sb.append("]\n");
+        }
+
+        // Write args_required if true
+        if (job.isArgsRequired()) {
+            sb.append("args_required = true\n");
+        }
+
+        // Write per-job java_opts if set
+        if (job.getJavaOpts() != null && !job.getJavaOpts().isEmpty()) {
+            sb.append("java_opts = \"").append(escapeToml(job.getJavaOpts())).append("\"\n");
+        }
+
+        // Write execution mode if not the default
+        if (job.isPooled()) {
+            sb.append("execution = \"").append(job.getExecution().getValue()).append("\"\n");
+        }
+
+        // Write CDS override if set
+        if (job.getCds() != null) {
+            sb.append("cds = ").append(job.getCds()).append("\n");
+        }
+
+        // Write priority settings if not the default
+        if (job.getPriorityClass() != Job.PriorityClass.NORMAL) {
+            sb.append("priority_class = \"").append(job.getPriorityClass().getValue()).append("\"\n");
+        }
+        if (job.getCpus() != null && !job.getCpus().isEmpty()) {
+            sb.append("cpus = \"").append(escapeToml(job.getCpus())).append("\"\n");
+        }
+
+        // Write cgroup limits if set
+        if (job.getMemoryMax() != null && !job.getMemoryMax().isEmpty()) {
+            sb.append("memory_max = \"").append(escapeToml(job.getMemoryMax())).append("\"\n");
+        }
+        if (job.getCpuMax() != null && !job.getCpuMax().isEmpty()) {
+            sb.append("cpu_max = \"").append(escapeToml(job.getCpuMax())).append("\"\n");
+        }
+        if (job.getCpuWeight() > 0) {
+            sb.append("cpu_weight = ").append(job.getCpuWeight()).append("\n");
+        }
+        if (job.getPidsMax() > 0) {
+            sb.append("pids_max = ").append(job.getPidsMax()).append("\n");
+        }
+
+        // Write heap sizing if set
+        if (job.isAutoHeap()) {
+            sb.append("heap = \"auto\"\n");
+            if (job.getHeapWeight() != 1) {
+                sb.append("heap_weight = ").append(job.getHeapWeight()).append("\n");
+            }
+        }
+
+        // Write health checks if set
+        if (job.hasHealthChecks()) {
+            if (job.getHealthLogPattern() != null && !job.getHealthLogPattern().isEmpty()) {
+                sb.append("health_log_pattern = \"").append(escapeToml(job.getHealthLogPattern())).append("\"\n");
+            }
+            if (job.getHealthPort() > 0) {
+                sb.append("health_port = ").append(job.getHealthPort()).append("\n");
+            }
+            if (job.getHealthFile() != null && !job.getHealthFile().isEmpty()) {
+                sb.append("health_file = \"").append(escapeToml(job.getHealthFile())).append("\"\n");
+            }
+            sb.append("health_max_age = ").append(job.getHealthMaxAge()).append("\n");
+            sb.append("health_grace = ").append(job.getHealthGrace()).append("\n");
+            sb.append("health_failures = ").append(job.getHealthFailures()).append("\n");
+            sb.append("health_action = \"").append(job.getHealthAction().getValue()).append("\"\n");
+        }
+
+        // Write watchdog limits if set
+        if (job.getTimeout() > 0) {
+            sb.append("timeout = ").append(job.getTimeout()).append("\n");
+        }
+        if (job.getStallTimeout() > 0) {
+            sb.append("stall_timeout = ").append(job.getStallTimeout()).append("\n");
+        }
+
+    }
+
+    private String render(Job job) {
+        StringBuilder sb = new StringBuilder();
+        appendJob(sb, job);
+        return sb.toString();
+    }
+
+    private String render(GlobalConfig global) {
+        StringBuilder sb = new StringBuilder();
+        appendGlobal(sb, global);
+        return sb.toString();
+    }
+
+    /**
+     * The lines of a job definition that go into its command line or process setup.
+     * Other settings (name, limits, health checks) are read live and need no restart.
+     */
+    private String launchSettings(Job job) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : render(job).split("\n")) {
+            String key = line.split(" = ", 2)[0];
+            if (!LIVE_SETTINGS.contains(key) && !key.startsWith("health_")) {
+                sb.append(line).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String escapeToml(String value) {
+        if (value == null) return "";
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Create default configuration
+     */
+    private JobsConfig createDefaultConfig() {
+        // Default global config
+        GlobalConfig global = new GlobalConfig();
+        global.setJavaHome("/opt/java/openjdk");
+        global.setJavaOpts("-Xms256m -Xmx512m");
+        global.setConfigDir("/opt/config");
+        global.setLogsDir("/usr/local/tomcat/logs/jobs");
+
+        // Default app
+        AppConfig adxsip = new AppConfig("adxsip", "ADXSIP", "/usr/local/tomcat/webapps/ADXSIP");
+
+        return new JobsConfig(global, Collections.singletonList(adxsip), Collections.<Job>emptyList());
+    }
+
+    public JobsConfig getConfig() {
+        return config;
+    }
+
+    public String getConfigFilePath() {
+        return configFilePath;
+    }
+
+    public String toJson() {
+        return gson.toJson(config);
+    }
+
+    // ==================== Config Files ====================
+
+    /**
+     * One config file as last read or written: its content and what it defines
+     */
+    private static class ConfigFile {
+        final String path;
+        final byte[] content;
+        final JobsConfig parsed;  // Null if the file never parsed
+        final String error;  // Null if the content parsed
+
+        ConfigFile(String path, byte[] content, JobsConfig parsed, String error) {
+            this.path = path;
+            this.content = content;
+            this.parsed = parsed;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.tts.jobrunner.service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Config watcher - reloads jobs.toml when it is changed on disk.
+ *
+ * The config file's directory and its jobs.d directory (once it exists) are watched,
+ * so any *.toml file added, changed or deleted there is picked up; changes are debounced so an editor's
+ * write-and-rename or a deployment tool copying the file causes one reload. Writes
+ * made by the runner itself (UI edits) are recognised by their content and skipped.
+ * A file that does not parse is logged and the current config is kept.
+ * Compatible with Java 11+
+ */
+class ConfigWatcher {
+    private static final Logger LOGGER = Logger.getLogger(ConfigWatcher.class.getName());
+    private static final long DEBOUNCE_MS = 250;
+
+    private final JobManager jobManager;
+    private final ScheduledExecutorService scheduler;
+    private WatchService watchService;
+    private Path jobsDir;
+    private ScheduledFuture<?> pending;
+
+    ConfigWatcher(JobManager jobManager) {
+        this.jobManager = jobManager;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-ConfigReload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        String configFilePath = ConfigManager.getInstance().getConfigFilePath();
+        if (configFilePath == null) {
+            return;
+        }
+        Path configFile = Paths.get(configFilePath).toAbsolutePath();
+        jobsDir = ConfigManager.getInstance().getJobsDir().toPath();
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            configFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + configFile + ", changes need POST /api/config/reload", e);
+            return;
+        }
+        watchJobsDir();
+
+        Thread watcher = new Thread(() -> watch(configFile.getFileName()), "JobRunner-ConfigWatcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        LOGGER.info("Watching config file: " + configFile);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    private void watch(Path fileName) {
+        try {
+            while (true) {
+                WatchKey watchKey = watchService.take();
+                boolean inJobsDir = jobsDir.equals(watchKey.watchable());
+                for (WatchEvent<?> event : watchKey.pollEvents()) {
+                    Object context = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(context)
+                            || (inJobsDir && context.toString().endsWith(".toml"))) {
+                        schedule();
+                    } else if (!inJobsDir && jobsDir.getFileName().equals(context)
+                            && event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        watchJobsDir();
+                        schedule();
+                    }
+                }
+                if (!watchKey.reset()) {
+                    if (inJobsDir) {
+                        continue;  // jobs.d was removed; watched again if it is re-created
+                    }
+                    LOGGER.warning("Config directory is no longer watched, changes need POST /api/config/reload");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void watchJobsDir() {
+        if (!Files.isDirectory(jobsDir)) {
+            return;
+        }
+        try {
+            jobsDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            LOGGER.info("Watching config directory: " + jobsDir);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + jobsDir + ", changes need POST /api/config/reload", e);
+        }
+    }
+
+    private synchronized void schedule() {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        try {
+            pending = scheduler.schedule(this::reload, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void reload() {
+        ConfigManager configManager = ConfigManager.getInstance();
+        if (!configManager.getConfig().getGlobal().isWatchConfig() || !configManager.hasExternalChanges()) {
+            return;
+        }
+        try {
+            jobManager.reloadConfig();
+        } catch (IOException e) {
+            LOGGER.warning("Config file changed but was not applied: " + e.getMessage());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Config reload failed", e);
+        }
+    }
+}
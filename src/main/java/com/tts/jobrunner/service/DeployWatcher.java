@@ -0,0 +1,351 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deploy watcher - picks up redeployed apps by restarting their continuous jobs.
+ *
+ * With [global] restart_on_deploy, every app is watched through ClasspathResolver,
+ * whose WatchService already covers WEB-INF, WEB-INF/lib and the WEB-INF/classes
+ * tree; it reports each change here. A redeploy counts as settled once no change was
+ * seen for deploy_debounce seconds and the classpath fingerprint is the same on two
+ * checks in a row; if the fingerprint differs from the deployed one, the app's
+ * running continuous jobs get a rolling restart. POST /api/apps/{id}/restart-jobs
+ * starts one by hand.
+ *
+ * A rolling restart restarts rolling_batch_size jobs at a time and waits until each
+ * is healthy (jobs with health checks) or has written its first log line before
+ * moving on; a job that fails to come up aborts the rollout. Rollouts run one at a
+ * time, so a deploy of several apps never restarts everything at once.
+ * Compatible with Java 11+
+ */
+class DeployWatcher {
+    private static final Logger LOGGER = Logger.getLogger(DeployWatcher.class.getName());
+    private static final long TICK_SECONDS = 1;
+    private static final long READY_POLL_MS = 500;
+
+    private final JobManager jobManager;
+    private final ClasspathResolver classpathResolver;
+    private final WorkerPool workerPool;
+    private final Map<String, AppState> apps;
+    private final Map<String, Rollout> rollouts;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService rolloutExecutor;
+
+    DeployWatcher(JobManager jobManager, ClasspathResolver classpathResolver, WorkerPool workerPool) {
+        this.jobManager = jobManager;
+        this.classpathResolver = classpathResolver;
+        this.workerPool = workerPool;
+        this.apps = new ConcurrentHashMap<>();
+        this.rollouts = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-DeployWatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rolloutExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-Rollout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        if (!classpathResolver.isWatching()) {
+            LOGGER.warning("File watching unavailable, redeploys will not restart jobs");
+            return;
+        }
+        classpathResolver.addListener(this::changed);
+        scheduler.scheduleWithFixedDelay(this::tick, TICK_SECONDS, TICK_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        rolloutExecutor.shutdownNow();
+    }
+
+    /**
+     * Queue a rolling restart of the app's running continuous jobs. Returns the
+     * rollout already queued or running for the app, if there is one.
+     */
+    synchronized Rollout restartJobs(String appId, String reason) {
+        Rollout current = rollouts.get(appId);
+        if (current != null && !current.isFinished()) {
+            return current;
+        }
+
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        Set<String> running = jobManager.getRunningJobIds();
+        List<String> jobIds = new ArrayList<>();
+        for (Job job : config.getJobsForApp(appId)) {
+            if (job.isPooled() && job.isEnabled()) {
+                // Idle workers still hold the old WEB-INF/lib jars
+                workerPool.recycle(job, config);
+            }
+            if (job.getType() == Job.JobType.CONTINUOUS && running.contains(job.getId())) {
+                jobIds.add(job.getId());
+            }
+        }
+
+        Rollout rollout = new Rollout(appId, reason, jobIds);
+        rollouts.put(appId, rollout);
+        jobManager.stateChanged();
+        LOGGER.info("Rolling restart of app " + appId + " (" + reason + "): " + jobIds);
+        try {
+            rolloutExecutor.execute(() -> run(rollout));
+        } catch (RejectedExecutionException e) {
+            rollout.finish("aborted", "runner is shutting down");
+        }
+        return rollout;
+    }
+
+    /**
+     * Latest rollout of every app
+     */
+    List<Map<String, Object>> describeRollouts() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Rollout rollout : rollouts.values()) {
+            result.add(rollout.describe());
+        }
+        return result;
+    }
+
+    // ==================== Change Detection ====================
+
+    /**
+     * Something under the app's WEB-INF changed (called on the ClasspathResolver watcher thread)
+     */
+    private void changed(AppConfig app) {
+        AppState state = apps.get(app.getId());
+        if (state != null && state.webappPath.equals(app.getWebappPath())) {
+            state.dirty = true;
+            state.lastEvent = System.currentTimeMillis();
+        }
+    }
+
+    private void tick() {
+        // Never let an exception escape, it would cancel the scheduled task
+        try {
+            JobsConfig config = ConfigManager.getInstance().getConfig();
+            GlobalConfig global = config.getGlobal();
+            if (!global.isRestartOnDeploy()) {
+                apps.clear();
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            long debounce = Math.max(1, global.getDeployDebounce()) * 1000L;
+            for (AppConfig app : config.getApps().values()) {
+                AppState state = apps.get(app.getId());
+                if (state == null || !state.webappPath.equals(app.getWebappPath())) {
+                    state = new AppState(app.getWebappPath());
+                    apps.put(app.getId(), state);
+                }
+                checkApp(app, state, now, debounce);
+            }
+            for (String appId : new ArrayList<>(apps.keySet())) {
+                if (config.getApp(appId) == null) {
+                    apps.remove(appId);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Deploy watcher check failed", e);
+        }
+    }
+
+    private void checkApp(AppConfig app, AppState state, long now, long debounce) {
+        if (state.fingerprint == null) {
+            // First sight of the app: remember what is deployed now (the rescan starts watching it)
+            if (now - state.lastRegister >= debounce && app.isValid()) {
+                state.lastRegister = now;
+                String fingerprint = classpathResolver.rescan(app);
+                if (classpathResolver.isWatched(app)) {
+                    state.fingerprint = fingerprint;
+                    state.dirty = false;
+                }
+            }
+            return;
+        }
+        if (!state.dirty || now - state.lastEvent < debounce) {
+            return;
+        }
+        if (!app.isValid()) {
+            // Still being unpacked
+            state.lastEvent = now;
+            return;
+        }
+
+        // Also re-watches directories that the redeploy replaced
+        String fingerprint = classpathResolver.rescan(app);
+        if (!fingerprint.equals(state.pending)) {
+            state.pending = fingerprint;
+            state.lastEvent = now;
+            return;
+        }
+
+        state.dirty = false;
+        state.pending = null;
+        if (!fingerprint.equals(state.fingerprint)) {
+            state.fingerprint = fingerprint;
+            LOGGER.info("Redeploy of app " + app.getId() + " detected");
+            restartJobs(app.getId(), "redeploy");
+        }
+    }
+
+    // ==================== Rolling Restart ====================
+
+    private void run(Rollout rollout) {
+        GlobalConfig global = ConfigManager.getInstance().getConfig().getGlobal();
+        int batchSize = Math.max(1, global.getRollingBatchSize());
+        long timeout = Math.max(1, global.getRollingReadyTimeout()) * 1000L;
+        rollout.state = "running";
+        jobManager.stateChanged();
+
+        try {
+            for (int from = 0; from < rollout.jobIds.size(); from += batchSize) {
+                List<String> batch = rollout.jobIds.subList(from, Math.min(from + batchSize, rollout.jobIds.size()));
+                Map<String, Long> restarted = new LinkedHashMap<>();
+
+                for (String jobId : batch) {
+                    if (jobManager.getProcess(jobId) == null) {
+                        rollout.skipped.add(jobId);
+                        continue;
+                    }
+                    rollout.current = jobId;
+                    jobManager.appendLog(jobId, "[deploy] Restarting for " + rollout.reason + " of app " + rollout.appId
+                            + " (rolling restart, " + (from + restarted.size() + 1) + " of " + rollout.jobIds.size() + ")");
+                    jobManager.stopJob(jobId);
+                    JobManager.JobResult result = jobManager.startJob(jobId);
+                    if (!result.isSuccess()) {
+                        rollout.finish("aborted", "job " + jobId + " did not start: " + result.getMessage());
+                        return;
+                    }
+                    Metrics.getInstance().restarted(jobId, Metrics.RESTART_REDEPLOY);
+                    restarted.put(jobId, jobManager.getLastOutputTime(jobId));
+                }
+
+                for (Map.Entry<String, Long> entry : restarted.entrySet()) {
+                    String error = awaitReady(entry.getKey(), entry.getValue(), timeout);
+                    if (error != null) {
+                        jobManager.appendLog(entry.getKey(), "[deploy] Rolling restart aborted: " + error);
+                        rollout.finish("aborted", "job " + entry.getKey() + " " + error);
+                        return;
+                    }
+                    rollout.restarted.add(entry.getKey());
+                    jobManager.stateChanged();
+                }
+            }
+            rollout.finish("done", rollout.restarted.size() + " job(s) restarted");
+        } catch (InterruptedException e) {
+            rollout.finish("aborted", "runner is shutting down");
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Rolling restart of app " + rollout.appId + " failed", e);
+            rollout.finish("aborted", e.getMessage());
+        } finally {
+            jobManager.stateChanged();
+        }
+    }
+
+    /**
+     * Wait until a restarted job is healthy, or has logged a line if it has no health
+     * checks. Returns why it is not ready, or null once it is.
+     */
+    private String awaitReady(String jobId, long startOutputTime, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            Process process = jobManager.getProcess(jobId);
+            Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
+            if (process == null || !process.isAlive() || job == null) {
+                return "exited after restart";
+            }
+
+            Map<String, Object> health = jobManager.getHealth(job);
+            if (health != null ? "healthy".equals(health.get("status"))
+                    : jobManager.getLastOutputTime(jobId) > startOutputTime) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return health != null ? "not healthy after " + timeout / 1000 + "s"
+                        : "wrote no output within " + timeout / 1000 + "s";
+            }
+            Thread.sleep(READY_POLL_MS);
+        }
+    }
+
+    // ==================== State ====================
+
+    private static class AppState {
+        final String webappPath;
+        volatile boolean dirty;
+        volatile long lastEvent;
+        volatile long lastRegister;
+        volatile String fingerprint;  // Classpath that jobs were last (re)started with
+        volatile String pending;      // Fingerprint seen on the previous settle check
+
+        AppState(String webappPath) {
+            this.webappPath = webappPath;
+        }
+    }
+
+    /**
+     * One rolling restart of an app's jobs
+     */
+    static class Rollout {
+        private final String appId;
+        private final String reason;
+        private final List<String> jobIds;
+        private final List<String> restarted;
+        private final List<String> skipped;
+        private final long started;
+        private volatile String state;
+        private volatile String current;
+        private volatile String message;
+        private volatile Long finished;
+
+        Rollout(String appId, String reason, List<String> jobIds) {
+            this.appId = appId;
+            this.reason = reason;
+            this.jobIds = jobIds;
+            this.restarted = new CopyOnWriteArrayList<>();
+            this.skipped = new CopyOnWriteArrayList<>();
+            this.started = System.currentTimeMillis();
+            this.state = "queued";
+        }
+
+        boolean isFinished() {
+            return finished != null;
+        }
+
+        void finish(String state, String message) {
+            this.state = state;
+            this.message = message;
+            this.current = null;
+            this.finished = System.currentTimeMillis();
+            if ("aborted".equals(state)) {
+                LOGGER.warning("Rolling restart of app " + appId + " aborted: " + message);
+            } else {
+                LOGGER.info("Rolling restart of app " + appId + " " + state + ": " + message);
+            }
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("appId", appId);
+            result.put("reason", reason);
+            result.put("state", state);
+            result.put("jobs", jobIds);
+            result.put("restarted", new ArrayList<>(restarted));
+            result.put("skipped", new ArrayList<>(skipped));
+            result.put("current", current);
+            result.put("message", message);
+            result.put("started", started);
+            result.put("finished", finished);
+            return result;
+        }
+    }
+}
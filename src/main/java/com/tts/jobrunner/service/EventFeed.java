@@ -0,0 +1,119 @@
+package com.tts.jobrunner.service;
+
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Change feed - the latest job status changes (with exit codes), health changes and
+ * config changes, for GET /api/events.
+ *
+ * Every event gets the next sequence number and is kept in a ring of the newest
+ * CAPACITY events. A client asks for the events after the last number it has seen;
+ * if there are none yet it waits for the next one (long poll, see await). Numbers
+ * start at the runner's start time in milliseconds, so they keep increasing across
+ * restarts: a client that fell out of the ring or polled a previous runner is told
+ * to reload its full state.
+ * Compatible with Java 11+
+ */
+public class EventFeed {
+    private static final Logger LOGGER = Logger.getLogger(EventFeed.class.getName());
+    private static final int CAPACITY = 1000;
+    private static EventFeed instance;
+
+    private final List<Map<String, Object>> ring;  // Event seq is at index seq % CAPACITY
+    private final long first;  // Sequence number before the first event of this runner
+    private long version;      // Sequence number of the newest event
+    private final List<Runnable> waiters = new ArrayList<>();
+
+    private EventFeed() {
+        this.ring = new ArrayList<>(Collections.nCopies(CAPACITY, null));
+        this.first = System.currentTimeMillis();
+        this.version = first;
+    }
+
+    public static synchronized EventFeed getInstance() {
+        if (instance == null) {
+            instance = new EventFeed();
+        }
+        return instance;
+    }
+
+    /**
+     * Sequence number of the newest event
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Events after sequence number since (at most max), as sent by GET /api/events:
+     * version (pass as since next time), reset (true if events were missed, the client
+     * should reload everything) and events
+     */
+    public synchronized Map<String, Object> since(long since, int max) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> events = new ArrayList<>();
+        boolean reset = since < Math.max(first, version - CAPACITY) || since > version;
+        long last = reset ? version : Math.min(version, since + Math.max(1, max));
+        if (!reset) {
+            for (long seq = since + 1; seq <= last; seq++) {
+                events.add(ring.get((int) (seq % CAPACITY)));
+            }
+        }
+        result.put("version", last);
+        result.put("reset", reset);
+        result.put("events", events);
+        return result;
+    }
+
+    /**
+     * Run waiter once on the next event, unless there already are events after since
+     * (or since is out of range); returns false then and the caller reads them at once
+     */
+    public synchronized boolean await(long since, Runnable waiter) {
+        if (since != version) {
+            return false;
+        }
+        waiters.add(waiter);
+        return true;
+    }
+
+    /**
+     * Forget a waiter that is no longer interested (timed out or disconnected)
+     */
+    public synchronized void cancel(Runnable waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * Add an event; type is "job", "health" or "config", jobId may be null.
+     * Waiters run on the calling thread, after the event is stored.
+     */
+    public void publish(String type, String jobId, Map<String, Object> data) {
+        List<Runnable> woken;
+        synchronized (this) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("seq", ++version);
+            event.put("time", System.currentTimeMillis());
+            event.put("type", type);
+            if (jobId != null) {
+                event.put("jobId", jobId);
+            }
+            event.putAll(data);
+            ring.set((int) (version % CAPACITY), Collections.unmodifiableMap(event));
+            if (waiters.isEmpty()) {
+                return;
+            }
+            woken = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        for (Runnable waiter : woken) {
+            try {
+                waiter.run();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Event waiter failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.tts.jobrunner.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Short SHA-256 hex digests for file names and change detection (classpath files,
+ * CDS archives, run registry command hashes). Not for anything security related.
+ * Compatible with Java 11+
+ */
+final class Hashes {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Hashes() {
+    }
+
+    /**
+     * Hex of the first bytes of the SHA-256 of value (UTF-8), 2 * bytes characters
+     */
+    static String sha256(String value, int bytes) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);  // Every JRE has SHA-256
+        }
+        char[] hex = new char[bytes * 2];
+        for (int i = 0; i < bytes; i++) {
+            hex[i * 2] = HEX[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,314 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Health monitor - catches jobs whose process is alive but no longer working
+ * (deadlocked, or a consumer loop that stopped).
+ *
+ * Each job can declare a log heartbeat (a line matching health_log_pattern at least
+ * every health_max_age seconds), a TCP port on localhost that must accept
+ * connections, and a file it touches at least every health_max_age seconds. One
+ * scheduler thread probes all running jobs; after health_failures consecutive
+ * failures the job's health_action is taken (restart by default, with a thread
+ * dump first so the cause can be found in the job log). Actions run on their own
+ * threads, at most one per job, so a slow stop never delays the other jobs' checks;
+ * a job is not probed while its action runs.
+ * Compatible with Java 11+
+ */
+class HealthMonitor {
+    private static final Logger LOGGER = Logger.getLogger(HealthMonitor.class.getName());
+    private static final long CHECK_INTERVAL_SECONDS = 5;
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final long DUMP_WAIT_MS = 1000;
+
+    private final JobManager jobManager;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService actionExecutor;
+    private final Map<String, Health> health;
+    private final Set<String> acting;  // Jobs whose health action is queued or running
+
+    HealthMonitor(JobManager jobManager) {
+        this.jobManager = jobManager;
+        this.health = new ConcurrentHashMap<>();
+        this.acting = ConcurrentHashMap.newKeySet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-Health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.actionExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "JobRunner-HealthAction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::checkAll,
+                CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        actionExecutor.shutdownNow();
+    }
+
+    /**
+     * Reset the health of a job whose run just started (or was reattached).
+     * Returns the heartbeat the log reader reports matching lines to, or null.
+     */
+    Heartbeat started(Job job) {
+        Health previous = health.get(job.getId());
+        Health current = new Health(System.currentTimeMillis(), previous != null ? previous.restarts : 0);
+        if (job.getHealthLogPattern() != null && !job.getHealthLogPattern().isEmpty()) {
+            try {
+                current.heartbeat = new Heartbeat(Pattern.compile(job.getHealthLogPattern()), current.since);
+            } catch (PatternSyntaxException e) {
+                jobManager.appendLog(job.getId(), "[health] Invalid health_log_pattern, heartbeat check disabled: "
+                        + e.getDescription());
+            }
+        }
+        health.put(job.getId(), current);
+        return current.heartbeat;
+    }
+
+    private void setStatus(Job job, Health current, String status) {
+        if (!status.equals(current.status)) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("health", status);
+            event.put("previous", current.status);
+            current.status = status;
+            jobManager.stateChanged();
+            EventFeed.getInstance().publish("health", job.getId(), event);
+        }
+    }
+
+    /**
+     * Health of a job for the API, or null if it has no health checks
+     */
+    Map<String, Object> describe(Job job) {
+        if (!job.hasHealthChecks()) {
+            return null;
+        }
+        Health current = health.get(job.getId());
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (current == null) {
+            result.put("status", "unknown");
+            return result;
+        }
+        result.put("status", !jobManager.getState(job.getId()).isRunning() ? "unknown" : current.status);
+        result.put("failures", current.failures);
+        result.put("lastCheck", current.lastCheck);
+        result.put("lastError", current.lastError);
+        if (current.heartbeat != null) {
+            result.put("lastHeartbeat", current.heartbeat.last);
+        }
+        result.put("restarts", current.restarts);
+        return result;
+    }
+
+    // ==================== Checks ====================
+
+    private void checkAll() {
+        // Never let an exception escape, it would cancel the scheduled task
+        try {
+            long now = System.currentTimeMillis();
+            JobsConfig config = ConfigManager.getInstance().getConfig();
+            for (String jobId : jobManager.getRunningJobIds()) {
+                Job job = config.getJob(jobId);
+                Health current = health.get(jobId);
+                if (job != null && job.hasHealthChecks() && current != null && !acting.contains(jobId)) {
+                    checkJob(job, current, now);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Health check failed", e);
+        }
+    }
+
+    private void checkJob(Job job, Health current, long now) {
+        if (jobManager.getState(job.getId()).getSuspendedSince() != null) {
+            // A suspended job cannot answer; the clock starts again when it resumes
+            setStatus(job, current, "suspended");
+            current.since = now;
+            if (current.heartbeat != null) {
+                current.heartbeat.last = now;
+            }
+            return;
+        }
+        if (now - current.since < job.getHealthGrace() * 1000) {
+            setStatus(job, current, "starting");
+            return;
+        }
+
+        String error = probe(job, current, now);
+        current.lastCheck = now;
+        if (error == null) {
+            if (current.failures > 0) {
+                jobManager.appendLog(job.getId(), "[health] Healthy again after " + current.failures
+                        + " failed check(s)");
+            }
+            current.failures = 0;
+            current.lastError = null;
+            setStatus(job, current, "healthy");
+            return;
+        }
+
+        current.failures++;
+        current.lastError = error;
+        setStatus(job, current, "unhealthy");
+        if (current.failures == 1) {
+            jobManager.appendLog(job.getId(), "[health] Check failed: " + error);
+        }
+        if (current.failures >= Math.max(1, job.getHealthFailures())) {
+            submit(job, current, error);
+        }
+    }
+
+    /**
+     * Queue the job's health action, unless one is already queued or running
+     */
+    private void submit(Job job, Health current, String error) {
+        String jobId = job.getId();
+        if (!acting.add(jobId)) {
+            return;
+        }
+        try {
+            actionExecutor.execute(() -> {
+                try {
+                    act(job, current, error);
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Health action for job " + jobId + " failed", e);
+                } finally {
+                    acting.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            acting.remove(jobId);  // Shutting down
+        }
+    }
+
+    /**
+     * Run the job's probes; returns the first failure, or null if all pass
+     */
+    private String probe(Job job, Health current, long now) {
+        long maxAge = job.getHealthMaxAge() * 1000;
+
+        if (current.heartbeat != null && now - current.heartbeat.last > maxAge) {
+            return "no log line matching /" + job.getHealthLogPattern() + "/ for "
+                    + (now - current.heartbeat.last) / 1000 + "s";
+        }
+
+        if (job.getHealthPort() > 0) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", job.getHealthPort()), CONNECT_TIMEOUT_MS);
+            } catch (IOException e) {
+                return "port " + job.getHealthPort() + " not accepting connections (" + e.getMessage() + ")";
+            }
+        }
+
+        if (job.getHealthFile() != null && !job.getHealthFile().isEmpty()) {
+            try {
+                long modified = Files.getLastModifiedTime(Paths.get(job.getHealthFile())).toMillis();
+                // A touch from before this run does not count, but the run gets health_max_age to make one
+                if (now - Math.max(modified, current.since) > maxAge) {
+                    return "health file " + job.getHealthFile() + " not touched for " + (now - modified) / 1000 + "s";
+                }
+            } catch (NoSuchFileException e) {
+                if (now - current.since > maxAge) {
+                    return "health file " + job.getHealthFile() + " does not exist";
+                }
+            } catch (IOException e) {
+                return "cannot read health file " + job.getHealthFile() + " (" + e.getMessage() + ")";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Take the job's health action
+     */
+    private void act(Job job, Health current, String error) {
+        String jobId = job.getId();
+        Job.HealthAction action = job.getHealthAction() != null ? job.getHealthAction() : Job.HealthAction.RESTART;
+        if (action == Job.HealthAction.NONE) {
+            return;
+        }
+
+        LOGGER.warning("Job " + jobId + " is unhealthy (" + error + "), action: " + action.getValue());
+        jobManager.appendLog(jobId, "[health] Unhealthy after " + current.failures + " failed check(s), "
+                + (action == Job.HealthAction.RESTART ? "restarting" : "stopping") + " job");
+
+        // Record what the job was doing before it is stopped
+        if (jobManager.captureThreadDump(jobId)) {
+            try {
+                Thread.sleep(DUMP_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        jobManager.stopJob(jobId);
+        if (action == Job.HealthAction.RESTART) {
+            current.restarts++;
+            JobManager.JobResult result = jobManager.startJob(jobId);
+            if (result.isSuccess()) {
+                Metrics.getInstance().restarted(jobId, Metrics.RESTART_HEALTH);
+            } else {
+                LOGGER.warning("Health restart of job " + jobId + " failed: " + result.getMessage());
+                jobManager.appendLog(jobId, "[health] Restart failed: " + result.getMessage());
+            }
+        }
+    }
+
+    // ==================== State ====================
+
+    /**
+     * Time of the last log line matching a job's heartbeat pattern
+     */
+    static class Heartbeat {
+        private final Pattern pattern;
+        private volatile long last;
+
+        Heartbeat(Pattern pattern, long start) {
+            this.pattern = pattern;
+            this.last = start;
+        }
+
+        void onLine(String line, long time) {
+            if (pattern.matcher(line).find()) {
+                last = time;
+            }
+        }
+    }
+
+    private static class Health {
+        volatile long since;  // Run start (or resume) - grace and file age are measured from here
+        volatile String status = "starting";
+        volatile int failures;
+        volatile Long lastCheck;
+        volatile String lastError;
+        volatile Heartbeat heartbeat;
+        volatile int restarts;
+
+        Health(long since, int restarts) {
+            this.since = since;
+            this.restarts = restarts;
+        }
+    }
+}
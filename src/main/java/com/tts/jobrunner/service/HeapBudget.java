@@ -0,0 +1,239 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.GlobalConfig;
+import com.tts.jobrunner.model.Job;
+import com.tts.jobrunner.model.JobsConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Heap budget - sizes the heap of heap = "auto" jobs from [global] memory_budget.
+ *
+ * On every start the budget minus the memory held by running non-auto jobs is the
+ * auto pool. The job gets its weight's share of the pool, shared with running auto
+ * jobs and enabled continuous auto jobs that are not running yet, capped by what
+ * is still unassigned. The share becomes -XX:MaxRAM and 75% of it -Xmx, leaving
+ * room for metaspace, thread stacks and other native memory. Heap options in the
+ * global and job java_opts are replaced by these; a configured -Xms is kept, but
+ * never above the budgeted -Xmx (the JVM would refuse to start).
+ * Compatible with Java 11+
+ */
+class HeapBudget {
+    private static final Pattern SIZE = Pattern.compile("(\\d+)\\s*([KkMmGgTt]?)[Bb]?");
+    private static final Pattern XMX = Pattern.compile("-Xmx(\\d+[KkMmGgTt]?)");
+    private static final Pattern XMS = Pattern.compile("(?:-Xms|-XX:InitialHeapSize=)(\\d+[KkMmGgTt]?)");
+    private static final Pattern HEAP_OPTION = Pattern.compile(
+            "-Xm[sx].*|-XX:(?:MaxRAM\\w*|MaxHeapSize|InitialHeapSize|\\w+RAMPercentage|\\w+RAMFraction)=.*");
+    private static final long MB = 1024 * 1024;
+    private static final long MIN_MAX_RAM = 128 * MB;
+    private static final double HEAP_FRACTION = 0.75;
+    private static final double NON_HEAP_OVERHEAD = 1.25;
+
+    private final Map<String, Allocation> allocations;
+
+    HeapBudget() {
+        this.allocations = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Heap allocation for an auto job, or null if the job sizes its own heap or no budget is set.
+     * Throws IllegalStateException when the budget is exhausted.
+     */
+    Allocation allocate(Job job, JobsConfig config, JobManager jobManager) {
+        GlobalConfig global = config.getGlobal();
+        if (!job.isAutoHeap() || global.getMemoryBudget() == null || global.getMemoryBudget().isEmpty()) {
+            return null;
+        }
+        long budget = parseSize(global.getMemoryBudget());
+        int weight = Math.max(1, job.getHeapWeight());
+
+        // Memory held by running jobs
+        long fixedUsage = 0;
+        long autoAssigned = 0;
+        int sharingWeight = weight;
+        Set<String> running = jobManager.getRunningJobIds();
+        for (String jobId : running) {
+            if (jobId.equals(job.getId())) {
+                continue;
+            }
+            Allocation allocation = allocations.get(jobId);
+            if (allocation != null) {
+                autoAssigned += allocation.maxRam;
+                sharingWeight += allocation.weight;
+            } else {
+                Job other = config.getJob(jobId);
+                fixedUsage += measure(jobId, other, global, jobManager);
+            }
+        }
+
+        // Continuous auto jobs that will start take part in the split as well
+        for (Job other : config.getJobs()) {
+            if (other.isEnabled() && other.isAutoHeap() && other.getType() == Job.JobType.CONTINUOUS
+                    && !other.getId().equals(job.getId()) && !running.contains(other.getId())) {
+                sharingWeight += Math.max(1, other.getHeapWeight());
+            }
+        }
+
+        long pool = budget - fixedUsage;
+        long share = pool * weight / sharingWeight;
+        long maxRam = Math.min(share, pool - autoAssigned);
+        if (maxRam < MIN_MAX_RAM) {
+            throw new IllegalStateException("Memory budget exhausted: " + (Math.max(0, pool - autoAssigned) / MB)
+                    + " MB of " + (budget / MB) + " MB left, job needs at least " + (MIN_MAX_RAM / MB) + " MB");
+        }
+
+        long xmx = (long) (maxRam * HEAP_FRACTION) / MB * MB;
+        Allocation allocation = new Allocation(maxRam, xmx, weight, budget, fixedUsage + autoAssigned);
+        allocations.put(job.getId(), allocation);
+        return allocation;
+    }
+
+    /**
+     * Restore the allocation of a run adopted from a previous runner (see Allocation#describe).
+     * Returns the restored description, or null if there was none.
+     */
+    Map<String, Object> adopt(String jobId, Map<String, Object> described) {
+        if (described == null) {
+            return null;
+        }
+        try {
+            long maxRam = ((Number) described.get("maxRamMb")).longValue() * MB;
+            long xmx = ((Number) described.get("xmxMb")).longValue() * MB;
+            int weight = ((Number) described.get("weight")).intValue();
+            long budget = ((Number) described.get("budgetMb")).longValue() * MB;
+            long committed = ((Number) described.get("committedMb")).longValue() * MB;
+            Allocation allocation = new Allocation(maxRam, xmx, weight, budget, committed);
+            allocations.put(jobId, allocation);
+            return allocation.describe();
+        } catch (RuntimeException e) {
+            // Incomplete record - the run is then measured like a non-auto job
+            return null;
+        }
+    }
+
+    void release(String jobId) {
+        allocations.remove(jobId);
+    }
+
+    // ==================== Private Methods ====================
+
+    /**
+     * Memory of a running job without an allocation: cgroup usage, then RSS,
+     * then its configured -Xmx plus non-heap overhead
+     */
+    private long measure(String jobId, Job job, GlobalConfig global, JobManager jobManager) {
+        Map<String, Object> usage = jobManager.getResourceUsage(jobId);
+        if (usage != null && usage.get("memoryCurrent") != null) {
+            return (Long) usage.get("memoryCurrent");
+        }
+
+        Process process = jobManager.getProcess(jobId);
+        if (process != null && !(process instanceof WorkerPool.PooledProcess)) {
+            try {
+                for (String line : Files.readAllLines(Paths.get("/proc", String.valueOf(process.pid()), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+            } catch (Exception e) {
+                // Not Linux, or the process just ended
+            }
+        }
+
+        String opts = global.getJavaOpts() + " " + (job != null && job.getJavaOpts() != null ? job.getJavaOpts() : "");
+        long xmx = 0;
+        Matcher matcher = XMX.matcher(opts);
+        while (matcher.find()) {
+            xmx = parseSize(matcher.group(1));  // Last -Xmx wins, as in the JVM
+        }
+        return (long) (xmx * NON_HEAP_OVERHEAD);
+    }
+
+    /**
+     * Parse a size like 512m, 24G or 1048576 (bytes)
+     */
+    static long parseSize(String value) {
+        Matcher matcher = SIZE.matcher(value.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid memory size: " + value);
+        }
+        long size = Long.parseLong(matcher.group(1));
+        switch (matcher.group(2).toUpperCase()) {
+            case "T":
+                return size << 40;
+            case "G":
+                return size << 30;
+            case "M":
+                return size << 20;
+            case "K":
+                return size << 10;
+            default:
+                return size;
+        }
+    }
+
+    // ==================== Allocation ====================
+
+    /**
+     * Heap chosen for one run
+     */
+    static class Allocation {
+        private final long maxRam;
+        private final long xmx;
+        private final int weight;
+        private final long budget;
+        private final long committed;
+
+        Allocation(long maxRam, long xmx, int weight, long budget, long committed) {
+            this.maxRam = maxRam;
+            this.xmx = xmx;
+            this.weight = weight;
+            this.budget = budget;
+            this.committed = committed;
+        }
+
+        /**
+         * The JVM options with their heap options replaced by this allocation: MaxRAM
+         * and -Xmx, plus the last configured -Xms lowered to -Xmx if it is larger
+         */
+        List<String> applyTo(List<String> javaOpts) {
+            List<String> result = new ArrayList<>();
+            Long xms = null;
+            for (String opt : javaOpts) {
+                Matcher matcher = XMS.matcher(opt);
+                if (matcher.matches()) {
+                    xms = parseSize(matcher.group(1));
+                } else if (!HEAP_OPTION.matcher(opt).matches()) {
+                    result.add(opt);
+                }
+            }
+            result.add("-XX:MaxRAM=" + maxRam);
+            result.add("-Xmx" + (xmx / MB) + "m");
+            if (xms != null) {
+                result.add("-Xms" + Math.max(1, Math.min(xms, xmx) / MB) + "m");
+            }
+            return result;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> heap = new LinkedHashMap<>();
+            heap.put("xmxMb", xmx / MB);
+            heap.put("maxRamMb", maxRam / MB);
+            heap.put("weight", weight);
+            heap.put("budgetMb", budget / MB);
+            heap.put("committedMb", committed / MB);
+            return heap;
+        }
+
+        @Override
+        public String toString() {
+            return "Heap: -Xmx" + (xmx / MB) + "m, MaxRAM " + (maxRam / MB) + " MB (weight " + weight + ", "
+                    + (committed / MB) + " of " + (budget / MB) + " MB budget in use by other jobs)";
+        }
+    }
+}
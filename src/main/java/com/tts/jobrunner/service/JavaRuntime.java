@@ -0,0 +1,48 @@
+package com.tts.jobrunner.service;
+
+import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Facts about the JDK used to launch jobs (global java_home).
+ * Compatible with Java 11+
+ */
+final class JavaRuntime {
+    private static final Logger LOGGER = Logger.getLogger(JavaRuntime.class.getName());
+    private static final Map<String, Integer> VERSIONS = new ConcurrentHashMap<>();
+
+    private JavaRuntime() {
+    }
+
+    /**
+     * Feature version of the JDK at javaHome (8, 11, 17, ...), or 0 if unknown
+     */
+    static int featureVersion(String javaHome) {
+        return VERSIONS.computeIfAbsent(javaHome, JavaRuntime::readVersion);
+    }
+
+    /**
+     * Read the feature version from $JAVA_HOME/release (e.g. JAVA_VERSION="17.0.9")
+     */
+    private static int readVersion(String javaHome) {
+        File release = new File(javaHome, "release");
+        try (BufferedReader reader = new BufferedReader(new FileReader(release))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("JAVA_VERSION=")) {
+                    String version = line.substring("JAVA_VERSION=".length()).replace("\"", "");
+                    String[] parts = version.split("[._-]");
+                    int major = Integer.parseInt(parts[0]);
+                    // Pre-9 versions are reported as 1.x
+                    return major == 1 && parts.length > 1 ? Integer.parseInt(parts[1]) : major;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not read Java version from " + release, e);
+        }
+        return 0;
+    }
+}
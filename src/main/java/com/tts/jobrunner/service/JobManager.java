@@ -1,451 +1,1234 @@
-package com.tts.jobrunner.service;
-
-import com.tts.jobrunner.model.*;
-
-import java.io.*;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.util.*;
-import java.util.concurrent.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-/**
- * Job execution manager - runs and stops background jobs.
- * Compatible with Java 8+
- */
-public class JobManager {
-    private static final Logger LOGGER = Logger.getLogger(JobManager.class.getName());
-    private static JobManager instance;
-
-    private final Map<String, Process> runningProcesses;
-    private final Map<String, StringBuilder> jobLogs;
-    private final Map<String, Thread> logReaderThreads;
-    private final ExecutorService executorService;
-    private final int maxLogLines = 1000;
-
-    private JobManager() {
-        this.runningProcesses = new ConcurrentHashMap<>();
-        this.jobLogs = new ConcurrentHashMap<>();
-        this.logReaderThreads = new ConcurrentHashMap<>();
-        this.executorService = Executors.newCachedThreadPool();
-
-        // Register shutdown hook to kill all processes when JVM exits
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            LOGGER.info("JVM shutdown detected, stopping all jobs...");
-            for (String jobId : new ArrayList<>(runningProcesses.keySet())) {
-                try {
-                    Process process = runningProcesses.get(jobId);
-                    if (process != null && process.isAlive()) {
-                        LOGGER.info("Killing job process: " + jobId);
-                        process.destroyForcibly();
-                    }
-                } catch (Exception e) {
-                    LOGGER.warning("Error killing job " + jobId + ": " + e.getMessage());
-                }
-            }
-        }, "JobRunner-ShutdownHook"));
-    }
-
-    public static synchronized JobManager getInstance() {
-        if (instance == null) {
-            instance = new JobManager();
-        }
-        return instance;
-    }
-
-    /**
-     * Start a job (without runtime arguments)
-     */
-    public synchronized JobResult startJob(String jobId) {
-        return startJob(jobId, null);
-    }
-
-    /**
-     * Start a job with optional runtime arguments
-     * @param jobId The job ID to start
-     * @param runtimeArgs Optional runtime arguments (passed after configured params)
-     */
-    public synchronized JobResult startJob(String jobId, List<String> runtimeArgs) {
-        ConfigManager configManager = ConfigManager.getInstance();
-        JobsConfig config = configManager.getConfig();
-        Job job = config.getJob(jobId);
-
-        if (job == null) {
-            return new JobResult(false, "Job not found: " + jobId);
-        }
-
-        if (!job.isEnabled()) {
-            return new JobResult(false, "Job is disabled: " + jobId);
-        }
-
-        if (runningProcesses.containsKey(jobId)) {
-            return new JobResult(false, "Job is already running: " + jobId);
-        }
-
-        try {
-            // Build command with optional runtime args
-            List<String> command = buildCommand(job, config, runtimeArgs);
-            LOGGER.info("Starting job: " + jobId + " with command: " + String.join(" ", command));
-
-            // Create process builder
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.redirectErrorStream(true);
-
-            // Set working directory to logs dir
-            File logsDir = new File(config.getGlobal().getLogsDir());
-            if (!logsDir.exists()) {
-                logsDir.mkdirs();
-            }
-            pb.directory(logsDir);
-
-            // Set environment
-            Map<String, String> env = pb.environment();
-            env.put("JAVA_HOME", config.getGlobal().getJavaHome());
-
-            // Start process
-            Process process = pb.start();
-            runningProcesses.put(jobId, process);
-
-            // Initialize log buffer
-            jobLogs.put(jobId, new StringBuilder());
-
-            // Start log reader thread
-            startLogReader(jobId, process);
-
-            // Update job status
-            job.setStatus(Job.JobStatus.RUNNING);
-            job.setPid(getPid(process));
-            job.setStartTime(System.currentTimeMillis());
-
-            LOGGER.info("Job started: " + jobId + " (PID: " + job.getPid() + ")");
-            return new JobResult(true, "Job started successfully", job.getPid());
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error starting job: " + jobId, e);
-            job.setStatus(Job.JobStatus.ERROR);
-            return new JobResult(false, "Error starting job: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Stop a job
-     */
-    public synchronized JobResult stopJob(String jobId) {
-        ConfigManager configManager = ConfigManager.getInstance();
-        Job job = configManager.getConfig().getJob(jobId);
-
-        if (job == null) {
-            return new JobResult(false, "Job not found: " + jobId);
-        }
-
-        Process process = runningProcesses.get(jobId);
-        if (process == null) {
-            job.setStatus(Job.JobStatus.STOPPED);
-            return new JobResult(false, "Job is not running: " + jobId);
-        }
-
-        try {
-            // Try graceful shutdown first
-            process.destroy();
-
-            // Wait a bit for graceful shutdown
-            boolean terminated = process.waitFor(5, TimeUnit.SECONDS);
-
-            if (!terminated) {
-                // Force kill
-                process.destroyForcibly();
-                process.waitFor(2, TimeUnit.SECONDS);
-            }
-
-            // Cleanup
-            runningProcesses.remove(jobId);
-            Thread logThread = logReaderThreads.remove(jobId);
-            if (logThread != null) {
-                logThread.interrupt();
-            }
-
-            // Update job status
-            job.setStatus(Job.JobStatus.STOPPED);
-            job.setPid(null);
-            job.setStartTime(null);
-
-            LOGGER.info("Job stopped: " + jobId);
-            return new JobResult(true, "Job stopped successfully");
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error stopping job: " + jobId, e);
-            return new JobResult(false, "Error stopping job: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Get job status
-     */
-    public Job.JobStatus getJobStatus(String jobId) {
-        Process process = runningProcesses.get(jobId);
-        if (process == null) {
-            return Job.JobStatus.STOPPED;
-        }
-
-        if (process.isAlive()) {
-            return Job.JobStatus.RUNNING;
-        } else {
-            // Process ended, cleanup
-            runningProcesses.remove(jobId);
-            ConfigManager configManager = ConfigManager.getInstance();
-            Job job = configManager.getConfig().getJob(jobId);
-            if (job != null) {
-                int exitCode = process.exitValue();
-                job.setStatus(exitCode == 0 ? Job.JobStatus.STOPPED : Job.JobStatus.ERROR);
-                job.setPid(null);
-            }
-            return Job.JobStatus.STOPPED;
-        }
-    }
-
-    /**
-     * Get job logs
-     */
-    public String getJobLogs(String jobId, int lastNLines) {
-        StringBuilder logs = jobLogs.get(jobId);
-        if (logs == null) {
-            // Try to read from log file
-            return readLogFile(jobId, lastNLines);
-        }
-
-        String logContent = logs.toString();
-        if (lastNLines > 0) {
-            String[] lines = logContent.split("\n");
-            int start = Math.max(0, lines.length - lastNLines);
-            StringBuilder result = new StringBuilder();
-            for (int i = start; i < lines.length; i++) {
-                result.append(lines[i]).append("\n");
-            }
-            return result.toString();
-        }
-
-        return logContent;
-    }
-
-    /**
-     * Clear job logs
-     */
-    public void clearJobLogs(String jobId) {
-        StringBuilder logs = jobLogs.get(jobId);
-        if (logs != null) {
-            logs.setLength(0);
-        }
-    }
-
-    /**
-     * Check all running jobs and update status
-     */
-    public void refreshAllJobStatus() {
-        ConfigManager configManager = ConfigManager.getInstance();
-        for (Job job : configManager.getConfig().getJobs()) {
-            Job.JobStatus status = getJobStatus(job.getId());
-            job.setStatus(status);
-        }
-    }
-
-    /**
-     * Stop all running jobs
-     */
-    public void stopAllJobs() {
-        for (String jobId : new ArrayList<>(runningProcesses.keySet())) {
-            stopJob(jobId);
-        }
-    }
-
-    /**
-     * Shutdown the job manager
-     */
-    public void shutdown() {
-        stopAllJobs();
-        executorService.shutdown();
-        try {
-            executorService.awaitTermination(10, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            executorService.shutdownNow();
-        }
-    }
-
-    // ==================== Private Methods ====================
-
-    private List<String> buildCommand(Job job, JobsConfig config, List<String> runtimeArgs) {
-        List<String> command = new ArrayList<>();
-
-        // Java executable
-        command.add(config.getGlobal().getJavaCmd());
-
-        // Global JVM options
-        String javaOpts = config.getGlobal().getJavaOpts();
-        if (javaOpts != null && !javaOpts.isEmpty()) {
-            for (String opt : javaOpts.split("\\s+")) {
-                if (!opt.isEmpty()) {
-                    command.add(opt);
-                }
-            }
-        }
-
-        // Per-job JVM options (appended after global)
-        String jobJavaOpts = job.getJavaOpts();
-        if (jobJavaOpts != null && !jobJavaOpts.isEmpty()) {
-            for (String opt : jobJavaOpts.split("\\s+")) {
-                if (!opt.isEmpty()) {
-                    command.add(opt);
-                }
-            }
-        }
-
-        // Classpath
-        String classpath = config.buildClasspathForJob(job);
-        command.add("-classpath");
-        command.add(classpath);
-
-        // Main class
-        command.add(job.getMainClass());
-
-        // Configured parameters (from jobs.toml)
-        if (job.getParams() != null) {
-            command.addAll(job.getParams());
-        }
-
-        // Runtime arguments (from UI input, added after configured params)
-        if (runtimeArgs != null && !runtimeArgs.isEmpty()) {
-            command.addAll(runtimeArgs);
-        }
-
-        return command;
-    }
-
-    private void startLogReader(String jobId, Process process) {
-        Thread thread = new Thread(() -> {
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line;
-                StringBuilder logs = jobLogs.get(jobId);
-                File logFile = getLogFile(jobId);
-
-                try (PrintWriter fileWriter = new PrintWriter(new FileWriter(logFile, true))) {
-                    while ((line = reader.readLine()) != null) {
-                        String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
-                                .format(new java.util.Date());
-                        String logLine = timestamp + " " + line + "\n";
-
-                        // Write to file
-                        fileWriter.print(logLine);
-                        fileWriter.flush();
-
-                        // Keep in memory (with limit)
-                        if (logs != null) {
-                            synchronized (logs) {
-                                logs.append(logLine);
-                                // Trim if too large
-                                if (logs.length() > 500000) {
-                                    logs.delete(0, 100000);
-                                }
-                            }
-                        }
-                    }
-                }
-            } catch (IOException e) {
-                if (!Thread.currentThread().isInterrupted()) {
-                    LOGGER.log(Level.WARNING, "Error reading job output: " + jobId, e);
-                }
-            }
-        }, "JobLogReader-" + jobId);
-
-        thread.setDaemon(true);
-        thread.start();
-        logReaderThreads.put(jobId, thread);
-    }
-
-    private File getLogFile(String jobId) {
-        ConfigManager configManager = ConfigManager.getInstance();
-        String logsDir = configManager.getConfig().getGlobal().getLogsDir();
-        return new File(logsDir, jobId + ".log");
-    }
-
-    private String readLogFile(String jobId, int lastNLines) {
-        File logFile = getLogFile(jobId);
-        if (!logFile.exists()) {
-            return "";
-        }
-
-        try {
-            List<String> lines = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-
-            int start = Math.max(0, lines.size() - lastNLines);
-            StringBuilder result = new StringBuilder();
-            for (int i = start; i < lines.size(); i++) {
-                result.append(lines.get(i)).append("\n");
-            }
-            return result.toString();
-
-        } catch (IOException e) {
-            LOGGER.log(Level.WARNING, "Error reading log file: " + logFile, e);
-            return "";
-        }
-    }
-
-    /**
-     * Get PID of process (Java 8 compatible)
-     */
-    private Long getPid(Process process) {
-        try {
-            // Try Java 9+ method first
-            Method pidMethod = process.getClass().getMethod("pid");
-            return (Long) pidMethod.invoke(process);
-        } catch (Exception e) {
-            // Fall back to reflection for Java 8
-            try {
-                if (process.getClass().getName().equals("java.lang.UNIXProcess")) {
-                    Field pidField = process.getClass().getDeclaredField("pid");
-                    pidField.setAccessible(true);
-                    return ((Integer) pidField.get(process)).longValue();
-                }
-            } catch (Exception ex) {
-                // Ignore
-            }
-        }
-        return null;
-    }
-
-    // ==================== Result Class ====================
-
-    public static class JobResult {
-        private final boolean success;
-        private final String message;
-        private final Long pid;
-
-        public JobResult(boolean success, String message) {
-            this(success, message, null);
-        }
-
-        public JobResult(boolean success, String message, Long pid) {
-            this.success = success;
-            this.message = message;
-            this.pid = pid;
-        }
-
-        public boolean isSuccess() {
-            return success;
-        }
-
-        public String getMessage() {
-            return message;
-        }
-
-        public Long getPid() {
-            return pid;
-        }
-    }
-}
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Job execution manager - runs and stops background jobs.
+ * Compatible with Java 11+
+ */
+public class JobManager {
+    private static final Logger LOGGER = Logger.getLogger(JobManager.class.getName());
+    private static JobManager instance;
+
+    private final Map<String, Process> runningProcesses;
+    private final Map<String, StringBuilder> jobLogs;
+    private final Map<String, Thread> logReaderThreads;
+    private final Map<String, AtomicLong> lastOutputTimes;
+    private final Map<String, Queue<String>> runnerLines;  // Runner notes in a followed log, skipped by its follower
+    private final Map<String, JobState> states;
+    private final Set<String> stopping;  // Jobs whose stopJob is waiting for the process to exit
+    private final AtomicLong stateVersion;  // Bumped on every change of a job's runtime state
+    private final Map<String, Job.JobStatus> publishedStatus;  // Last status sent to the event feed, per job
+    private final EventFeed events;
+    private final Metrics metrics;
+    private final ExecutorService executorService;
+    private final JobWatchdog watchdog;
+    private final WorkerPool workerPool;
+    private final ClasspathResolver classpathResolver;
+    private final ProcessPriority processPriority;
+    private final CgroupManager cgroups;
+    private final HeapBudget heapBudget;
+    private final CdsArchiveManager cdsArchives;
+    private final RunRegistry runRegistry;
+    private final LogWatcher logWatcher;
+    private final JobSuspender suspender;
+    private final HealthMonitor healthMonitor;
+    private final DeployWatcher deployWatcher;
+    private final ConfigWatcher configWatcher;
+    private final int maxLogLines = 1000;
+
+    private JobManager() {
+        this.runningProcesses = new ConcurrentHashMap<>();
+        this.jobLogs = new ConcurrentHashMap<>();
+        this.logReaderThreads = new ConcurrentHashMap<>();
+        this.lastOutputTimes = new ConcurrentHashMap<>();
+        this.runnerLines = new ConcurrentHashMap<>();
+        this.states = new ConcurrentHashMap<>();
+        this.stopping = ConcurrentHashMap.newKeySet();
+        this.stateVersion = new AtomicLong();
+        this.publishedStatus = new ConcurrentHashMap<>();
+        this.events = EventFeed.getInstance();
+        this.metrics = Metrics.getInstance();
+        this.executorService = Executors.newCachedThreadPool();
+        this.watchdog = new JobWatchdog(this);
+        this.watchdog.start();
+        this.classpathResolver = new ClasspathResolver();
+        this.processPriority = new ProcessPriority();
+        this.cgroups = new CgroupManager();
+        this.heapBudget = new HeapBudget();
+        this.workerPool = new WorkerPool(classpathResolver, processPriority);
+        this.cdsArchives = new CdsArchiveManager(classpathResolver);
+        this.runRegistry = new RunRegistry();
+        this.logWatcher = new LogWatcher();
+        this.suspender = new JobSuspender(this, cgroups);
+        this.suspender.start();
+        this.healthMonitor = new HealthMonitor(this);
+        this.healthMonitor.start();
+        this.deployWatcher = new DeployWatcher(this, classpathResolver, workerPool);
+        this.deployWatcher.start();
+        this.configWatcher = new ConfigWatcher(this);
+        this.configWatcher.start();
+
+        // Register shutdown hook to kill processes when JVM exits (pooled runs only with kill_on_shutdown = false)
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            boolean killAll = ConfigManager.getInstance().getConfig().getGlobal().isKillOnShutdown();
+            LOGGER.info(killAll ? "JVM shutdown detected, stopping all jobs..."
+                    : "JVM shutdown detected, leaving process jobs running");
+            for (String jobId : new ArrayList<>(runningProcesses.keySet())) {
+                try {
+                    Process process = runningProcesses.get(jobId);
+                    if (process != null && process.isAlive()
+                            && (killAll || process instanceof WorkerPool.PooledProcess)) {
+                        LOGGER.info("Killing job process: " + jobId);
+                        process.destroyForcibly();
+                    }
+                } catch (Exception e) {
+                    LOGGER.warning("Error killing job " + jobId + ": " + e.getMessage());
+                }
+            }
+            workerPool.shutdown();
+        }, "JobRunner-ShutdownHook"));
+    }
+
+    public static synchronized JobManager getInstance() {
+        if (instance == null) {
+            instance = new JobManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Start a job (without runtime arguments)
+     */
+    public synchronized JobResult startJob(String jobId) {
+        return startJob(jobId, null);
+    }
+
+    /**
+     * Start a job with optional runtime arguments
+     * @param jobId The job ID to start
+     * @param runtimeArgs Optional runtime arguments (passed after configured params)
+     */
+    public synchronized JobResult startJob(String jobId, List<String> runtimeArgs) {
+        ConfigManager configManager = ConfigManager.getInstance();
+        JobsConfig config = configManager.getConfig();
+        Job job = config.getJob(jobId);
+
+        if (job == null) {
+            return new JobResult(false, "Job not found: " + jobId);
+        }
+
+        if (!job.isEnabled()) {
+            return new JobResult(false, "Job is disabled: " + jobId);
+        }
+        JobState state = getState(jobId);
+
+        if (stopping.contains(jobId)) {
+            return new JobResult(false, "Job is being stopped: " + jobId);
+        }
+        if (runningProcesses.containsKey(jobId) && getJobStatus(jobId) != Job.JobStatus.STOPPED) {
+            return new JobResult(false, "Job is already running: " + jobId);
+        }
+
+        try {
+            // Set working directory to logs dir
+            File logsDir = new File(config.getGlobal().getLogsDir());
+            if (!logsDir.exists()) {
+                logsDir.mkdirs();
+            }
+
+            // Priority class and CPU pinning (pooled workers apply their own)
+            ProcessPriority.Settings priority = processPriority.resolve(job);
+
+            List<String> launchNotes = new ArrayList<>();
+            RunRegistry.Entry run = null;
+            File output = null;
+            long outputStart = 0;
+            Process process;
+            if (job.isPooled()) {
+                // Run inside a pre-started worker JVM
+                LOGGER.info("Starting job: " + jobId + " in pooled worker");
+                if (job.hasResourceLimits() || job.isAutoHeap()) {
+                    launchNotes.add("cgroup limits and heap = auto are not applied to pooled runs");
+                }
+                state.setHeapAllocation(null);
+                process = workerPool.run(job, config, runtimeArgs);
+            } else {
+                // Heap sized from the memory budget (heap = "auto"), recomputed on every start
+                HeapBudget.Allocation heap = heapBudget.allocate(job, config, this);
+                if (heap != null) {
+                    launchNotes.add(heap.toString());
+                }
+                state.setHeapAllocation(heap != null ? heap.describe() : null);
+
+                // Own cgroup with the job's resource limits (falls back to no limits)
+                Path cgroup = null;
+                try {
+                    cgroup = cgroups.place(job, config.getGlobal());
+                    if (cgroup == null && job.hasResourceLimits()) {
+                        launchNotes.add("cgroup limits not applied: " + cgroups.getUnavailableReason());
+                    }
+                } catch (IOException e) {
+                    LOGGER.warning("Job " + jobId + " runs without cgroup limits: " + e.getMessage());
+                    launchNotes.add("cgroup limits not applied: " + e.getMessage());
+                }
+
+                // Build command with optional runtime args
+                CdsArchiveManager.Launch cds = cdsArchives.prepare(job, config);
+                String classpath = cds != null ? cds.getClasspath() : classpathResolver.buildClasspath(job, config);
+                String cdsOption = cds != null ? cds.getOption() : null;
+                List<String> javaCommand = buildCommand(job, config, classpath, cdsOption, heap, runtimeArgs);
+                List<String> command = cgroups.wrap(cgroup, processPriority.wrap(priority, javaCommand));
+                LOGGER.info("Starting job: " + jobId + " with command: " + String.join(" ", command));
+
+                // Create process builder (output is appended to the job log, so the job can outlive the runner)
+                output = getLogFile(jobId);
+                outputStart = output.length();
+                ProcessBuilder pb = new ProcessBuilder(command);
+                pb.redirectErrorStream(true);
+                pb.redirectOutput(ProcessBuilder.Redirect.appendTo(output));
+                pb.directory(logsDir);
+
+                // Set environment
+                Map<String, String> env = pb.environment();
+                env.put("JAVA_HOME", config.getGlobal().getJavaHome());
+
+                // Start process
+                process = pb.start();
+                processPriority.applyAfterStart(priority, process);
+                cdsArchives.launched(cds, process);
+
+                run = new RunRegistry.Entry();
+                run.jobId = jobId;
+                run.pid = process.pid();
+                run.processStart = RunRegistry.processStart(process.toHandle());
+                run.commandHash = RunRegistry.commandHash(javaCommand);
+                run.cgroup = cgroup != null ? cgroup.toString() : null;
+            }
+            runningProcesses.put(jobId, process);
+
+            // Initialize log buffer and last-output timestamp (read by the watchdog)
+            jobLogs.put(jobId, new StringBuilder());
+            lastOutputTimes.put(jobId, new AtomicLong(System.currentTimeMillis()));
+            if (output != null) {
+                runnerLines.put(jobId, new ConcurrentLinkedQueue<>());
+            }
+            for (String note : launchNotes) {
+                appendLog(jobId, note);
+            }
+            HealthMonitor.Heartbeat heartbeat = healthMonitor.started(job);
+
+            // Start log reader thread
+            if (output != null) {
+                startLogFollower(jobId, process, output, outputStart, heartbeat);
+            } else {
+                startLogReader(jobId, process, heartbeat);
+            }
+
+            // Update job status
+            state.setExitCode(null);
+            state.setStatus(Job.JobStatus.RUNNING);
+            state.setPid(process.pid());
+            state.setStartTime(System.currentTimeMillis());
+            state.setEffectivePriority(processPriority.describe(priority));
+            state.setSuspendedSince(null);
+            state.setSuspendedMillis(0);
+            state.setSuspendReason(null);
+
+            // Remember the run so a restarted runner can reattach to it
+            if (run != null) {
+                run.startTime = state.getStartTime();
+                run.heapAllocation = state.getHeapAllocation();
+                run.effectivePriority = state.getEffectivePriority();
+                runRegistry.register(config.getGlobal().getLogsDir(), run);
+            }
+
+            metrics.started(jobId);
+            LOGGER.info("Job started: " + jobId + " (PID: " + state.getPid() + ")");
+            return new JobResult(true, "Job started successfully", state.getPid());
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting job: " + jobId, e);
+            heapBudget.release(jobId);
+            cgroups.release(jobId);
+            state.setStatus(Job.JobStatus.ERROR);
+            return new JobResult(false, "Error starting job: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop a job. The wait for the process to exit happens outside the JobManager lock,
+     * so stops of different jobs overlap; the job cannot be started again meanwhile.
+     */
+    public JobResult stopJob(String jobId) {
+        JobState state;
+        Process process;
+        synchronized (this) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            Job job = configManager.getConfig().getJob(jobId);
+
+            // A job removed from the config can still be stopped while it runs
+            if (job == null && !runningProcesses.containsKey(jobId)) {
+                return new JobResult(false, "Job not found: " + jobId);
+            }
+
+            state = getState(jobId);
+            process = runningProcesses.get(jobId);
+            if (process == null) {
+                state.setStatus(Job.JobStatus.STOPPED);
+                return new JobResult(false, "Job is not running: " + jobId);
+            }
+            if (!stopping.add(jobId)) {
+                return new JobResult(false, "Job is already being stopped: " + jobId);
+            }
+        }
+
+        try {
+            synchronized (this) {
+                // A suspended process only acts on SIGTERM once it runs again
+                if (state.getSuspendedSince() != null) {
+                    try {
+                        resumeProcess(jobId, state, process);
+                    } catch (IOException e) {
+                        LOGGER.warning("Could not resume job " + jobId + " before stopping it: " + e.getMessage());
+                    }
+                }
+
+                // Try graceful shutdown first
+                process.destroy();
+            }
+
+            // Wait a bit for graceful shutdown
+            boolean terminated = process.waitFor(5, TimeUnit.SECONDS);
+
+            if (!terminated) {
+                // Force kill
+                process.destroyForcibly();
+                process.waitFor(2, TimeUnit.SECONDS);
+            }
+
+            synchronized (this) {
+                // Cleanup
+                runningProcesses.remove(jobId);
+                lastOutputTimes.remove(jobId);
+                Thread logThread = logReaderThreads.remove(jobId);
+                if (logThread != null) {
+                    logThread.interrupt();
+                }
+                releaseRun(jobId);
+                endSuspension(jobId, state);
+
+                // Update job status
+                state.setExitCode(process.isAlive() ? null : exitCode(process));
+                state.setStatus(Job.JobStatus.STOPPED);
+                state.setPid(null);
+                state.setStartTime(null);
+            }
+
+            metrics.stopped(jobId);
+            LOGGER.info("Job stopped: " + jobId);
+            return new JobResult(true, "Job stopped successfully");
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error stopping job: " + jobId, e);
+            return new JobResult(false, "Error stopping job: " + e.getMessage());
+        } finally {
+            stopping.remove(jobId);
+        }
+    }
+
+    /**
+     * Get job status
+     */
+    public Job.JobStatus getJobStatus(String jobId) {
+        Process process = runningProcesses.get(jobId);
+        if (process == null) {
+            return Job.JobStatus.STOPPED;
+        }
+
+        if (process.isAlive()) {
+            return getState(jobId).getSuspendedSince() != null ? Job.JobStatus.SUSPENDED : Job.JobStatus.RUNNING;
+        } else {
+            if (stopping.contains(jobId)) {
+                return getState(jobId).getStatus();  // stopJob cleans up once it has seen the exit
+            }
+            // Process ended, cleanup (once, even if the watchdog and a request race here)
+            if (!runningProcesses.remove(jobId, process)) {
+                return getJobStatus(jobId);
+            }
+            lastOutputTimes.remove(jobId);
+            releaseRun(jobId);
+            JobState state = getState(jobId);
+            endSuspension(jobId, state);
+            Integer exitCode = exitCode(process);
+            if (exitCode == null) {
+                // Adopted after a runner restart: whether it failed cannot be told
+                appendLog(jobId, "Process (PID " + process.pid() + ") exited (exit code unavailable)");
+            }
+            state.setExitCode(exitCode);
+            state.setStatus(exitCode == null || exitCode == 0 ? Job.JobStatus.STOPPED : Job.JobStatus.ERROR);
+            state.setPid(null);
+            return Job.JobStatus.STOPPED;
+        }
+    }
+
+    /**
+     * cgroup usage of a running job (memory, cpu, pids), or null if it has no cgroup
+     */
+    public Map<String, Object> getResourceUsage(String jobId) {
+        return cgroups.usage(jobId);
+    }
+
+    /**
+     * Suspend a running job (by hand) without losing its progress
+     */
+    public JobResult suspendJob(String jobId) {
+        return suspendJob(jobId, JobSuspender.REASON_MANUAL, null);
+    }
+
+    /**
+     * Resume a suspended job (by hand)
+     */
+    public JobResult resumeJob(String jobId) {
+        return resumeJob(jobId, false);
+    }
+
+    /**
+     * Runtime state of a job (status, PID, start time, suspension); created on first use
+     */
+    public JobState getState(String jobId) {
+        return states.computeIfAbsent(jobId, id -> new JobState(() -> stateChanged(id)));
+    }
+
+    /**
+     * Version of the runtime state of all jobs (status, PID, suspension, health, rollouts);
+     * unchanged version means unchanged state, apart from live metrics
+     */
+    public long getStateVersion() {
+        return stateVersion.get();
+    }
+
+    /**
+     * True if any job has a process attached
+     */
+    public boolean hasRunningJobs() {
+        return !runningProcesses.isEmpty();
+    }
+
+    /**
+     * Health of a job's checks (status, failures, last error, restarts), or null if it has none
+     */
+    public Map<String, Object> getHealth(Job job) {
+        return healthMonitor.describe(job);
+    }
+
+    /**
+     * Queue a rolling restart of an app's running continuous jobs (see DeployWatcher).
+     * Returns the rollout, or null if the app does not exist.
+     */
+    public Map<String, Object> restartAppJobs(String appId) {
+        if (ConfigManager.getInstance().getConfig().getApp(appId) == null) {
+            return null;
+        }
+        return deployWatcher.restartJobs(appId, "manual request").describe();
+    }
+
+    /**
+     * Latest rolling restart of every app
+     */
+    public List<Map<String, Object>> getRollouts() {
+        return deployWatcher.describeRollouts();
+    }
+
+    /**
+     * 1-minute load average per CPU as seen by the load policy, or -1 if unavailable
+     */
+    public double getLoadPerCpu() {
+        return suspender.getLoadPerCpu();
+    }
+
+    /**
+     * Get job logs
+     */
+    public String getJobLogs(String jobId, int lastNLines) {
+        StringBuilder logs = jobLogs.get(jobId);
+        if (logs == null) {
+            // Try to read from log file
+            return readLogFile(jobId, lastNLines);
+        }
+
+        String logContent = logs.toString();
+        if (lastNLines > 0) {
+            String[] lines = logContent.split("\n");
+            int start = Math.max(0, lines.length - lastNLines);
+            StringBuilder result = new StringBuilder();
+            for (int i = start; i < lines.length; i++) {
+                result.append(lines[i]).append("\n");
+            }
+            return result.toString();
+        }
+
+        return logContent;
+    }
+
+    /**
+     * Clear job logs
+     */
+    public void clearJobLogs(String jobId) {
+        StringBuilder logs = jobLogs.get(jobId);
+        if (logs != null) {
+            logs.setLength(0);
+        }
+    }
+
+    /**
+     * Check all running jobs and update status
+     */
+    public void refreshAllJobStatus() {
+        ConfigManager configManager = ConfigManager.getInstance();
+        for (Job job : configManager.getConfig().getJobs()) {
+            Job.JobStatus status = getJobStatus(job.getId());
+            getState(job.getId()).setStatus(status);
+        }
+    }
+
+    /**
+     * Pre-start worker JVMs for pooled jobs
+     */
+    public void warmUpPools() {
+        workerPool.warmUp(ConfigManager.getInstance().getConfig());
+    }
+
+    /**
+     * Re-adopt process-mode runs left running by a previous runner (see RunRegistry).
+     * Each PID is verified by its start time and JVM arguments before it is adopted.
+     */
+    public synchronized int reattachJobs() {
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        String logsDir = config.getGlobal().getLogsDir();
+        int adopted = 0;
+
+        for (RunRegistry.Entry entry : runRegistry.load(logsDir)) {
+            Job job = config.getJob(entry.jobId);
+            ProcessHandle handle = RunRegistry.verify(entry);
+            if (handle == null || job == null || runningProcesses.containsKey(entry.jobId)) {
+                runRegistry.remove(entry.jobId);
+                if (handle != null) {
+                    LOGGER.warning("Not reattaching PID " + entry.pid + ": job " + entry.jobId
+                            + " is no longer configured or already running");
+                } else if (job != null) {
+                    // Its output is already in the job log
+                    appendLog(entry.jobId, "Process (PID " + entry.pid
+                            + ") ended while the runner was down (exit code unavailable)");
+                }
+                continue;
+            }
+
+            // Output written while no runner was watching is already in the log (and read back
+            // below); following starts at the current end
+            File output = getLogFile(entry.jobId);
+            long outputStart = output.length();
+            Process process = new RunRegistry.AdoptedProcess(handle);
+            runningProcesses.put(entry.jobId, process);
+            jobLogs.put(entry.jobId, new StringBuilder(readLogFile(entry.jobId, maxLogLines)));
+            lastOutputTimes.put(entry.jobId, new AtomicLong(System.currentTimeMillis()));
+            runnerLines.put(entry.jobId, new ConcurrentLinkedQueue<>());
+            if (entry.cgroup != null) {
+                cgroups.adopt(entry.jobId, Paths.get(entry.cgroup));
+            }
+
+            JobState state = getState(entry.jobId);
+            state.setExitCode(null);
+            state.setStatus(Job.JobStatus.RUNNING);
+            state.setPid(handle.pid());
+            state.setStartTime(entry.startTime);
+            state.setHeapAllocation(heapBudget.adopt(entry.jobId, entry.heapAllocation));
+            state.setEffectivePriority(entry.effectivePriority);
+
+            appendLog(entry.jobId, "Reattached to running process (PID " + handle.pid() + ") after runner restart");
+            startLogFollower(entry.jobId, process, output, outputStart, healthMonitor.started(job));
+            LOGGER.info("Reattached job " + entry.jobId + " (PID: " + handle.pid() + ")");
+            adopted++;
+        }
+        return adopted;
+    }
+
+    /**
+     * Re-read the config file and apply only what changed (see ConfigManager#reloadConfig).
+     * Running jobs removed from the config are stopped. Running jobs whose launch settings
+     * changed are restarted with [global] restart_on_config_change, otherwise they keep
+     * running on the old settings until their next start. Returns the applied diff.
+     * Throws if the file cannot be read or parsed; nothing is changed then.
+     *
+     * Only the diff is computed under the JobManager lock. The stops and restarts wait
+     * for processes to exit, so they run afterwards, one task per job side by side;
+     * other jobs can be started, stopped and polled meanwhile.
+     */
+    public Map<String, Object> reloadConfig() throws IOException {
+        ConfigDiff diff;
+        List<String> toStop = new ArrayList<>();
+        List<String> toRestart = new ArrayList<>();
+        synchronized (this) {
+            diff = ConfigManager.getInstance().reloadConfig();
+            boolean restart = ConfigManager.getInstance().getConfig().getGlobal().isRestartOnConfigChange();
+
+            for (String jobId : diff.removed) {
+                if (runningProcesses.containsKey(jobId)) {
+                    appendLog(jobId, "[config] Job removed from the config, stopping");
+                    toStop.add(jobId);
+                }
+            }
+            for (String jobId : diff.relaunch) {
+                if (!runningProcesses.containsKey(jobId)) {
+                    continue;
+                }
+                if (restart) {
+                    appendLog(jobId, "[config] Launch settings changed, restarting");
+                    toRestart.add(jobId);
+                } else {
+                    appendLog(jobId, "[config] Launch settings changed, they apply from the next start");
+                }
+            }
+        }
+
+        List<Future<?>> tasks = new ArrayList<>();
+        for (String jobId : toStop) {
+            tasks.add(executorService.submit(() -> {
+                if (stopJob(jobId).isSuccess()) {
+                    diff.stopped.add(jobId);
+                }
+            }));
+        }
+        for (String jobId : toRestart) {
+            tasks.add(executorService.submit(() -> {
+                // Not restarted if it was stopped by other means meanwhile
+                if (!stopJob(jobId).isSuccess()) {
+                    return;
+                }
+                JobResult result = startJob(jobId);
+                if (result.isSuccess()) {
+                    metrics.restarted(jobId, Metrics.RESTART_CONFIG);
+                    diff.restarted.add(jobId);
+                } else {
+                    appendLog(jobId, "[config] Restart failed: " + result.getMessage());
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Error applying config change", e.getCause());
+            }
+        }
+
+        LOGGER.info("Config reloaded: " + diff);
+        Map<String, Object> result = diff.describe();
+        if (!diff.isEmpty()) {
+            Map<String, Object> event = new LinkedHashMap<>(result);
+            event.put("reason", "reload");
+            events.publish("config", null, event);
+        }
+        return result;
+    }
+
+    /**
+     * Stop all running jobs
+     */
+    public void stopAllJobs() {
+        for (String jobId : new ArrayList<>(runningProcesses.keySet())) {
+            stopJob(jobId);
+        }
+    }
+
+    /**
+     * Shutdown the job manager
+     */
+    public void shutdown() {
+        watchdog.shutdown();
+        suspender.shutdown();
+        healthMonitor.shutdown();
+        deployWatcher.shutdown();
+        configWatcher.shutdown();
+        if (ConfigManager.getInstance().getConfig().getGlobal().isKillOnShutdown()) {
+            stopAllJobs();
+        } else {
+            detachJobs();
+        }
+        workerPool.shutdown();
+        classpathResolver.shutdown();
+        logWatcher.shutdown();
+        ConfigManager.getInstance().shutdown();
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            executorService.shutdownNow();
+        }
+    }
+
+    // ==================== Watchdog Support ====================
+
+    /**
+     * Record a change of runtime state kept outside JobState (health, rollouts)
+     */
+    void stateChanged() {
+        stateVersion.incrementAndGet();
+    }
+
+    /**
+     * Attached processes by kind: "job" (own JVM), "pooled" (run in a worker) and "worker" (worker JVMs)
+     */
+    Map<String, Integer> countProcesses() {
+        int pooled = 0;
+        for (Process process : runningProcesses.values()) {
+            if (process instanceof WorkerPool.PooledProcess) {
+                pooled++;
+            }
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("job", runningProcesses.size() - pooled);
+        counts.put("pooled", pooled);
+        counts.put("worker", workerPool.getWorkerCount());
+        return counts;
+    }
+
+    /**
+     * IDs of jobs that currently have a process attached
+     */
+    Set<String> getRunningJobIds() {
+        return new HashSet<>(runningProcesses.keySet());
+    }
+
+    Process getProcess(String jobId) {
+        return runningProcesses.get(jobId);
+    }
+
+    /**
+     * Time of the last line read from the job's output, or 0 if not running
+     */
+    long getLastOutputTime(String jobId) {
+        AtomicLong lastOutput = lastOutputTimes.get(jobId);
+        return lastOutput != null ? lastOutput.get() : 0L;
+    }
+
+    /**
+     * Suspend a running job; reason is "manual" or "load", note is written to the job log
+     */
+    synchronized JobResult suspendJob(String jobId, String reason, String note) {
+        Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
+        if (job == null) {
+            return new JobResult(false, "Job not found: " + jobId);
+        }
+
+        Process process = runningProcesses.get(jobId);
+        if (process == null || !process.isAlive()) {
+            return new JobResult(false, "Job is not running: " + jobId);
+        }
+        JobState state = getState(jobId);
+        if (state.getSuspendedSince() != null) {
+            return new JobResult(false, "Job is already suspended: " + jobId);
+        }
+        if (process instanceof WorkerPool.PooledProcess) {
+            return new JobResult(false, "Pooled runs share a worker JVM and cannot be suspended: " + jobId);
+        }
+
+        try {
+            String how = suspender.signal(jobId, process, true);
+            state.setSuspendedSince(System.currentTimeMillis());
+            state.setSuspendReason(reason);
+            state.setStatus(Job.JobStatus.SUSPENDED);
+            appendLog(jobId, "Suspended (" + (note != null ? note : reason) + "; " + how + ")");
+            LOGGER.info("Job suspended: " + jobId + " (" + reason + ")");
+            return new JobResult(true, "Job suspended");
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error suspending job: " + jobId, e);
+            return new JobResult(false, "Error suspending job: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resume a suspended job; automatic = resumed by the load policy
+     */
+    synchronized JobResult resumeJob(String jobId, boolean automatic) {
+        Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
+        if (job == null) {
+            return new JobResult(false, "Job not found: " + jobId);
+        }
+
+        JobState state = getState(jobId);
+        Process process = runningProcesses.get(jobId);
+        if (process == null || state.getSuspendedSince() == null) {
+            return new JobResult(false, "Job is not suspended: " + jobId);
+        }
+
+        try {
+            if (!automatic && JobSuspender.REASON_LOAD.equals(state.getSuspendReason())) {
+                suspender.exempt(jobId);
+            }
+            resumeProcess(jobId, state, process);
+            LOGGER.info("Job resumed: " + jobId + (automatic ? " (load)" : ""));
+            return new JobResult(true, "Job resumed");
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error resuming job: " + jobId, e);
+            return new JobResult(false, "Error resuming job: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ask a running job's JVM for a thread dump (written to its log)
+     */
+    boolean captureThreadDump(String jobId) {
+        Process process = runningProcesses.get(jobId);
+        return process != null && process.isAlive() && watchdog.captureThreadDump(jobId, process);
+    }
+
+    /**
+     * Append a runner-generated line to the job's log (memory and file)
+     */
+    void appendLog(String jobId, String message) {
+        String logLine = formatLogLine(System.currentTimeMillis(), message);
+
+        // The follower of a process-mode log reads this line back; it is already in memory
+        Queue<String> ownLines = runnerLines.get(jobId);
+        if (ownLines != null) {
+            ownLines.add(logLine.substring(0, logLine.length() - 1));
+        }
+
+        StringBuilder logs = jobLogs.get(jobId);
+        if (logs != null) {
+            synchronized (logs) {
+                logs.append(logLine);
+            }
+        }
+
+        try (PrintWriter fileWriter = new PrintWriter(new FileWriter(getLogFile(jobId), true))) {
+            fileWriter.print(logLine);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error writing job log: " + jobId, e);
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    /**
+     * Count a change of a job's runtime state; a change of its status also goes to the event feed
+     */
+    private void stateChanged(String jobId) {
+        stateVersion.incrementAndGet();
+        JobState state = states.get(jobId);
+        if (state == null) {
+            return;
+        }
+        Job.JobStatus status = state.getStatus();
+        Job.JobStatus previous = publishedStatus.put(jobId, status);
+        if (previous == null) {
+            previous = Job.JobStatus.STOPPED;
+        }
+        if (status != previous) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("status", status.getValue());
+            event.put("previous", previous.getValue());
+            if (status == Job.JobStatus.STOPPED || status == Job.JobStatus.ERROR) {
+                event.put("exitCode", state.getExitCode());
+            }
+            if (status == Job.JobStatus.ERROR) {
+                metrics.failed(jobId);
+            }
+            events.publish("job", jobId, event);
+        }
+    }
+
+    /**
+     * Runner shutdown with kill_on_shutdown = false: stop pooled runs (they live in
+     * worker JVMs), leave process runs alive and record how far their output was read
+     */
+    private void detachJobs() {
+        for (String jobId : new ArrayList<>(runningProcesses.keySet())) {
+            Process process = runningProcesses.get(jobId);
+            if (process instanceof WorkerPool.PooledProcess) {
+                stopJob(jobId);
+                continue;
+            }
+            JobState state = getState(jobId);
+            if (state.getSuspendedSince() != null) {
+                // Nobody would be left to resume it
+                try {
+                    resumeProcess(jobId, state, process);
+                } catch (IOException e) {
+                    LOGGER.warning("Could not resume job " + jobId + " before detaching: " + e.getMessage());
+                }
+            }
+            Thread follower = logReaderThreads.remove(jobId);
+            if (follower != null) {
+                follower.interrupt();
+                try {
+                    follower.join(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            LOGGER.info("Leaving job running for the next runner: " + jobId);
+        }
+        runningProcesses.clear();
+    }
+
+    /**
+     * Drop the per-run state of a finished run: registry entry, heap allocation and cgroup
+     */
+    private void releaseRun(String jobId) {
+        Long startTime = getState(jobId).getStartTime();
+        if (startTime != null) {
+            metrics.runEnded(jobId, System.currentTimeMillis() - startTime);
+        }
+        runRegistry.remove(jobId);
+        heapBudget.release(jobId);
+        Map<String, Object> usage = cgroups.release(jobId);
+        String summary = usage != null ? CgroupManager.summarize(usage) : null;
+        if (summary != null) {
+            appendLog(jobId, summary);
+        }
+    }
+
+    /**
+     * Continue a suspended process and add the pause to the run's suspended time
+     */
+    private void resumeProcess(String jobId, JobState state, Process process) throws IOException {
+        String how = suspender.signal(jobId, process, false);
+        long now = System.currentTimeMillis();
+        long suspended = now - state.getSuspendedSince();
+        state.setSuspendedMillis(state.getSuspendedMillis() + suspended);
+        state.setSuspendedSince(null);
+        state.setSuspendReason(null);
+        state.setStatus(Job.JobStatus.RUNNING);
+
+        // A suspended job cannot produce output - restart the stall clock
+        AtomicLong lastOutput = lastOutputTimes.get(jobId);
+        if (lastOutput != null) {
+            lastOutput.set(now);
+        }
+        appendLog(jobId, "Resumed after " + formatDuration(suspended) + " suspended (" + how + ")");
+    }
+
+    /**
+     * Close the suspended time of a finished run and record the total in the job log
+     */
+    private void endSuspension(String jobId, JobState state) {
+        if (state.getSuspendedSince() != null) {
+            state.setSuspendedMillis(state.getTotalSuspendedMillis(System.currentTimeMillis()));
+            state.setSuspendedSince(null);
+            state.setSuspendReason(null);
+        }
+        if (state.getSuspendedMillis() > 0) {
+            appendLog(jobId, "Suspended for " + formatDuration(state.getSuspendedMillis()) + " in total");
+        }
+    }
+
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "m " + (seconds % 60) + "s";
+        }
+        return (seconds / 3600) + "h " + (seconds / 60 % 60) + "m";
+    }
+
+    private List<String> buildCommand(Job job, JobsConfig config, String classpath, String cdsOption,
+                                      HeapBudget.Allocation heap, List<String> runtimeArgs) {
+        List<String> command = new ArrayList<>();
+
+        // Java executable
+        command.add(config.getGlobal().getJavaCmd());
+
+        // Global JVM options
+        List<String> jvmOptions = new ArrayList<>();
+        String javaOpts = config.getGlobal().getJavaOpts();
+        if (javaOpts != null && !javaOpts.isEmpty()) {
+            for (String opt : javaOpts.split("\\s+")) {
+                if (!opt.isEmpty()) {
+                    jvmOptions.add(opt);
+                }
+            }
+        }
+
+        // Per-job JVM options (appended after global)
+        String jobJavaOpts = job.getJavaOpts();
+        if (jobJavaOpts != null && !jobJavaOpts.isEmpty()) {
+            for (String opt : jobJavaOpts.split("\\s+")) {
+                if (!opt.isEmpty()) {
+                    jvmOptions.add(opt);
+                }
+            }
+        }
+
+        // Budgeted heap replaces the heap options of both
+        command.addAll(heap != null ? heap.applyTo(jvmOptions) : jvmOptions);
+
+        // Class Data Sharing archive (training or shared)
+        if (cdsOption != null) {
+            command.add(cdsOption);
+        }
+
+        // Classpath
+        command.addAll(classpathResolver.classpathArgs(config.getGlobal(), classpath));
+
+        // Main class
+        command.add(job.getMainClass());
+
+        // Configured parameters (from jobs.toml)
+        if (job.getParams() != null) {
+            command.addAll(job.getParams());
+        }
+
+        // Runtime arguments (from UI input, added after configured params)
+        if (runtimeArgs != null && !runtimeArgs.isEmpty()) {
+            command.addAll(runtimeArgs);
+        }
+
+        return command;
+    }
+
+    private void startLogReader(String jobId, Process process, HealthMonitor.Heartbeat heartbeat) {
+        Thread thread = new Thread(() -> {
+            Metrics.Counters counters = metrics.job(jobId);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(counters.count(process.getInputStream())))) {
+                String line;
+                StringBuilder logs = jobLogs.get(jobId);
+                AtomicLong lastOutput = lastOutputTimes.get(jobId);
+                File logFile = getLogFile(jobId);
+
+                try (PrintWriter fileWriter = new PrintWriter(new FileWriter(logFile, true))) {
+                    while ((line = reader.readLine()) != null) {
+                        recordLine(line, fileWriter, logs, lastOutput, heartbeat, counters);
+                    }
+                }
+            } catch (IOException e) {
+                if (!Thread.currentThread().isInterrupted()) {
+                    LOGGER.log(Level.WARNING, "Error reading job output: " + jobId, e);
+                }
+            }
+        }, "JobLogReader-" + jobId);
+
+        thread.setDaemon(true);
+        thread.start();
+        logReaderThreads.put(jobId, thread);
+    }
+
+    /**
+     * Follow a process-mode job log from the given byte offset until the process ends
+     * (or the thread is interrupted), recording each line like startLogReader. The process
+     * appends to the log itself, so the follower only reads; it sleeps until the LogWatcher
+     * reports a change or the process exits.
+     */
+    private void startLogFollower(String jobId, Process process, File output, long offset,
+                                  HealthMonitor.Heartbeat heartbeat) {
+        LogWatcher.Signal signal = logWatcher.register(output);
+        Queue<String> ownLines = runnerLines.get(jobId);
+        process.onExit().thenRun(signal::signal);
+        Thread thread = new Thread(() -> {
+            try {
+                followOutput(jobId, output, offset, process::isAlive, heartbeat, signal, ownLines);
+            } finally {
+                logWatcher.unregister(output, signal);
+                if (ownLines != null) {
+                    runnerLines.remove(jobId, ownLines);
+                }
+            }
+        }, "JobLogReader-" + jobId);
+        thread.setDaemon(true);
+        thread.start();
+        logReaderThreads.put(jobId, thread);
+    }
+
+    private void followOutput(String jobId, File output, long offset, BooleanSupplier alive,
+                              HealthMonitor.Heartbeat heartbeat, LogWatcher.Signal signal,
+                              Queue<String> ownLines) {
+        StringBuilder logs = jobLogs.get(jobId);
+        AtomicLong lastOutput = lastOutputTimes.get(jobId);
+        Metrics.Counters counters = metrics.job(jobId);
+        Charset charset = Charset.defaultCharset();
+
+        try (RandomAccessFile in = new RandomAccessFile(output, "r")) {
+            long position = Math.min(offset, in.length());
+            in.seek(position);
+            ByteArrayOutputStream pending = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            boolean draining = false;
+
+            while (true) {
+                if (in.length() < position) {
+                    // Truncated (e.g. by logrotate copytruncate): start over at the beginning
+                    position = 0;
+                    in.seek(0);
+                    pending.reset();
+                }
+                int n = in.read(buffer);
+                if (n > 0) {
+                    counters.bytes(n);
+                    int lineStart = 0;
+                    for (int i = 0; i < n; i++) {
+                        if (buffer[i] == '\n') {
+                            pending.write(buffer, lineStart, i - lineStart);
+                            String line = new String(pending.toByteArray(), charset);
+                            pending.reset();
+                            line = line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+                            if (ownLines == null || !ownLines.remove(line)) {
+                                recordLine(line, null, logs, lastOutput, heartbeat, counters);
+                            }
+                            lineStart = i + 1;
+                        }
+                    }
+                    pending.write(buffer, lineStart, n - lineStart);
+                    position += n;
+                    continue;
+                }
+
+                // End of file: read once more after the process ends, then stop
+                if (draining) {
+                    break;
+                }
+                if (!alive.getAsBoolean()) {
+                    draining = true;
+                    continue;
+                }
+                try {
+                    signal.await();
+                } catch (InterruptedException e) {
+                    draining = true;
+                }
+            }
+
+            // A last line without newline is only complete once the process has ended
+            if (pending.size() > 0 && !alive.getAsBoolean()) {
+                recordLine(new String(pending.toByteArray(), charset), null, logs, lastOutput, heartbeat, counters);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error following job output: " + jobId, e);
+        }
+    }
+
+    private void recordLine(String line, PrintWriter fileWriter, StringBuilder logs, AtomicLong lastOutput,
+                            HealthMonitor.Heartbeat heartbeat, Metrics.Counters counters) {
+        long now = System.currentTimeMillis();
+        counters.line();
+        if (lastOutput != null) {
+            lastOutput.set(now);
+        }
+        if (heartbeat != null) {
+            heartbeat.onLine(line, now);
+        }
+        String logLine = formatLogLine(now, line);
+
+        // Write to file (process-mode jobs write their log themselves)
+        if (fileWriter != null) {
+            fileWriter.print(logLine);
+            fileWriter.flush();
+        }
+
+        // Keep in memory (with limit)
+        if (logs != null) {
+            synchronized (logs) {
+                logs.append(logLine);
+                // Trim if too large
+                if (logs.length() > 500000) {
+                    logs.delete(0, 100000);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exit code of an ended process, or null if unknown (a process adopted after a restart)
+     */
+    private static Integer exitCode(Process process) {
+        int exitCode = process.exitValue();
+        return exitCode == RunRegistry.AdoptedProcess.EXIT_UNKNOWN ? null : exitCode;
+    }
+
+    private String formatLogLine(long time, String line) {
+        String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss")
+                .format(new java.util.Date(time));
+        return timestamp + " " + line + "\n";
+    }
+
+    private File getLogFile(String jobId) {
+        ConfigManager configManager = ConfigManager.getInstance();
+        String logsDir = configManager.getConfig().getGlobal().getLogsDir();
+        return new File(logsDir, jobId + ".log");
+    }
+
+    private String readLogFile(String jobId, int lastNLines) {
+        File logFile = getLogFile(jobId);
+        if (!logFile.exists()) {
+            return "";
+        }
+
+        try {
+            List<String> lines = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lines.add(line);
+                }
+            }
+
+            int start = Math.max(0, lines.size() - lastNLines);
+            StringBuilder result = new StringBuilder();
+            for (int i = start; i < lines.size(); i++) {
+                result.append(lines.get(i)).append("\n");
+            }
+            return result.toString();
+
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error reading log file: " + logFile, e);
+            return "";
+        }
+    }
+
+    // ==================== Result Class ====================
+
+    public static class JobResult {
+        private final boolean success;
+        private final String message;
+        private final Long pid;
+
+        public JobResult(boolean success, String message) {
+            this(success, message, null);
+        }
+
+        public JobResult(boolean success, String message, Long pid) {
+            this.success = success;
+            this.message = message;
+            this.pid = pid;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public Long getPid() {
+            return pid;
+        }
+    }
+}
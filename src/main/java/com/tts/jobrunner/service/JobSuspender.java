@@ -0,0 +1,179 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Job suspender - pauses running jobs without losing their progress.
+ *
+ * A job in its own cgroup is frozen through cgroup.freeze; otherwise the JVM and
+ * all of its descendants get SIGSTOP, and SIGCONT to resume. Stopped processes use
+ * no CPU and drop out of the load average, but keep their memory.
+ *
+ * With [global] suspend_load set, running batch-class jobs are suspended while the
+ * 1-minute load average per CPU is above it, and resumed once it has fallen below
+ * resume_load. Jobs suspended by hand are never resumed automatically.
+ * Compatible with Java 11+
+ */
+class JobSuspender {
+    private static final Logger LOGGER = Logger.getLogger(JobSuspender.class.getName());
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+    private static final long CHECK_INTERVAL_SECONDS = 5;
+    private static final long MIN_SUSPEND_MILLIS = 60000;  // The 1-minute load average lags behind
+    private static final double DEFAULT_RESUME_FRACTION = 0.75;
+
+    static final String REASON_MANUAL = "manual";
+    static final String REASON_LOAD = "load";
+
+    private final JobManager jobManager;
+    private final CgroupManager cgroups;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> exempt;  // Load-suspended jobs resumed by hand, until the load drops
+
+    JobSuspender(JobManager jobManager, CgroupManager cgroups) {
+        this.jobManager = jobManager;
+        this.cgroups = cgroups;
+        this.exempt = ConcurrentHashMap.newKeySet();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-LoadPolicy");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::checkLoad,
+                CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Suspend or resume a job's process tree. Returns how it was done, for the job log.
+     * The root process is signalled first on suspend (so it cannot start new children)
+     * and last on resume; descendants that exit in between are ignored.
+     */
+    String signal(String jobId, Process process, boolean suspend) throws IOException {
+        if (WINDOWS) {
+            throw new IOException("suspending jobs is not supported on Windows");
+        }
+        if (cgroups.freeze(jobId, suspend)) {
+            return suspend ? "cgroup frozen" : "cgroup thawed";
+        }
+
+        String signal = suspend ? "-STOP" : "-CONT";
+        ProcessHandle root = process.toHandle();
+        List<String> descendants = new ArrayList<>();
+        root.descendants().forEach(child -> descendants.add(String.valueOf(child.pid())));
+
+        if (suspend) {
+            kill(signal, Collections.singletonList(String.valueOf(root.pid())), true);
+            kill(signal, descendants, false);
+        } else {
+            kill(signal, descendants, false);
+            kill(signal, Collections.singletonList(String.valueOf(root.pid())), true);
+        }
+        return (suspend ? "SIGSTOP" : "SIGCONT") + " to " + (descendants.size() + 1) + " process(es)";
+    }
+
+    /**
+     * A load-suspended job resumed by hand is left alone until the load has dropped
+     */
+    void exempt(String jobId) {
+        exempt.add(jobId);
+    }
+
+    /**
+     * 1-minute load average divided by the number of CPUs, or -1 if the OS does not report it
+     */
+    double getLoadPerCpu() {
+        double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+        return load < 0 ? -1 : load / Runtime.getRuntime().availableProcessors();
+    }
+
+    // ==================== Load Policy ====================
+
+    private void checkLoad() {
+        // Never let an exception escape, it would cancel the scheduled task
+        try {
+            JobsConfig config = ConfigManager.getInstance().getConfig();
+            GlobalConfig global = config.getGlobal();
+            Set<String> running = jobManager.getRunningJobIds();
+            exempt.retainAll(running);
+
+            double load = getLoadPerCpu();
+            boolean enabled = global.getSuspendLoad() > 0 && load >= 0;
+            double resumeLoad = global.getResumeLoad() > 0
+                    ? global.getResumeLoad() : global.getSuspendLoad() * DEFAULT_RESUME_FRACTION;
+            long now = System.currentTimeMillis();
+
+            for (String jobId : running) {
+                Job job = config.getJob(jobId);
+                if (job == null) {
+                    continue;
+                }
+                JobState state = jobManager.getState(jobId);
+                Long suspendedSince = state.getSuspendedSince();
+                boolean loadSuspended = REASON_LOAD.equals(state.getSuspendReason());
+
+                if (enabled && load > global.getSuspendLoad() && suspendedSince == null
+                        && job.getPriorityClass() == Job.PriorityClass.BATCH && !exempt.contains(jobId)
+                        && !(jobManager.getProcess(jobId) instanceof WorkerPool.PooledProcess)) {
+                    jobManager.suspendJob(jobId, REASON_LOAD, String.format(
+                            "load %.2f per CPU is above suspend_load %.2f", load, global.getSuspendLoad()));
+
+                } else if (loadSuspended && suspendedSince != null && (!enabled || load < resumeLoad
+                        && now - suspendedSince >= MIN_SUSPEND_MILLIS)) {
+                    jobManager.resumeJob(jobId, true);
+                }
+            }
+
+            if (!enabled || load < resumeLoad) {
+                exempt.clear();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Load policy check failed", e);
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    private void kill(String signal, List<String> pids, boolean required) throws IOException {
+        if (pids.isEmpty()) {
+            return;
+        }
+        List<String> command = new ArrayList<>();
+        command.add("kill");
+        command.add(signal);
+        command.addAll(pids);
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        Process kill = pb.start();
+        String output = new String(kill.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        try {
+            if (!kill.waitFor(5, TimeUnit.SECONDS)) {
+                kill.destroyForcibly();
+                throw new IOException("kill " + signal + " timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while sending " + signal);
+        }
+        if (kill.exitValue() != 0) {
+            if (required) {
+                throw new IOException("kill " + signal + " failed: " + output);
+            }
+            LOGGER.fine("kill " + signal + " " + pids + ": " + output);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watchdog - enforces per-job timeout and stall_timeout limits.
+ * A single scheduler thread checks all running jobs; a job that breaches a
+ * limit is escalated through SIGTERM, a thread dump and finally a forced kill.
+ * Compatible with Java 11+
+ */
+class JobWatchdog {
+    private static final Logger LOGGER = Logger.getLogger(JobWatchdog.class.getName());
+    private static final long CHECK_INTERVAL_SECONDS = 1;
+    private static final long TERM_GRACE_MILLIS = 10000;  // SIGTERM -> thread dump
+    private static final long DUMP_GRACE_MILLIS = 5000;   // thread dump -> destroyForcibly
+
+    private final JobManager jobManager;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Escalation> escalations;
+
+    JobWatchdog(JobManager jobManager) {
+        this.jobManager = jobManager;
+        this.escalations = new ConcurrentHashMap<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-Watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::checkAll,
+                CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void checkAll() {
+        // Never let an exception escape, it would cancel the scheduled task
+        try {
+            long now = System.currentTimeMillis();
+            for (String jobId : jobManager.getRunningJobIds()) {
+                checkJob(jobId, now);
+            }
+            escalations.keySet().removeIf(jobId -> jobManager.getProcess(jobId) == null);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Watchdog check failed", e);
+        }
+    }
+
+    private void checkJob(String jobId, long now) {
+        Process process = jobManager.getProcess(jobId);
+        if (process == null) {
+            return;
+        }
+
+        // Reap finished processes so their slot is freed without waiting for an API poll
+        if (!process.isAlive()) {
+            escalations.remove(jobId);
+            jobManager.getJobStatus(jobId);
+            return;
+        }
+
+        Escalation escalation = escalations.get(jobId);
+        if (escalation != null && escalation.process != process) {
+            // Job was restarted since the escalation began
+            escalations.remove(jobId);
+            escalation = null;
+        }
+
+        if (escalation == null) {
+            String reason = checkLimits(jobId, now);
+            if (reason != null) {
+                escalation = new Escalation(process, now);
+                escalations.put(jobId, escalation);
+                LOGGER.warning("Watchdog: job " + jobId + " " + reason + ", sending SIGTERM");
+                jobManager.appendLog(jobId, "[watchdog] Job " + reason + ", sending SIGTERM");
+                // Signal through the handle: Process.destroy() also closes the output
+                // pipe, which would lose the thread dump captured in the next stage
+                process.toHandle().destroy();
+            }
+            return;
+        }
+
+        long elapsed = now - escalation.stageTime;
+        if (escalation.stage == Escalation.TERMINATED && elapsed >= TERM_GRACE_MILLIS) {
+            LOGGER.warning("Watchdog: job " + jobId + " ignored SIGTERM, capturing thread dump");
+            jobManager.appendLog(jobId, "[watchdog] Process still alive after SIGTERM, capturing thread dump");
+            captureThreadDump(jobId, process);
+            escalation.advance(Escalation.DUMPED, now);
+
+        } else if (escalation.stage == Escalation.DUMPED && elapsed >= DUMP_GRACE_MILLIS) {
+            LOGGER.warning("Watchdog: force killing job " + jobId);
+            jobManager.appendLog(jobId, "[watchdog] Force killing process");
+            process.destroyForcibly();
+            escalation.advance(Escalation.KILLED, now);
+        }
+    }
+
+    /**
+     * Returns a description of the breached limit, or null if the job is within its limits
+     */
+    private String checkLimits(String jobId, long now) {
+        Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
+        JobState state = jobManager.getState(jobId);
+        if (job == null || state.getSuspendedSince() != null) {
+            // Limits are paused while a job is suspended
+            return null;
+        }
+
+        Long startTime = state.getStartTime();
+        if (job.getTimeout() > 0 && startTime != null
+                && now - startTime - state.getTotalSuspendedMillis(now) > job.getTimeout() * 1000) {
+            return "exceeded timeout of " + job.getTimeout() + "s";
+        }
+
+        long lastOutput = jobManager.getLastOutputTime(jobId);
+        if (job.getStallTimeout() > 0 && lastOutput > 0
+                && now - lastOutput > job.getStallTimeout() * 1000) {
+            return "produced no output for " + job.getStallTimeout() + "s";
+        }
+
+        return null;
+    }
+
+    /**
+     * Ask the JVM to print a thread dump. On Unix SIGQUIT makes the child write
+     * the dump to its own stdout, which the log reader already captures; on
+     * Windows jcmd is used and its output is appended to the job log.
+     * Returns false if the dump could not be requested.
+     */
+    boolean captureThreadDump(String jobId, Process process) {
+        try {
+            String pid = String.valueOf(process.pid());
+            if (System.getProperty("os.name").toLowerCase().contains("win")) {
+                String javaHome = ConfigManager.getInstance().getConfig().getGlobal().getJavaHome();
+                ProcessBuilder pb = new ProcessBuilder(
+                        javaHome + File.separator + "bin" + File.separator + "jcmd.exe", pid, "Thread.print");
+                pb.redirectErrorStream(true);
+                Process jcmd = pb.start();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(jcmd.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        jobManager.appendLog(jobId, line);
+                    }
+                }
+                jcmd.waitFor(5, TimeUnit.SECONDS);
+            } else {
+                new ProcessBuilder("kill", "-3", pid).start().waitFor(5, TimeUnit.SECONDS);
+            }
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not capture thread dump for job: " + jobId, e);
+            return false;
+        }
+    }
+
+    // ==================== Escalation State ====================
+
+    private static class Escalation {
+        static final int TERMINATED = 1;
+        static final int DUMPED = 2;
+        static final int KILLED = 3;
+
+        final Process process;
+        int stage;
+        long stageTime;
+
+        Escalation(Process process, long now) {
+            this.process = process;
+            this.stage = TERMINATED;
+            this.stageTime = now;
+        }
+
+        void advance(int stage, long now) {
+            this.stage = stage;
+            this.stageTime = now;
+        }
+    }
+}
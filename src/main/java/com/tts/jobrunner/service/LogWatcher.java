@@ -0,0 +1,133 @@
+package com.tts.jobrunner.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Log watcher - wakes the followers of process-mode job logs when their file changes.
+ *
+ * One WatchService on the logs directory serves all jobs, so followers block instead
+ * of polling. A follower also wakes after IDLE_MS without an event: that covers a lost
+ * event, the end of the process and platforms whose WatchService polls. Without a
+ * WatchService every follower just waits IDLE_MS between reads.
+ * Compatible with Java 11+
+ */
+class LogWatcher {
+    private static final Logger LOGGER = Logger.getLogger(LogWatcher.class.getName());
+    static final long IDLE_MS = 1000;
+
+    private final Map<Path, Signal> signals = new ConcurrentHashMap<>();  // By absolute file path
+    private final Set<Path> dirs = ConcurrentHashMap.newKeySet();
+    private WatchService watchService;
+    private Thread thread;
+    private boolean unavailable;
+
+    /**
+     * Wake-up flag of one followed file
+     */
+    static class Signal {
+        private boolean changed;
+
+        synchronized void signal() {
+            changed = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait until the file changed since the last call, at most IDLE_MS
+         */
+        synchronized void await() throws InterruptedException {
+            if (!changed) {
+                wait(IDLE_MS);
+            }
+            changed = false;
+        }
+    }
+
+    /**
+     * Start watching a file; the follower waits on the returned signal
+     */
+    Signal register(File file) {
+        Path path = file.getAbsoluteFile().toPath();
+        Signal signal = new Signal();
+        signals.put(path, signal);
+        watchDir(path.getParent());
+        return signal;
+    }
+
+    void unregister(File file, Signal signal) {
+        signals.remove(file.getAbsoluteFile().toPath(), signal);
+    }
+
+    synchronized void shutdown() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            watchService = null;
+        }
+        dirs.clear();
+    }
+
+    // ==================== Private Methods ====================
+
+    private synchronized void watchDir(Path dir) {
+        if (dir == null || unavailable || dirs.contains(dir)) {
+            return;
+        }
+        try {
+            if (watchService == null) {
+                watchService = dir.getFileSystem().newWatchService();
+                thread = new Thread(this::run, "JobRunner-LogWatcher");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            dirs.add(dir);
+        } catch (IOException | UnsupportedOperationException e) {
+            unavailable = true;
+            LOGGER.log(Level.WARNING, "Cannot watch " + dir + ", job logs are read every " + IDLE_MS + " ms", e);
+        }
+    }
+
+    private void run() {
+        WatchService service;
+        synchronized (this) {
+            service = watchService;
+        }
+        while (service != null && !Thread.currentThread().isInterrupted()) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    signals.values().forEach(Signal::signal);
+                    continue;
+                }
+                Signal signal = signals.get(dir.resolve((Path) event.context()));
+                if (signal != null) {
+                    signal.signal();
+                }
+            }
+            if (!key.reset()) {
+                dirs.remove(dir);
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.Job;
+import com.tts.jobrunner.model.JobsConfig;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runner metrics in the Prometheus text format, for GET /metrics.
+ *
+ * Counters and histogram buckets are LongAdders, and each job's counters are looked up
+ * once per run (the log reader keeps its Counters), so recording never takes a lock and
+ * concurrent jobs do not contend. A scrape only sums the adders and reads the job states;
+ * it never touches the JobManager lock. Job state, thread and process gauges are read at
+ * scrape time.
+ * Compatible with Java 11+
+ */
+public class Metrics {
+    private static Metrics instance;
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    public static final String RESTART_MANUAL = "manual";
+    public static final String RESTART_REDEPLOY = "redeploy";
+    public static final String RESTART_HEALTH = "health";
+    public static final String RESTART_CONFIG = "config";
+    private static final String[] RESTART_REASONS = {RESTART_MANUAL, RESTART_REDEPLOY, RESTART_HEALTH, RESTART_CONFIG};
+
+    // Bucket bounds in seconds
+    private static final double[] RUN_BUCKETS = {1, 10, 60, 300, 900, 3600, 4 * 3600, 24 * 3600};
+    private static final double[] REQUEST_BUCKETS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private final Map<String, Counters> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> requests = new ConcurrentHashMap<>();  // By "METHOD route"
+    private final Map<String, LongAdder> throttled = new ConcurrentHashMap<>();  // By "class reason"
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private Metrics() {
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Counters of one job (created on first use, kept while the runner lives)
+     */
+    static class Counters {
+        final LongAdder starts = new LongAdder();
+        final LongAdder stops = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder[] restarts = new LongAdder[RESTART_REASONS.length];
+        final LongAdder logLines = new LongAdder();
+        final LongAdder logBytes = new LongAdder();
+        final Histogram runDuration = new Histogram(RUN_BUCKETS);
+
+        Counters() {
+            for (int i = 0; i < restarts.length; i++) {
+                restarts[i] = new LongAdder();
+            }
+        }
+
+        void line() {
+            logLines.increment();
+        }
+
+        /**
+         * Bytes of output read (as read, before splitting into lines)
+         */
+        void bytes(long bytes) {
+            logBytes.add(bytes);
+        }
+
+        /**
+         * The stream, counting the bytes read from it
+         */
+        InputStream count(InputStream in) {
+            return new FilterInputStream(in) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        logBytes.increment();
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = super.read(buffer, offset, length);
+                    if (n > 0) {
+                        logBytes.add(n);
+                    }
+                    return n;
+                }
+            };
+        }
+    }
+
+    /**
+     * Latency histogram with fixed buckets; each bucket is a LongAdder
+     */
+    public static class Histogram {
+        private final double[] bounds;
+        private final long[] boundsNanos;
+        private final LongAdder[] buckets;  // Per bucket (not cumulative), the last one is +Inf
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram(double[] bounds) {
+            this.bounds = bounds;
+            this.boundsNanos = new long[bounds.length];
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < bounds.length; i++) {
+                boundsNanos[i] = (long) (bounds[i] * 1e9);
+            }
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(long nanos) {
+            int index = Arrays.binarySearch(boundsNanos, nanos);
+            buckets[index >= 0 ? index : -index - 1].increment();
+            sumNanos.add(nanos);
+        }
+
+        void write(StringBuilder out, String name, String labels) {
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                cumulative += buckets[i].sum();
+                out.append(name).append("_bucket{").append(labels).append(labels.isEmpty() ? "" : ",")
+                        .append("le=\"").append(i < bounds.length ? format(bounds[i]) : "+Inf").append("\"} ")
+                        .append(cumulative).append('\n');
+            }
+            String suffix = labels.isEmpty() ? " " : "{" + labels + "} ";
+            out.append(name).append("_sum").append(suffix).append(format(sumNanos.sum() / 1e9)).append('\n');
+            out.append(name).append("_count").append(suffix).append(cumulative).append('\n');
+        }
+    }
+
+    // ==================== Recording ====================
+
+    Counters job(String jobId) {
+        Counters counters = jobs.get(jobId);
+        return counters != null ? counters : jobs.computeIfAbsent(jobId, id -> new Counters());
+    }
+
+    void started(String jobId) {
+        job(jobId).starts.increment();
+    }
+
+    void stopped(String jobId) {
+        job(jobId).stops.increment();
+    }
+
+    void failed(String jobId) {
+        job(jobId).failures.increment();
+    }
+
+    /**
+     * A run ended (exited or stopped) after the given time
+     */
+    void runEnded(String jobId, long durationMillis) {
+        job(jobId).runDuration.observe(TimeUnit.MILLISECONDS.toNanos(Math.max(0, durationMillis)));
+    }
+
+    /**
+     * A job was stopped and started again; reason is one of the RESTART_ constants
+     */
+    public void restarted(String jobId, String reason) {
+        Counters counters = job(jobId);
+        for (int i = 0; i < RESTART_REASONS.length; i++) {
+            if (RESTART_REASONS[i].equals(reason)) {
+                counters.restarts[i].increment();
+            }
+        }
+    }
+
+    /**
+     * Latency of one API request; route is the matched pattern (e.g. "/jobs/{id}")
+     */
+    public void request(String method, String route, long nanos) {
+        String key = method + " " + route;
+        Histogram histogram = requests.get(key);
+        if (histogram == null) {
+            histogram = requests.computeIfAbsent(key, k -> new Histogram(REQUEST_BUCKETS));
+        }
+        histogram.observe(nanos);
+    }
+
+    /**
+     * An API request was answered 429; reason is "rate" or "concurrency"
+     */
+    public void throttled(String endpointClass, String reason) {
+        throttled.computeIfAbsent(endpointClass + " " + reason, k -> new LongAdder()).increment();
+    }
+
+    // ==================== Exposition ====================
+
+    /**
+     * All metrics in the Prometheus text format (version 0.0.4)
+     */
+    public String render(JobsConfig config, JobManager jobManager) {
+        StringBuilder out = new StringBuilder(16384);
+        Map<String, String> labels = new TreeMap<>();
+        for (Job job : config.getJobs()) {
+            labels.put(job.getId(), jobLabels(job.getId(), job));
+        }
+        for (String jobId : jobs.keySet()) {
+            labels.computeIfAbsent(jobId, id -> jobLabels(id, null));  // Removed from the config since
+        }
+
+        header(out, "jobrunner_job_state", "gauge", "Current state of each job (1 for the current state)");
+        for (Job job : config.getJobs()) {
+            Job.JobStatus status = jobManager.getState(job.getId()).getStatus();
+            for (Job.JobStatus state : Job.JobStatus.values()) {
+                out.append("jobrunner_job_state{").append(labels.get(job.getId())).append(",state=\"")
+                        .append(state.getValue()).append("\"} ").append(state == status ? 1 : 0).append('\n');
+            }
+        }
+
+        Map<String, Counters> counters = new TreeMap<>(jobs);
+        counter(out, counters, labels, "jobrunner_job_starts_total", "Job starts", c -> c.starts);
+        counter(out, counters, labels, "jobrunner_job_stops_total",
+                "Job stops (by request, restart, timeout or health check)", c -> c.stops);
+        counter(out, counters, labels, "jobrunner_job_failures_total",
+                "Runs that ended with an error (non-zero exit or failed start)", c -> c.failures);
+        header(out, "jobrunner_job_restarts_total", "counter", "Job restarts by reason");
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            for (int i = 0; i < RESTART_REASONS.length; i++) {
+                out.append("jobrunner_job_restarts_total{").append(labels.get(entry.getKey()))
+                        .append(",reason=\"").append(RESTART_REASONS[i]).append("\"} ")
+                        .append(entry.getValue().restarts[i].sum()).append('\n');
+            }
+        }
+        counter(out, counters, labels, "jobrunner_job_log_lines_total", "Lines of job output read", c -> c.logLines);
+        counter(out, counters, labels, "jobrunner_job_log_bytes_total", "Bytes of job output read", c -> c.logBytes);
+        header(out, "jobrunner_job_run_duration_seconds", "histogram", "Duration of finished runs");
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            entry.getValue().runDuration.write(out, "jobrunner_job_run_duration_seconds", labels.get(entry.getKey()));
+        }
+
+        Map<String, Integer> processes = jobManager.countProcesses();
+        header(out, "jobrunner_processes", "gauge", "Processes of the runner: job JVMs, pooled runs and worker JVMs");
+        for (Map.Entry<String, Integer> entry : processes.entrySet()) {
+            out.append("jobrunner_processes{kind=\"").append(entry.getKey()).append("\"} ")
+                    .append(entry.getValue()).append('\n');
+        }
+        header(out, "jobrunner_threads", "gauge", "Live threads of the runner JVM");
+        out.append("jobrunner_threads ").append(threads.getThreadCount()).append('\n');
+        header(out, "jobrunner_threads_daemon", "gauge", "Live daemon threads of the runner JVM");
+        out.append("jobrunner_threads_daemon ").append(threads.getDaemonThreadCount()).append('\n');
+        header(out, "jobrunner_threads_peak", "gauge", "Peak live threads of the runner JVM");
+        out.append("jobrunner_threads_peak ").append(threads.getPeakThreadCount()).append('\n');
+
+        header(out, "jobrunner_http_request_duration_seconds", "histogram", "Latency of API requests by route");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(requests).entrySet()) {
+            int space = entry.getKey().indexOf(' ');
+            entry.getValue().write(out, "jobrunner_http_request_duration_seconds",
+                    "method=\"" + entry.getKey().substring(0, space) + "\",route=\""
+                            + escape(entry.getKey().substring(space + 1)) + "\"");
+        }
+        header(out, "jobrunner_http_throttled_total", "counter", "API requests answered 429 by class and reason");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(throttled).entrySet()) {
+            int space = entry.getKey().indexOf(' ');
+            out.append("jobrunner_http_throttled_total{class=\"").append(entry.getKey().substring(0, space))
+                    .append("\",reason=\"").append(entry.getKey().substring(space + 1)).append("\"} ")
+                    .append(entry.getValue().sum()).append('\n');
+        }
+        return out.toString();
+    }
+
+    // ==================== Private Methods ====================
+
+    private interface CounterField {
+        LongAdder get(Counters counters);
+    }
+
+    private static void counter(StringBuilder out, Map<String, Counters> counters, Map<String, String> labels,
+                                String name, String help, CounterField field) {
+        header(out, name, "counter", help);
+        for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+            out.append(name).append('{').append(labels.get(entry.getKey())).append("} ")
+                    .append(field.get(entry.getValue()).sum()).append('\n');
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * job and app labels; a job in several apps gets them comma-separated
+     */
+    private static String jobLabels(String jobId, Job job) {
+        String apps = job != null && job.getApps() != null ? String.join(",", job.getApps()) : "";
+        return "job=\"" + escape(jobId) + "\",app=\"" + escape(apps) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,216 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.Job;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Process priority - applies a job's priority_class and cpus to its JVM.
+ *
+ * On Linux/Unix the command is prefixed with taskset, nice and ionice. Each of
+ * them execs the next program in place, so the JVM keeps the launched PID and
+ * the settings cover every thread from the first instruction. On Windows the
+ * priority class and affinity mask are set on the PID right after start.
+ *
+ *   latency-critical: nice 0,  ionice best-effort 0 (highest without privileges)
+ *   normal:           unchanged
+ *   batch:            nice 10, ionice best-effort 7
+ * Compatible with Java 11+
+ */
+class ProcessPriority {
+    private static final Logger LOGGER = Logger.getLogger(ProcessPriority.class.getName());
+    private static final Pattern CPU_LIST = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+    private static final boolean WINDOWS = System.getProperty("os.name").toLowerCase().contains("win");
+
+    private final Map<String, String> tools;
+    private final Set<String> warnedTools;
+
+    ProcessPriority() {
+        this.tools = new ConcurrentHashMap<>();
+        this.warnedTools = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Settings for a job, or throws IllegalArgumentException for an invalid cpu list
+     */
+    Settings resolve(Job job) {
+        String cpus = job.getCpus() != null ? job.getCpus().replace(" ", "") : "";
+        if (!cpus.isEmpty() && !CPU_LIST.matcher(cpus).matches()) {
+            throw new IllegalArgumentException("Invalid cpus for job " + job.getId() + ": " + job.getCpus()
+                    + " (expected a cpu list like 0-3 or 0,2)");
+        }
+
+        Job.PriorityClass priorityClass = job.getPriorityClass() != null
+                ? job.getPriorityClass() : Job.PriorityClass.NORMAL;
+        switch (priorityClass) {
+            case LATENCY_CRITICAL:
+                return new Settings(priorityClass, 0, 0, cpus);
+            case BATCH:
+                return new Settings(priorityClass, 10, 7, cpus);
+            default:
+                return new Settings(priorityClass, null, null, cpus);
+        }
+    }
+
+    /**
+     * Prefix the command with the launchers that apply the settings (no-op on Windows)
+     */
+    List<String> wrap(Settings settings, List<String> command) {
+        if (WINDOWS) {
+            return command;
+        }
+
+        List<String> wrapped = new ArrayList<>();
+        if (!settings.cpus.isEmpty()) {
+            addTool(wrapped, "taskset", "-c", settings.cpus);
+        }
+        if (settings.nice != null && settings.nice != 0) {
+            addTool(wrapped, "nice", "-n", String.valueOf(settings.nice));
+        }
+        if (settings.ioLevel != null) {
+            addTool(wrapped, "ionice", "-c", "2", "-n", String.valueOf(settings.ioLevel));
+        }
+        wrapped.addAll(command);
+        return wrapped;
+    }
+
+    /**
+     * Apply the settings to a started process (Windows only - elsewhere wrap() did it)
+     */
+    void applyAfterStart(Settings settings, Process process) {
+        // Pooled runs have no PID of their own - the worker got the settings when it started
+        if (!WINDOWS || process instanceof WorkerPool.PooledProcess
+                || settings.priorityClass == Job.PriorityClass.NORMAL && settings.cpus.isEmpty()) {
+            return;
+        }
+
+        StringBuilder script = new StringBuilder("$p = Get-Process -Id ").append(process.pid()).append("; ");
+        if (settings.priorityClass == Job.PriorityClass.BATCH) {
+            script.append("$p.PriorityClass = 'BelowNormal'; ");
+        } else if (settings.priorityClass == Job.PriorityClass.LATENCY_CRITICAL) {
+            script.append("$p.PriorityClass = 'AboveNormal'; ");
+        }
+        if (!settings.cpus.isEmpty()) {
+            script.append("$p.ProcessorAffinity = ").append(affinityMask(settings.cpus)).append("; ");
+        }
+
+        try {
+            ProcessBuilder pb = new ProcessBuilder("powershell.exe", "-NoProfile", "-Command", script.toString());
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            pb.start().onExit().thenAccept(p -> {
+                if (p.exitValue() != 0) {
+                    LOGGER.warning("Could not set priority of PID " + process.pid() + " (exit " + p.exitValue() + ")");
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.warning("Could not set priority of PID " + process.pid() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Effective settings for the API (only what is actually applied on this host)
+     */
+    Map<String, Object> describe(Settings settings) {
+        Map<String, Object> effective = new LinkedHashMap<>();
+        effective.put("priorityClass", settings.priorityClass.getValue());
+        if (WINDOWS) {
+            if (settings.priorityClass == Job.PriorityClass.BATCH) {
+                effective.put("windowsPriority", "BelowNormal");
+            } else if (settings.priorityClass == Job.PriorityClass.LATENCY_CRITICAL) {
+                effective.put("windowsPriority", "AboveNormal");
+            }
+            if (!settings.cpus.isEmpty()) {
+                effective.put("cpus", settings.cpus);
+            }
+            return effective;
+        }
+        if (settings.nice != null && (settings.nice == 0 || findTool("nice") != null)) {
+            effective.put("nice", settings.nice);
+        }
+        if (settings.ioLevel != null && findTool("ionice") != null) {
+            effective.put("ioClass", "best-effort");
+            effective.put("ioLevel", settings.ioLevel);
+        }
+        if (!settings.cpus.isEmpty() && findTool("taskset") != null) {
+            effective.put("cpus", settings.cpus);
+        }
+        return effective;
+    }
+
+    // ==================== Private Methods ====================
+
+    private void addTool(List<String> command, String tool, String... args) {
+        String path = findTool(tool);
+        if (path != null) {
+            command.add(path);
+            command.addAll(Arrays.asList(args));
+        }
+    }
+
+    /**
+     * Absolute path of a tool on the PATH, or null (warned once) if it is missing
+     */
+    private String findTool(String tool) {
+        String path = tools.computeIfAbsent(tool, t -> {
+            String pathEnv = System.getenv("PATH");
+            if (pathEnv != null) {
+                for (String dir : pathEnv.split(File.pathSeparator)) {
+                    File file = new File(dir, t);
+                    if (file.isFile() && file.canExecute()) {
+                        return file.getAbsolutePath();
+                    }
+                }
+            }
+            return "";
+        });
+        if (path.isEmpty()) {
+            if (warnedTools.add(tool)) {
+                LOGGER.warning(tool + " not found on PATH, job priority settings using it are not applied");
+            }
+            return null;
+        }
+        return path;
+    }
+
+    private static long affinityMask(String cpus) {
+        long mask = 0;
+        for (String range : cpus.split(",")) {
+            String[] bounds = range.split("-");
+            int from = Integer.parseInt(bounds[0]);
+            int to = bounds.length > 1 ? Integer.parseInt(bounds[1]) : from;
+            for (int cpu = from; cpu <= to && cpu < 64; cpu++) {
+                mask |= 1L << cpu;
+            }
+        }
+        return mask;
+    }
+
+    // ==================== Settings ====================
+
+    /**
+     * Resolved priority settings of a launch
+     */
+    static class Settings {
+        private final Job.PriorityClass priorityClass;
+        private final Integer nice;
+        private final Integer ioLevel;
+        private final String cpus;
+
+        Settings(Job.PriorityClass priorityClass, Integer nice, Integer ioLevel, String cpus) {
+            this.priorityClass = priorityClass;
+            this.nice = nice;
+            this.ioLevel = ioLevel;
+            this.cpus = cpus;
+        }
+
+        @Override
+        public String toString() {
+            return priorityClass.getValue() + "/" + cpus;
+        }
+    }
+}
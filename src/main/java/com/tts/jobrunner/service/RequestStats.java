@@ -0,0 +1,312 @@
+package com.tts.jobrunner.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Latency and response size of API requests per route, for GET /api/diagnostics/latency.
+ *
+ * Each route keeps log-linear histograms (HdrHistogram-style: 16 buckets per power of
+ * two, so percentiles are within 1/16 of the real value) in an AtomicLongArray, plus
+ * LongAdder totals; recording takes no lock. For requests answered on their own thread
+ * the CPU time is recorded as well: wall time far above CPU time means the request
+ * waited (for a lock, the disk or a process), not computed. ApiServlet reports where
+ * the time of a response went (build, serialize) through phase(). Requests slower than
+ * [global] slow_request_ms are logged and the latest are kept for the view.
+ * Compatible with Java 11+
+ */
+public class RequestStats {
+    private static final Logger LOGGER = Logger.getLogger(RequestStats.class.getName());
+    private static final int RECENT_SLOW = 50;  // Slow requests kept for the view
+    private static final ThreadLocal<Sample> CURRENT = new ThreadLocal<>();
+    private static RequestStats instance;
+
+    public static final int BUILD = 0;      // Gathering the data of a response
+    public static final int SERIALIZE = 1;  // Gson
+    private static final String[] PHASES = {"build", "serialize"};
+
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();  // By "METHOD route"
+    private final Deque<Map<String, Object>> slow = new ArrayDeque<>();   // Newest first
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTime;
+    private final long since = System.currentTimeMillis();
+
+    private RequestStats() {
+        this.cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+    }
+
+    public static synchronized RequestStats getInstance() {
+        if (instance == null) {
+            instance = new RequestStats();
+        }
+        return instance;
+    }
+
+    /**
+     * Timing of one request in progress
+     */
+    public static class Sample {
+        final long start = System.nanoTime();
+        final long cpuStart;
+        final long[] phases = new long[PHASES.length];
+        long cpuNanos = -1;  // CPU time of the request thread, -1 if unknown (async)
+
+        Sample(long cpuStart) {
+            this.cpuStart = cpuStart;
+        }
+    }
+
+    /**
+     * Log-linear histogram of non-negative values (nanoseconds, bytes)
+     */
+    public static class Buckets {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS) * SUB_COUNT);
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public void record(long value) {
+            value = Math.max(0, value);
+            counts.incrementAndGet(index(value));
+            total.increment();
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return total.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Highest value of the bucket that holds the given percentile (0-100), at most the max
+         */
+        public long percentile(double percentile) {
+            long count = total.sum();
+            if (count == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= target) {
+                    return Math.min(max.get(), lowest(i + 1) - 1);
+                }
+            }
+            return max.get();
+        }
+
+        private static int index(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        private static long lowest(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int exponent = index / SUB_COUNT + SUB_BITS - 1;
+            long base = (long) (SUB_COUNT + index % SUB_COUNT) << (exponent - SUB_BITS);
+            return base < 0 ? Long.MAX_VALUE : base;
+        }
+    }
+
+    /**
+     * Totals and histograms of one route
+     */
+    private static class Route {
+        final String method;
+        final String route;
+        final LongAdder serverErrors = new LongAdder();
+        final LongAdder clientErrors = new LongAdder();
+        final LongAdder slow = new LongAdder();
+        final LongAdder wallNanos = new LongAdder();
+        final LongAdder cpuNanos = new LongAdder();
+        final LongAdder cpuCount = new LongAdder();  // Requests with a known CPU time
+        final LongAdder cpuWallNanos = new LongAdder();  // Wall time of those requests
+        final LongAdder[] phases = new LongAdder[PHASES.length];
+        final LongAdder bytes = new LongAdder();
+        final Buckets latency = new Buckets();
+        final Buckets size = new Buckets();
+
+        Route(String method, String route) {
+            this.method = method;
+            this.route = route;
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new LongAdder();
+            }
+        }
+    }
+
+    // ==================== Recording ====================
+
+    /**
+     * Start timing a request on the current thread
+     */
+    public Sample begin() {
+        Sample sample = new Sample(cpuTime ? threads.getCurrentThreadCpuTime() : -1);
+        CURRENT.set(sample);
+        return sample;
+    }
+
+    /**
+     * The request thread is done with the sample (the request may still be completed
+     * asynchronously); takes its CPU time unless it continues on another thread
+     */
+    public void detach(Sample sample, boolean async) {
+        CURRENT.remove();
+        if (!async && sample.cpuStart >= 0) {
+            sample.cpuNanos = threads.getCurrentThreadCpuTime() - sample.cpuStart;
+        }
+    }
+
+    /**
+     * Add time spent in a phase (BUILD, SERIALIZE) to the request on this thread, if any
+     */
+    public static void phase(int phase, long nanos) {
+        Sample sample = CURRENT.get();
+        if (sample != null) {
+            sample.phases[phase] += nanos;
+        }
+    }
+
+    /**
+     * Record a finished request; route is the matched pattern (e.g. "/jobs/{id}").
+     * Returns its latency in nanoseconds.
+     */
+    public long end(Sample sample, String method, String route, String uri, int status, long bytes,
+                    int slowRequestMs) {
+        long nanos = System.nanoTime() - sample.start;
+        String key = method + " " + route;
+        Route stats = routes.get(key);
+        if (stats == null) {
+            stats = routes.computeIfAbsent(key, k -> new Route(method, route));
+        }
+        stats.latency.record(nanos);
+        stats.size.record(bytes);
+        stats.wallNanos.add(nanos);
+        stats.bytes.add(bytes);
+        if (status >= 500) {
+            stats.serverErrors.increment();
+        } else if (status >= 400) {
+            stats.clientErrors.increment();
+        }
+        if (sample.cpuNanos >= 0) {
+            stats.cpuNanos.add(sample.cpuNanos);
+            stats.cpuWallNanos.add(nanos);
+            stats.cpuCount.increment();
+        }
+        for (int i = 0; i < PHASES.length; i++) {
+            if (sample.phases[i] > 0) {
+                stats.phases[i].add(sample.phases[i]);
+            }
+        }
+
+        if (slowRequestMs > 0 && nanos >= slowRequestMs * 1_000_000L) {
+            stats.slow.increment();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("time", System.currentTimeMillis());
+            entry.put("method", method);
+            entry.put("uri", uri);
+            entry.put("route", route);
+            entry.put("status", status);
+            entry.put("ms", millis(nanos));
+            entry.put("cpuMs", sample.cpuNanos >= 0 ? millis(sample.cpuNanos) : null);
+            for (int i = 0; i < PHASES.length; i++) {
+                entry.put(PHASES[i] + "Ms", sample.phases[i] > 0 ? millis(sample.phases[i]) : null);
+            }
+            entry.put("bytes", bytes);
+            synchronized (slow) {
+                slow.addFirst(entry);
+                if (slow.size() > RECENT_SLOW) {
+                    slow.removeLast();
+                }
+            }
+            LOGGER.warning("Slow request: " + method + " " + uri + " took " + entry.get("ms") + " ms"
+                    + (sample.cpuNanos >= 0 ? " (cpu " + entry.get("cpuMs") + " ms" + describePhases(sample) + ")" : "")
+                    + ", status " + status + ", " + bytes + " bytes");
+        }
+        return nanos;
+    }
+
+    // ==================== View ====================
+
+    /**
+     * Statistics per route, the routes that took the most time in total first, and the
+     * latest slow requests
+     */
+    public Map<String, Object> describe(int slowRequestMs) {
+        List<Route> sorted = new ArrayList<>(routes.values());
+        sorted.sort(Comparator.comparingLong((Route route) -> route.wallNanos.sum()).reversed());
+
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Route route : sorted) {
+            long count = route.latency.getCount();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("method", route.method);
+            entry.put("route", route.route);
+            entry.put("count", count);
+            entry.put("clientErrors", route.clientErrors.sum());
+            entry.put("serverErrors", route.serverErrors.sum());
+            entry.put("slow", route.slow.sum());
+            entry.put("totalMs", millis(route.wallNanos.sum()));
+            entry.put("meanMs", count > 0 ? millis(route.wallNanos.sum() / count) : 0);
+            entry.put("p50Ms", millis(route.latency.percentile(50)));
+            entry.put("p90Ms", millis(route.latency.percentile(90)));
+            entry.put("p99Ms", millis(route.latency.percentile(99)));
+            entry.put("maxMs", millis(route.latency.getMax()));
+            long cpuCount = route.cpuCount.sum();
+            if (cpuCount > 0) {
+                long cpu = route.cpuNanos.sum() / cpuCount;
+                entry.put("cpuMeanMs", millis(cpu));
+                entry.put("waitMeanMs", millis(Math.max(0, route.cpuWallNanos.sum() / cpuCount - cpu)));
+            }
+            for (int i = 0; i < PHASES.length; i++) {
+                entry.put(PHASES[i] + "MeanMs", count > 0 ? millis(route.phases[i].sum() / count) : 0);
+            }
+            entry.put("bytesMean", count > 0 ? route.bytes.sum() / count : 0);
+            entry.put("bytesP99", route.size.percentile(99));
+            list.add(entry);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", since);
+        result.put("slowRequestMs", slowRequestMs);
+        result.put("cpuTime", cpuTime);
+        result.put("routes", list);
+        synchronized (slow) {
+            result.put("slowRequests", new ArrayList<>(slow));
+        }
+        return result;
+    }
+
+    // ==================== Private Methods ====================
+
+    private static String describePhases(Sample sample) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < PHASES.length; i++) {
+            if (sample.phases[i] > 0) {
+                sb.append(", ").append(PHASES[i]).append(' ').append(millis(sample.phases[i])).append(" ms");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
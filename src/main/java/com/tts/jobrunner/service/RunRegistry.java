@@ -0,0 +1,257 @@
+package com.tts.jobrunner.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Run registry - persists in-flight process-mode runs (PID, process start time,
+ * command hash) to &lt;logs_dir&gt;/.runs/registry.json, so a restarted runner can
+ * verify and re-adopt jobs that kept running.
+ *
+ * A process-mode job appends its output to its log file instead of a pipe, so the
+ * output survives the runner and nothing needs to be copied after a restart.
+ * Compatible with Java 11+
+ */
+class RunRegistry {
+    private static final Logger LOGGER = Logger.getLogger(RunRegistry.class.getName());
+    private static final String RUNS_DIR = ".runs";
+    private static final String REGISTRY_FILE = "registry.json";
+    private static final long START_TIME_TOLERANCE_MS = 1000;
+
+    private final Map<String, Entry> entries;
+    private final Gson gson;
+    private volatile File registryFile;
+
+    RunRegistry() {
+        this.entries = new ConcurrentHashMap<>();
+        this.gson = new GsonBuilder().setPrettyPrinting().create();
+    }
+
+    /**
+     * Load the registry of a previous runner from the logs dir
+     */
+    List<Entry> load(String logsDir) {
+        registryFile = registryFile(logsDir);
+        entries.clear();
+        if (!registryFile.isFile()) {
+            return Collections.emptyList();
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(registryFile), StandardCharsets.UTF_8)) {
+            List<Entry> loaded = gson.fromJson(reader, new TypeToken<List<Entry>>() { }.getType());
+            if (loaded != null) {
+                for (Entry entry : loaded) {
+                    entries.put(entry.jobId, entry);
+                }
+                return loaded;
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not read run registry: " + registryFile, e);
+        }
+        return Collections.emptyList();
+    }
+
+    void register(String logsDir, Entry entry) {
+        if (registryFile == null) {
+            registryFile = registryFile(logsDir);
+        }
+        entries.put(entry.jobId, entry);
+        save();
+    }
+
+    void remove(String jobId) {
+        if (entries.remove(jobId) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Hash of a JVM command line without argv[0] (what ProcessHandle.Info#arguments reports)
+     */
+    static String commandHash(List<String> command) {
+        return Hashes.sha256(String.join("\u0000", command.subList(1, command.size())), 8);
+    }
+
+    /**
+     * Start time of a live process in epoch millis, or 0 if the OS does not report it
+     */
+    static long processStart(ProcessHandle handle) {
+        return handle.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+    }
+
+    /**
+     * The live process of an entry, or null if it ended or the PID now belongs to another process
+     */
+    static ProcessHandle verify(Entry entry) {
+        Optional<ProcessHandle> found = ProcessHandle.of(entry.pid);
+        if (!found.isPresent() || !found.get().isAlive()) {
+            return null;
+        }
+        ProcessHandle handle = found.get();
+
+        long start = processStart(handle);
+        if (entry.processStart > 0 && start > 0 && Math.abs(start - entry.processStart) > START_TIME_TOLERANCE_MS) {
+            LOGGER.info("PID " + entry.pid + " was reused by another process, not reattaching " + entry.jobId);
+            return null;
+        }
+
+        Optional<String[]> arguments = handle.info().arguments();
+        if (arguments.isPresent() && entry.commandHash != null) {
+            List<String> command = new ArrayList<>();
+            command.add("");
+            command.addAll(Arrays.asList(arguments.get()));
+            if (!commandHash(command).equals(entry.commandHash)) {
+                LOGGER.info("PID " + entry.pid + " runs a different command, not reattaching " + entry.jobId);
+                return null;
+            }
+        }
+        return handle;
+    }
+
+    // ==================== Private Methods ====================
+
+    private static File registryFile(String logsDir) {
+        return new File(new File(logsDir, RUNS_DIR), REGISTRY_FILE);
+    }
+
+    private synchronized void save() {
+        File file = registryFile;
+        if (file == null) {
+            return;
+        }
+        try {
+            file.getParentFile().mkdirs();
+            File tmp = new File(file.getPath() + ".tmp");
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+                gson.toJson(new ArrayList<>(entries.values()), writer);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write run registry: " + file, e);
+        }
+    }
+
+    // ==================== Entry ====================
+
+    /**
+     * One in-flight run
+     */
+    static class Entry {
+        String jobId;
+        long pid;
+        long processStart;  // OS start time of the PID (guards against PID reuse)
+        String commandHash;  // Hash of the JVM arguments
+        long startTime;  // Job start time shown in the UI
+        String cgroup;  // cgroup directory, if the run has one
+        Map<String, Object> heapAllocation;
+        Map<String, Object> effectivePriority;
+    }
+
+    // ==================== Adopted Process ====================
+
+    /**
+     * A run started by a previous runner, seen through its ProcessHandle.
+     * Its output is followed from the job log. The exit code of a process that is not
+     * our child cannot be read, so waitFor and exitValue return EXIT_UNKNOWN.
+     */
+    static class AdoptedProcess extends Process {
+        static final int EXIT_UNKNOWN = Integer.MIN_VALUE;
+
+        private final ProcessHandle handle;
+
+        AdoptedProcess(ProcessHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            try {
+                handle.onExit().get();
+            } catch (ExecutionException e) {
+                // Not thrown by onExit
+            }
+            return EXIT_UNKNOWN;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            try {
+                handle.onExit().get(timeout, unit);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                return !handle.isAlive();
+            }
+        }
+
+        @Override
+        public int exitValue() {
+            if (handle.isAlive()) {
+                throw new IllegalThreadStateException("process has not exited");
+            }
+            return EXIT_UNKNOWN;
+        }
+
+        @Override
+        public void destroy() {
+            handle.destroy();
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            handle.destroyForcibly();
+            return this;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return handle.isAlive();
+        }
+
+        @Override
+        public CompletableFuture<Process> onExit() {
+            return handle.onExit().thenApply(h -> this);
+        }
+
+        @Override
+        public long pid() {
+            return handle.pid();
+        }
+
+        @Override
+        public ProcessHandle toHandle() {
+            return handle;
+        }
+    }
+}
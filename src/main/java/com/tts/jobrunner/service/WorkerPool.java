@@ -0,0 +1,520 @@
+package com.tts.jobrunner.service;
+
+import com.tts.jobrunner.model.*;
+import com.tts.jobrunner.worker.PoolWorker;
+
+import java.io.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pool of pre-started worker JVMs for jobs with execution = "pooled".
+ * Workers are keyed by their JVM command (app libraries, JVM options, priority), so jobs
+ * of the same app share a pool. Each run is exposed as a {@link Process} so the
+ * rest of JobManager (logs, status, stop, watchdog) treats it like any other job.
+ * Compatible with Java 11+
+ */
+class WorkerPool {
+    private static final Logger LOGGER = Logger.getLogger(WorkerPool.class.getName());
+    private static final String WORKER_DIR = ".pool";
+    private static final long RETIRE_GRACE_SECONDS = 10;
+
+    private final ClasspathResolver classpathResolver;
+    private final ProcessPriority processPriority;
+    private final Map<String, Deque<Worker>> idleWorkers;
+    private final Map<String, List<String>> workerCommands;
+    private final Map<String, ProcessPriority.Settings> workerPriorities;
+    private final Set<Worker> allWorkers;
+    private final ExecutorService executor;
+    private final String endMarker;
+    private volatile boolean shutdown;
+
+    WorkerPool(ClasspathResolver classpathResolver, ProcessPriority processPriority) {
+        this.classpathResolver = classpathResolver;
+        this.processPriority = processPriority;
+        this.idleWorkers = new ConcurrentHashMap<>();
+        this.workerCommands = new ConcurrentHashMap<>();
+        this.workerPriorities = new ConcurrentHashMap<>();
+        this.allWorkers = ConcurrentHashMap.newKeySet();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "JobRunner-PoolStarter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.endMarker = "@@JOBRUNNER-END-" + UUID.randomUUID() + "@@";
+    }
+
+    /**
+     * Run a job in an idle worker (starting one if the pool is empty)
+     */
+    Process run(Job job, JobsConfig config, List<String> runtimeArgs) throws IOException {
+        String key = registerCommand(job, config);
+        Deque<Worker> idle = idleWorkers.get(key);
+
+        Worker worker;
+        synchronized (idle) {
+            worker = idle.pollFirst();
+            while (worker != null && !worker.process.isAlive()) {
+                retire(worker);
+                worker = idle.pollFirst();
+            }
+        }
+        if (worker == null) {
+            LOGGER.info("No idle worker for job " + job.getId() + ", starting one");
+            worker = startWorker(key);
+        }
+
+        List<String> args = new ArrayList<>();
+        if (job.getParams() != null) {
+            args.addAll(job.getParams());
+        }
+        if (runtimeArgs != null) {
+            args.addAll(runtimeArgs);
+        }
+
+        PooledProcess run = worker.dispatch(buildClassesPath(job, config), job.getMainClass(), args);
+        replenishAsync(key);
+        return run;
+    }
+
+    /**
+     * Worker JVMs alive (idle and busy, all pools)
+     */
+    int getWorkerCount() {
+        return allWorkers.size();
+    }
+
+    /**
+     * Pre-start workers for every enabled pooled job
+     */
+    void warmUp(JobsConfig config) {
+        for (Job job : config.getJobs()) {
+            if (job.isEnabled() && job.isPooled()) {
+                replenishAsync(registerCommand(job, config));
+            }
+        }
+    }
+
+    /**
+     * Replace the idle workers of a job's pool, e.g. after its app was redeployed
+     * (workers keep the WEB-INF/lib jars they started with)
+     */
+    void recycle(Job job, JobsConfig config) {
+        String key = registerCommand(job, config);
+        Deque<Worker> idle = idleWorkers.get(key);
+        List<Worker> retired = new ArrayList<>();
+        synchronized (idle) {
+            retired.addAll(idle);
+            idle.clear();
+        }
+        for (Worker worker : retired) {
+            retire(worker);
+        }
+        if (!retired.isEmpty()) {
+            LOGGER.info("Recycled " + retired.size() + " idle worker(s) for job " + job.getId());
+        }
+        replenishAsync(key);
+    }
+
+    void shutdown() {
+        shutdown = true;
+        executor.shutdownNow();
+        for (Worker worker : new ArrayList<>(allWorkers)) {
+            worker.process.destroyForcibly();
+        }
+        allWorkers.clear();
+        idleWorkers.clear();
+    }
+
+    // ==================== Pool Management ====================
+
+    private String registerCommand(Job job, JobsConfig config) {
+        // Workers run with the job's priority settings, so each priority class gets its own pool
+        ProcessPriority.Settings priority = processPriority.resolve(job);
+        List<String> command = processPriority.wrap(priority, buildWorkerCommand(job, config));
+        String key = String.join("\u0000", command) + "\u0000" + priority;
+        workerCommands.putIfAbsent(key, command);
+        workerPriorities.putIfAbsent(key, priority);
+        idleWorkers.computeIfAbsent(key, k -> new ArrayDeque<>());
+        return key;
+    }
+
+    private void replenishAsync(String key) {
+        if (shutdown) {
+            return;
+        }
+        try {
+            executor.execute(() -> replenish(key));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+        }
+    }
+
+    private void replenish(String key) {
+        int poolSize = ConfigManager.getInstance().getConfig().getGlobal().getPoolSize();
+        Deque<Worker> idle = idleWorkers.get(key);
+        if (idle == null) {
+            return;
+        }
+        try {
+            while (!shutdown && countWorkers(key) < poolSize) {
+                Worker worker = startWorker(key);
+                synchronized (idle) {
+                    idle.offerLast(worker);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not start pooled worker", e);
+        }
+    }
+
+    /**
+     * Called when a run ends normally: keep the worker warm unless it is due for recycling
+     */
+    private void release(Worker worker, int exitCode) {
+        GlobalConfig global = ConfigManager.getInstance().getConfig().getGlobal();
+        Deque<Worker> idle = idleWorkers.get(worker.key);
+
+        if (shutdown || idle == null || exitCode != 0 || worker.runs >= global.getPoolMaxRuns()) {
+            retire(worker);
+            replenishAsync(worker.key);
+            return;
+        }
+
+        if (countWorkers(worker.key) > global.getPoolSize()) {
+            // Extra worker started while the pool was busy
+            retire(worker);
+            return;
+        }
+        synchronized (idle) {
+            // Most recently used first - keeps the warmest JVMs busy
+            idle.offerFirst(worker);
+        }
+    }
+
+    /**
+     * Idle and busy workers for a pool
+     */
+    private int countWorkers(String key) {
+        int count = 0;
+        for (Worker worker : allWorkers) {
+            if (worker.key.equals(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void retire(Worker worker) {
+        allWorkers.remove(worker);
+        worker.process.toHandle().destroy();
+
+        // Threads or shutdown hooks left behind by a job may keep the JVM alive
+        CompletableFuture.delayedExecutor(RETIRE_GRACE_SECONDS, TimeUnit.SECONDS).execute(() -> {
+            if (worker.process.isAlive()) {
+                worker.process.destroyForcibly();
+            }
+        });
+    }
+
+    private Worker startWorker(String key) throws IOException {
+        List<String> command = workerCommands.get(key);
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+
+        File logsDir = new File(config.getGlobal().getLogsDir());
+        extractWorkerClass(logsDir);
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        pb.directory(logsDir);
+        pb.environment().put("JAVA_HOME", config.getGlobal().getJavaHome());
+
+        Worker worker = new Worker(key, pb.start());
+        processPriority.applyAfterStart(workerPriorities.get(key), worker.process);
+        allWorkers.add(worker);
+        LOGGER.info("Started pooled worker (PID: " + worker.process.pid() + ")");
+        return worker;
+    }
+
+    private List<String> buildWorkerCommand(Job job, JobsConfig config) {
+        List<String> command = new ArrayList<>();
+        command.add(config.getGlobal().getJavaCmd());
+        addOpts(command, config.getGlobal().getJavaOpts());
+        addOpts(command, job.getJavaOpts());
+
+        // Libraries live on the worker's system classpath and stay loaded between runs;
+        // WEB-INF/classes is loaded per run (see buildClassesPath)
+        StringBuilder cp = new StringBuilder();
+        cp.append(new File(config.getGlobal().getLogsDir(), WORKER_DIR).getAbsolutePath());
+        for (String appId : job.getApps()) {
+            AppConfig app = config.getApp(appId);
+            if (app != null) {
+                for (String jar : classpathResolver.getLibJars(app)) {
+                    cp.append(File.pathSeparator).append(jar);
+                }
+            }
+        }
+        String configDir = config.getGlobal().getConfigDir();
+        if (configDir != null && !configDir.isEmpty()) {
+            cp.append(File.pathSeparator).append(configDir);
+        }
+
+        command.addAll(classpathResolver.classpathArgs(config.getGlobal(), cp.toString()));
+        command.add(PoolWorker.class.getName());
+        command.add(endMarker);
+        return command;
+    }
+
+    private String buildClassesPath(Job job, JobsConfig config) {
+        StringBuilder cp = new StringBuilder();
+        for (String appId : job.getApps()) {
+            AppConfig app = config.getApp(appId);
+            if (app != null) {
+                if (cp.length() > 0) {
+                    cp.append(File.pathSeparator);
+                }
+                cp.append(app.getClassesPath());
+            }
+        }
+        return cp.toString();
+    }
+
+    private void addOpts(List<String> command, String opts) {
+        if (opts != null && !opts.isEmpty()) {
+            for (String opt : opts.split("\\s+")) {
+                if (!opt.isEmpty()) {
+                    command.add(opt);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the worker class out of the webapp so the child JVM can load it
+     * without the runner's own classpath
+     */
+    private synchronized void extractWorkerClass(File logsDir) throws IOException {
+        String resource = PoolWorker.class.getSimpleName() + ".class";
+        File target = new File(logsDir, WORKER_DIR + File.separator
+                + PoolWorker.class.getPackage().getName().replace('.', File.separatorChar)
+                + File.separator + resource);
+        if (target.exists()) {
+            return;
+        }
+        target.getParentFile().mkdirs();
+        try (InputStream in = PoolWorker.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Worker class not found: " + resource);
+            }
+            Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    // ==================== Worker ====================
+
+    private class Worker {
+        final String key;
+        final Process process;
+        final Writer requests;
+        volatile PooledProcess current;
+        int runs;
+
+        Worker(String key, Process process) {
+            this.key = key;
+            this.process = process;
+            this.requests = new BufferedWriter(
+                    new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+            Thread pump = new Thread(this::pump, "JobRunner-PoolWorker-" + process.pid());
+            pump.setDaemon(true);
+            pump.start();
+        }
+
+        PooledProcess dispatch(String classesPath, String mainClass, List<String> args) throws IOException {
+            PooledProcess run = new PooledProcess(process);
+            current = run;
+            runs++;
+
+            StringBuilder request = new StringBuilder("RUN ");
+            request.append(encode(classesPath)).append(' ').append(encode(mainClass));
+            for (String arg : args) {
+                request.append(' ').append(encode(arg));
+            }
+            try {
+                requests.write(request.append('\n').toString());
+                requests.flush();
+            } catch (IOException e) {
+                current = null;
+                retire(this);
+                throw e;
+            }
+            return run;
+        }
+
+        /**
+         * Route worker output to the current run until its end marker arrives
+         */
+        private void pump() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int idx = line.indexOf(endMarker);
+                    PooledProcess run = current;
+                    if (idx < 0) {
+                        if (run != null) {
+                            run.deliver(line);
+                        }
+                        continue;
+                    }
+
+                    if (idx > 0 && run != null) {
+                        run.deliver(line.substring(0, idx));
+                    }
+                    int exitCode = parseExitCode(line.substring(idx + endMarker.length()).trim());
+                    current = null;
+                    if (run != null) {
+                        run.finish(exitCode);
+                        release(this, exitCode);
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Pooled worker output closed", e);
+            }
+
+            // Worker JVM exited (System.exit in the job, crash, or stopped)
+            int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exitCode = -1;
+            }
+            PooledProcess run = current;
+            current = null;
+            allWorkers.remove(this);
+            if (run != null) {
+                run.finish(exitCode);
+                replenishAsync(key);
+            }
+        }
+
+        private int parseExitCode(String value) {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return 1;
+            }
+        }
+    }
+
+    // ==================== Pooled Run ====================
+
+    /**
+     * One job invocation inside a worker, presented as a Process.
+     * Stopping the run stops the worker, which is never reused afterwards.
+     */
+    static class PooledProcess extends Process {
+        private final Process worker;
+        private final PipedInputStream output;
+        private final PipedOutputStream sink;
+        private final CountDownLatch done;
+        private volatile int exitCode;
+
+        PooledProcess(Process worker) throws IOException {
+            this.worker = worker;
+            this.output = new PipedInputStream(65536);
+            this.sink = new PipedOutputStream(output);
+            this.done = new CountDownLatch(1);
+        }
+
+        void deliver(String line) {
+            try {
+                sink.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                sink.flush();
+            } catch (IOException e) {
+                // Log reader has gone away
+            }
+        }
+
+        void finish(int exitCode) {
+            this.exitCode = exitCode;
+            try {
+                sink.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            done.countDown();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return output;
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return InputStream.nullInputStream();
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            done.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+
+        @Override
+        public int exitValue() {
+            if (done.getCount() > 0) {
+                throw new IllegalThreadStateException("Pooled run has not exited");
+            }
+            return exitCode;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return done.getCount() > 0;
+        }
+
+        @Override
+        public void destroy() {
+            worker.toHandle().destroy();
+        }
+
+        @Override
+        public Process destroyForcibly() {
+            worker.destroyForcibly();
+            return this;
+        }
+
+        @Override
+        public long pid() {
+            return worker.pid();
+        }
+
+        @Override
+        public ProcessHandle toHandle() {
+            return worker.toHandle();
+        }
+    }
+}
@@ -1,626 +1,1208 @@
-package com.tts.jobrunner.servlet;
-
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.tts.jobrunner.model.*;
-import com.tts.jobrunner.service.ConfigManager;
-import com.tts.jobrunner.service.JobManager;
-
-import jakarta.servlet.ServletException;
-import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-
-/**
- * REST API Servlet for Job Runner.
- * Handles all API endpoints.
- * Compatible with Java 8+
- */
-@WebServlet(urlPatterns = {"/api/*"}, loadOnStartup = 1)
-public class ApiServlet extends HttpServlet {
-    private static final long serialVersionUID = 1L;
-    private static final Logger LOGGER = Logger.getLogger(ApiServlet.class.getName());
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-
-    @Override
-    public void init() throws ServletException {
-        super.init();
-        String webappPath = getServletContext().getRealPath("/");
-        ConfigManager.getInstance().init(webappPath);
-        LOGGER.info("Job Runner API initialized");
-    }
-
-    @Override
-    public void destroy() {
-        JobManager.getInstance().shutdown();
-        LOGGER.info("Job Runner API shutdown");
-        super.destroy();
-    }
-
-    @Override
-    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
-            throws ServletException, IOException {
-        String pathInfo = req.getPathInfo();
-        if (pathInfo == null) pathInfo = "/";
-
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try {
-            if (pathInfo.equals("/jobs") || pathInfo.equals("/jobs/")) {
-                // GET /api/jobs - List all jobs with status
-                handleListJobs(req, resp);
-
-            } else if (pathInfo.matches("/jobs/[^/]+/logs")) {
-                // GET /api/jobs/{id}/logs - Get job logs
-                String jobId = pathInfo.split("/")[2];
-                handleGetLogs(jobId, req, resp);
-
-            } else if (pathInfo.matches("/jobs/[^/]+")) {
-                // GET /api/jobs/{id} - Get single job
-                String jobId = pathInfo.split("/")[2];
-                handleGetJob(jobId, resp);
-
-            } else if (pathInfo.equals("/config") || pathInfo.equals("/config/")) {
-                // GET /api/config - Get full config
-                handleGetConfig(resp);
-
-            } else if (pathInfo.equals("/apps") || pathInfo.equals("/apps/")) {
-                // GET /api/apps - List all apps
-                handleListApps(resp);
-
-            } else if (pathInfo.equals("/status") || pathInfo.equals("/status/")) {
-                // GET /api/status - System status
-                handleStatus(resp);
-
-            } else {
-                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found: " + pathInfo);
-            }
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error handling GET " + pathInfo, e);
-            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
-        }
-    }
-
-    @Override
-    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
-            throws ServletException, IOException {
-        String pathInfo = req.getPathInfo();
-        if (pathInfo == null) pathInfo = "/";
-
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try {
-            if (pathInfo.matches("/jobs/[^/]+/start")) {
-                // POST /api/jobs/{id}/start - Start a job (with optional runtime args)
-                String jobId = pathInfo.split("/")[2];
-                handleStartJob(jobId, req, resp);
-
-            } else if (pathInfo.matches("/jobs/[^/]+/stop")) {
-                // POST /api/jobs/{id}/stop - Stop a job
-                String jobId = pathInfo.split("/")[2];
-                handleStopJob(jobId, resp);
-
-            } else if (pathInfo.matches("/jobs/[^/]+/restart")) {
-                // POST /api/jobs/{id}/restart - Restart a job
-                String jobId = pathInfo.split("/")[2];
-                handleRestartJob(jobId, resp);
-
-            } else if (pathInfo.matches("/jobs/[^/]+/logs/clear")) {
-                // POST /api/jobs/{id}/logs/clear - Clear job logs
-                String jobId = pathInfo.split("/")[2];
-                handleClearLogs(jobId, resp);
-
-            } else if (pathInfo.equals("/jobs") || pathInfo.equals("/jobs/")) {
-                // POST /api/jobs - Create new job
-                handleCreateJob(req, resp);
-
-            } else if (pathInfo.equals("/apps") || pathInfo.equals("/apps/")) {
-                // POST /api/apps - Create new app
-                handleCreateApp(req, resp);
-
-            } else if (pathInfo.equals("/config/reload")) {
-                // POST /api/config/reload - Reload config
-                handleReloadConfig(resp);
-
-            } else if (pathInfo.equals("/jobs/start-all")) {
-                // POST /api/jobs/start-all - Start all continuous jobs
-                handleStartAllJobs(resp);
-
-            } else if (pathInfo.equals("/jobs/stop-all")) {
-                // POST /api/jobs/stop-all - Stop all jobs
-                handleStopAllJobs(resp);
-
-            } else {
-                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found: " + pathInfo);
-            }
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error handling POST " + pathInfo, e);
-            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
-        }
-    }
-
-    @Override
-    protected void doPut(HttpServletRequest req, HttpServletResponse resp)
-            throws ServletException, IOException {
-        String pathInfo = req.getPathInfo();
-        if (pathInfo == null) pathInfo = "/";
-
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try {
-            if (pathInfo.matches("/jobs/[^/]+")) {
-                // PUT /api/jobs/{id} - Update job
-                String jobId = pathInfo.split("/")[2];
-                handleUpdateJob(jobId, req, resp);
-
-            } else if (pathInfo.matches("/apps/[^/]+")) {
-                // PUT /api/apps/{id} - Update app
-                String appId = pathInfo.split("/")[2];
-                handleUpdateApp(appId, req, resp);
-
-            } else if (pathInfo.equals("/config/global")) {
-                // PUT /api/config/global - Update global config
-                handleUpdateGlobalConfig(req, resp);
-
-            } else {
-                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found: " + pathInfo);
-            }
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error handling PUT " + pathInfo, e);
-            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
-        }
-    }
-
-    @Override
-    protected void doDelete(HttpServletRequest req, HttpServletResponse resp)
-            throws ServletException, IOException {
-        String pathInfo = req.getPathInfo();
-        if (pathInfo == null) pathInfo = "/";
-
-        resp.setContentType("application/json");
-        resp.setCharacterEncoding("UTF-8");
-
-        try {
-            if (pathInfo.matches("/jobs/[^/]+")) {
-                // DELETE /api/jobs/{id} - Delete job
-                String jobId = pathInfo.split("/")[2];
-                handleDeleteJob(jobId, resp);
-
-            } else if (pathInfo.matches("/apps/[^/]+")) {
-                // DELETE /api/apps/{id} - Delete app
-                String appId = pathInfo.split("/")[2];
-                handleDeleteApp(appId, resp);
-
-            } else {
-                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found: " + pathInfo);
-            }
-
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error handling DELETE " + pathInfo, e);
-            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
-        }
-    }
-
-    // ==================== Handler Methods ====================
-
-    private void handleListJobs(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        JobManager jobManager = JobManager.getInstance();
-        jobManager.refreshAllJobStatus();
-
-        JobsConfig config = ConfigManager.getInstance().getConfig();
-        List<Map<String, Object>> jobList = new ArrayList<>();
-
-        for (Job job : config.getJobs()) {
-            Map<String, Object> jobMap = new LinkedHashMap<>();
-            jobMap.put("id", job.getId());
-            jobMap.put("name", job.getName());
-            jobMap.put("apps", job.getApps());
-            jobMap.put("mainClass", job.getMainClass());
-            jobMap.put("type", job.getType().getValue());
-            jobMap.put("enabled", job.isEnabled());
-            jobMap.put("status", job.getStatus().getValue());
-            jobMap.put("pid", job.getPid());
-            jobMap.put("startTime", job.getStartTime());
-            jobMap.put("description", job.getDescription());
-            jobMap.put("argsRequired", job.isArgsRequired());
-            jobMap.put("javaOpts", job.getJavaOpts());
-            jobList.add(jobMap);
-        }
-
-        sendJson(resp, jobList);
-    }
-
-    private void handleGetJob(String jobId, HttpServletResponse resp) throws IOException {
-        Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
-        if (job == null) {
-            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Job not found: " + jobId);
-            return;
-        }
-
-        JobManager.getInstance().getJobStatus(jobId); // Refresh status
-        sendJson(resp, job);
-    }
-
-    private void handleGetLogs(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String linesParam = req.getParameter("lines");
-        int lines = linesParam != null ? Integer.parseInt(linesParam) : 100;
-
-        String logs = JobManager.getInstance().getJobLogs(jobId, lines);
-
-        Map<String, Object> result = new LinkedHashMap<>();
-        result.put("jobId", jobId);
-        result.put("logs", logs);
-        result.put("lines", lines);
-
-        sendJson(resp, result);
-    }
-
-    private void handleStartJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        // Parse optional runtime arguments from request body
-        List<String> runtimeArgs = parseRuntimeArgs(req);
-
-        JobManager.JobResult result = JobManager.getInstance().startJob(jobId, runtimeArgs);
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", result.isSuccess());
-        response.put("message", result.getMessage());
-        response.put("pid", result.getPid());
-
-        resp.setStatus(result.isSuccess() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
-        sendJson(resp, response);
-    }
-
-    private void handleStopJob(String jobId, HttpServletResponse resp) throws IOException {
-        JobManager.JobResult result = JobManager.getInstance().stopJob(jobId);
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", result.isSuccess());
-        response.put("message", result.getMessage());
-
-        resp.setStatus(result.isSuccess() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
-        sendJson(resp, response);
-    }
-
-    private void handleRestartJob(String jobId, HttpServletResponse resp) throws IOException {
-        JobManager jobManager = JobManager.getInstance();
-        jobManager.stopJob(jobId);
-
-        // Wait a bit for clean shutdown
-        try { Thread.sleep(1000); } catch (InterruptedException e) { /* ignore */ }
-
-        JobManager.JobResult result = jobManager.startJob(jobId);
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", result.isSuccess());
-        response.put("message", "Restart: " + result.getMessage());
-        response.put("pid", result.getPid());
-
-        sendJson(resp, response);
-    }
-
-    private void handleClearLogs(String jobId, HttpServletResponse resp) throws IOException {
-        JobManager.getInstance().clearJobLogs(jobId);
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", true);
-        response.put("message", "Logs cleared for job: " + jobId);
-
-        sendJson(resp, response);
-    }
-
-    private void handleCreateJob(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String body = readBody(req);
-        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-
-        Job job = new Job();
-        job.setId(json.get("id").getAsString());
-        job.setName(json.get("name").getAsString());
-        job.setMainClass(json.get("mainClass").getAsString());
-
-        if (json.has("app")) {
-            if (json.get("app").isJsonArray()) {
-                List<String> apps = new ArrayList<>();
-                json.get("app").getAsJsonArray().forEach(e -> apps.add(e.getAsString()));
-                job.setApps(apps);
-            } else {
-                job.setApp(json.get("app").getAsString());
-            }
-        }
-
-        if (json.has("type")) {
-            job.setType(json.get("type").getAsString());
-        }
-        if (json.has("enabled")) {
-            job.setEnabled(json.get("enabled").getAsBoolean());
-        }
-        if (json.has("description")) {
-            job.setDescription(json.get("description").getAsString());
-        }
-        if (json.has("params")) {
-            List<String> params = new ArrayList<>();
-            json.get("params").getAsJsonArray().forEach(e -> params.add(e.getAsString()));
-            job.setParams(params);
-        }
-        if (json.has("javaOpts") && !json.get("javaOpts").isJsonNull()) {
-            job.setJavaOpts(json.get("javaOpts").getAsString());
-        }
-
-        ConfigManager configManager = ConfigManager.getInstance();
-        configManager.getConfig().addJob(job);
-        configManager.saveConfig();
-
-        resp.setStatus(HttpServletResponse.SC_CREATED);
-        sendJson(resp, job);
-    }
-
-    private void handleUpdateJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        ConfigManager configManager = ConfigManager.getInstance();
-        Job job = configManager.getConfig().getJob(jobId);
-
-        if (job == null) {
-            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Job not found: " + jobId);
-            return;
-        }
-
-        String body = readBody(req);
-        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-
-        if (json.has("name")) job.setName(json.get("name").getAsString());
-        if (json.has("mainClass")) job.setMainClass(json.get("mainClass").getAsString());
-        if (json.has("type")) job.setType(json.get("type").getAsString());
-        if (json.has("enabled")) job.setEnabled(json.get("enabled").getAsBoolean());
-        if (json.has("description")) job.setDescription(json.get("description").getAsString());
-        if (json.has("javaOpts")) {
-            String opts = json.get("javaOpts").isJsonNull() ? "" : json.get("javaOpts").getAsString();
-            job.setJavaOpts(opts.isEmpty() ? null : opts);
-        }
-
-        if (json.has("app")) {
-            if (json.get("app").isJsonArray()) {
-                List<String> apps = new ArrayList<>();
-                json.get("app").getAsJsonArray().forEach(e -> apps.add(e.getAsString()));
-                job.setApps(apps);
-            } else {
-                job.setApp(json.get("app").getAsString());
-            }
-        }
-
-        configManager.saveConfig();
-        sendJson(resp, job);
-    }
-
-    private void handleDeleteJob(String jobId, HttpServletResponse resp) throws IOException {
-        ConfigManager configManager = ConfigManager.getInstance();
-
-        // Stop job if running
-        JobManager.getInstance().stopJob(jobId);
-
-        configManager.getConfig().removeJob(jobId);
-        configManager.saveConfig();
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", true);
-        response.put("message", "Job deleted: " + jobId);
-
-        sendJson(resp, response);
-    }
-
-    private void handleListApps(HttpServletResponse resp) throws IOException {
-        Map<String, AppConfig> apps = ConfigManager.getInstance().getConfig().getApps();
-        sendJson(resp, apps.values());
-    }
-
-    private void handleCreateApp(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String body = readBody(req);
-        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-
-        AppConfig app = new AppConfig();
-        app.setId(json.get("id").getAsString());
-        app.setName(json.get("name").getAsString());
-        app.setWebappPath(json.get("webappPath").getAsString());
-
-        ConfigManager configManager = ConfigManager.getInstance();
-        configManager.getConfig().addApp(app);
-        configManager.saveConfig();
-
-        resp.setStatus(HttpServletResponse.SC_CREATED);
-        sendJson(resp, app);
-    }
-
-    private void handleUpdateApp(String appId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        ConfigManager configManager = ConfigManager.getInstance();
-        AppConfig app = configManager.getConfig().getApp(appId);
-
-        if (app == null) {
-            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "App not found: " + appId);
-            return;
-        }
-
-        String body = readBody(req);
-        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-
-        if (json.has("name")) app.setName(json.get("name").getAsString());
-        if (json.has("webappPath")) app.setWebappPath(json.get("webappPath").getAsString());
-
-        configManager.saveConfig();
-        sendJson(resp, app);
-    }
-
-    private void handleDeleteApp(String appId, HttpServletResponse resp) throws IOException {
-        ConfigManager configManager = ConfigManager.getInstance();
-        configManager.getConfig().getApps().remove(appId);
-        configManager.saveConfig();
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", true);
-        response.put("message", "App deleted: " + appId);
-
-        sendJson(resp, response);
-    }
-
-    private void handleGetConfig(HttpServletResponse resp) throws IOException {
-        sendJson(resp, ConfigManager.getInstance().getConfig());
-    }
-
-    private void handleUpdateGlobalConfig(HttpServletRequest req, HttpServletResponse resp) throws IOException {
-        String body = readBody(req);
-        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-
-        ConfigManager configManager = ConfigManager.getInstance();
-        GlobalConfig global = configManager.getConfig().getGlobal();
-
-        if (json.has("javaHome")) global.setJavaHome(json.get("javaHome").getAsString());
-        if (json.has("javaOpts")) global.setJavaOpts(json.get("javaOpts").getAsString());
-        if (json.has("configDir")) global.setConfigDir(json.get("configDir").getAsString());
-        if (json.has("logsDir")) global.setLogsDir(json.get("logsDir").getAsString());
-
-        configManager.saveConfig();
-        sendJson(resp, global);
-    }
-
-    private void handleReloadConfig(HttpServletResponse resp) throws IOException {
-        ConfigManager.getInstance().loadConfig();
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", true);
-        response.put("message", "Configuration reloaded");
-
-        sendJson(resp, response);
-    }
-
-    private void handleStartAllJobs(HttpServletResponse resp) throws IOException {
-        JobsConfig config = ConfigManager.getInstance().getConfig();
-        List<String> started = new ArrayList<>();
-        List<String> failed = new ArrayList<>();
-
-        for (Job job : config.getJobs()) {
-            if (job.isEnabled() && job.getType() == Job.JobType.CONTINUOUS) {
-                JobManager.JobResult result = JobManager.getInstance().startJob(job.getId());
-                if (result.isSuccess()) {
-                    started.add(job.getId());
-                } else {
-                    failed.add(job.getId() + ": " + result.getMessage());
-                }
-            }
-        }
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", failed.isEmpty());
-        response.put("started", started);
-        response.put("failed", failed);
-
-        sendJson(resp, response);
-    }
-
-    private void handleStopAllJobs(HttpServletResponse resp) throws IOException {
-        JobManager.getInstance().stopAllJobs();
-
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("success", true);
-        response.put("message", "All jobs stopped");
-
-        sendJson(resp, response);
-    }
-
-    private void handleStatus(HttpServletResponse resp) throws IOException {
-        JobManager jobManager = JobManager.getInstance();
-        jobManager.refreshAllJobStatus();
-
-        JobsConfig config = ConfigManager.getInstance().getConfig();
-
-        int running = 0;
-        int stopped = 0;
-        int error = 0;
-
-        for (Job job : config.getJobs()) {
-            switch (job.getStatus()) {
-                case RUNNING: running++; break;
-                case STOPPED: stopped++; break;
-                case ERROR: error++; break;
-            }
-        }
-
-        Map<String, Object> status = new LinkedHashMap<>();
-        status.put("totalJobs", config.getJobs().size());
-        status.put("running", running);
-        status.put("stopped", stopped);
-        status.put("error", error);
-        status.put("totalApps", config.getApps().size());
-        status.put("configFile", ConfigManager.getInstance().getConfigFilePath());
-        status.put("javaVersion", System.getProperty("java.version"));
-
-        sendJson(resp, status);
-    }
-
-    // ==================== Utility Methods ====================
-
-    private void sendJson(HttpServletResponse resp, Object data) throws IOException {
-        // Prevent browser caching of API responses
-        resp.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
-        resp.setHeader("Pragma", "no-cache");
-        resp.setHeader("Expires", "0");
-
-        PrintWriter out = resp.getWriter();
-        out.print(gson.toJson(data));
-        out.flush();
-    }
-
-    private void sendError(HttpServletResponse resp, int status, String message) throws IOException {
-        resp.setStatus(status);
-        Map<String, Object> error = new LinkedHashMap<>();
-        error.put("error", true);
-        error.put("message", message);
-        sendJson(resp, error);
-    }
-
-    private String readBody(HttpServletRequest req) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader reader = req.getReader()) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                sb.append(line);
-            }
-        }
-        return sb.toString();
-    }
-
-    /**
-     * Parse runtime arguments from request body.
-     * Expects JSON: { "args": ["arg1", "arg2", ...] }
-     */
-    private List<String> parseRuntimeArgs(HttpServletRequest req) {
-        try {
-            String body = readBody(req);
-            if (body == null || body.trim().isEmpty()) {
-                return null;
-            }
-
-            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
-            if (json.has("args") && json.get("args").isJsonArray()) {
-                List<String> args = new ArrayList<>();
-                for (int i = 0; i < json.get("args").getAsJsonArray().size(); i++) {
-                    args.add(json.get("args").getAsJsonArray().get(i).getAsString());
-                }
-                return args.isEmpty() ? null : args;
-            }
-        } catch (Exception e) {
-            LOGGER.fine("Could not parse runtime args: " + e.getMessage());
-        }
-        return null;
-    }
-}
+package com.tts.jobrunner.servlet;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.tts.jobrunner.model.*;
+import com.tts.jobrunner.service.ConfigManager;
+import com.tts.jobrunner.service.EventFeed;
+import com.tts.jobrunner.service.JobManager;
+import com.tts.jobrunner.service.Metrics;
+import com.tts.jobrunner.service.RequestStats;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * REST API Servlet for Job Runner.
+ * Handles all API endpoints.
+ * Compatible with Java 8+
+ */
+@WebServlet(urlPatterns = {"/api/*"}, loadOnStartup = 1, asyncSupported = true)
+public class ApiServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Logger LOGGER = Logger.getLogger(ApiServlet.class.getName());
+    private static final ThreadLocal<Boolean> PRETTY = new ThreadLocal<>();  // ?pretty on the current request
+    private final Gson gson = new GsonBuilder().create();
+    private static final long LIVE_TTL_MS = 5000;  // Max age of a cached response that holds live metrics
+    private static final int MAX_CACHED_RESPONSES = 64;  // One per endpoint and query
+    private static final long EVENTS_WAIT_MS = 25000;  // Longest wait of GET /api/events for the next event
+    private static final int EVENTS_MAX = 200;  // Events per response; the client asks again for the rest
+    private static final int MAX_LOG_LINES = 10000;  // Largest ?lines= of GET /api/jobs/{id}/logs
+    private static final long OPERATION_WAIT_MS = 60000;  // Then a waiting stop/restart gets 202 and the operation id
+    private final Router router = createRouter();
+    private final Map<String, CachedResponse> responseCache = new ConcurrentHashMap<>();
+    private final Operations operations = new Operations();
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String webappPath = getServletContext().getRealPath("/");
+        ConfigManager.getInstance().init(webappPath);
+        JobManager.getInstance().reattachJobs();
+        JobManager.getInstance().warmUpPools();
+        LOGGER.info("Job Runner API initialized");
+    }
+
+    @Override
+    public void destroy() {
+        operations.shutdown();
+        JobManager.getInstance().shutdown();
+        LOGGER.info("Job Runner API shutdown");
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        dispatch("GET", req, resp);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        dispatch("POST", req, resp);
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        dispatch("PUT", req, resp);
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        dispatch("DELETE", req, resp);
+    }
+
+    // ==================== Routes ====================
+
+    private Router createRouter() {
+        return new Router()
+                // GET /api/jobs - List all jobs with status
+                .get("/jobs", (req, resp, p) -> handleListJobs(req, resp))
+                // GET /api/jobs/{id} - Get single job
+                .get("/jobs/{id}", (req, resp, p) -> handleGetJob(p.get("id"), resp))
+                // GET /api/jobs/{id}/logs - Get job logs
+                .get("/jobs/{id}/logs", (req, resp, p) -> handleGetLogs(p.get("id"), req, resp))
+                // GET /api/config - Get full config
+                .get("/config", (req, resp, p) -> handleGetConfig(req, resp))
+                // GET /api/apps - List all apps
+                .get("/apps", (req, resp, p) -> handleListApps(resp))
+                // GET /api/status - System status
+                .get("/status", (req, resp, p) -> handleStatus(req, resp))
+                // GET /api/events?since=<version> - Changes after a version (waits for the next one)
+                .get("/events", (req, resp, p) -> handleEvents(req, resp))
+                // GET /api/operations/{id} - State and result of a stop/restart/stop-all
+                .get("/operations/{id}", (req, resp, p) -> handleGetOperation(p.get("id"), resp))
+                // GET /api/diagnostics/latency - Latency and size of API responses per route, slow requests
+                .get("/diagnostics/latency", (req, resp, p) -> handleLatency(resp))
+
+                // POST /api/jobs - Create new job
+                .post("/jobs", (req, resp, p) -> handleCreateJob(req, resp))
+                // POST /api/jobs/{id}/start - Start a job (with optional runtime args)
+                .post("/jobs/{id}/start", (req, resp, p) -> handleStartJob(p.get("id"), req, resp))
+                // POST /api/jobs/{id}/stop - Stop a job
+                .post("/jobs/{id}/stop", (req, resp, p) -> handleStopJob(p.get("id"), req, resp))
+                // POST /api/jobs/{id}/suspend - Suspend a running job (SIGSTOP)
+                .post("/jobs/{id}/suspend", (req, resp, p) -> handleSuspendJob(p.get("id"), resp))
+                // POST /api/jobs/{id}/resume - Resume a suspended job (SIGCONT)
+                .post("/jobs/{id}/resume", (req, resp, p) -> handleResumeJob(p.get("id"), resp))
+                // POST /api/jobs/{id}/restart - Restart a job
+                .post("/jobs/{id}/restart", (req, resp, p) -> handleRestartJob(p.get("id"), req, resp))
+                // POST /api/jobs/{id}/logs/clear - Clear job logs
+                .post("/jobs/{id}/logs/clear", (req, resp, p) -> handleClearLogs(p.get("id"), resp))
+                // POST /api/jobs/start-all - Start all continuous jobs
+                .post("/jobs/start-all", (req, resp, p) -> handleStartAllJobs(resp))
+                // POST /api/jobs/stop-all - Stop all jobs
+                .post("/jobs/stop-all", (req, resp, p) -> handleStopAllJobs(req, resp))
+                // POST /api/jobs/batch - Start/stop/restart many jobs concurrently
+                .post("/jobs/batch", (req, resp, p) -> handleBatch(req, resp))
+                // POST /api/apps - Create new app
+                .post("/apps", (req, resp, p) -> handleCreateApp(req, resp))
+                // POST /api/apps/{id}/restart-jobs - Rolling restart of the app's continuous jobs
+                .post("/apps/{id}/restart-jobs", (req, resp, p) -> handleRestartAppJobs(p.get("id"), resp))
+                // POST /api/config/reload - Reload config
+                .post("/config/reload", (req, resp, p) -> handleReloadConfig(resp))
+
+                // PUT /api/jobs/{id} - Update job
+                .put("/jobs/{id}", (req, resp, p) -> handleUpdateJob(p.get("id"), req, resp))
+                // PUT /api/apps/{id} - Update app
+                .put("/apps/{id}", (req, resp, p) -> handleUpdateApp(p.get("id"), req, resp))
+                // PUT /api/config/global - Update global config
+                .put("/config/global", (req, resp, p) -> handleUpdateGlobalConfig(req, resp))
+
+                // DELETE /api/jobs/{id} - Delete job
+                .delete("/jobs/{id}", (req, resp, p) -> handleDeleteJob(p.get("id"), resp))
+                // DELETE /api/apps/{id} - Delete app
+                .delete("/apps/{id}", (req, resp, p) -> handleDeleteApp(p.get("id"), resp));
+    }
+
+    private void dispatch(String method, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String pathInfo = req.getPathInfo();
+        if (pathInfo == null) pathInfo = "/";
+
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+
+        PRETTY.set(hasQueryFlag(req, "pretty"));
+        try {
+            Router.Match match = router.match(method, pathInfo);
+            if (match == null) {
+                sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Endpoint not found: " + pathInfo);
+            } else if (match.handler == null) {
+                resp.setHeader("Allow", String.join(", ", match.allowed));
+                sendError(resp, HttpServletResponse.SC_METHOD_NOT_ALLOWED,
+                        "Method " + method + " not allowed for " + pathInfo);
+            } else {
+                req.setAttribute(LatencyFilter.ROUTE, match.pattern);  // Pattern, so ids stay out of the stats
+                match.handler.handle(req, resp, match.params);
+            }
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error handling " + method + " " + pathInfo, e);
+            sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+        } finally {
+            PRETTY.remove();
+        }
+    }
+
+    // ==================== Handler Methods ====================
+
+    private void handleListJobs(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        JobQuery query;
+        try {
+            query = JobQuery.parse(req);
+        } catch (IllegalArgumentException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        // Resources, health checks and suspension time of running jobs change without a version bump
+        sendCachedJson("jobs" + query.getKey(), req, resp, JobManager.getInstance().hasRunningJobs(),
+                () -> buildJobList(query));
+    }
+
+    private Object buildJobList(JobQuery query) {
+        JobManager jobManager = JobManager.getInstance();
+        jobManager.refreshAllJobStatus();
+
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        JobQuery.Page page = query.select(config, jobManager);
+        List<Map<String, Object>> jobList = new ArrayList<>();
+
+        for (Job job : page.jobs) {
+            JobState state = jobManager.getState(job.getId());
+            Set<String> fields = query.getFields();
+            Map<String, Object> jobMap = new LinkedHashMap<>();
+            jobMap.put("id", job.getId());
+            jobMap.put("name", job.getName());
+            jobMap.put("apps", job.getApps());
+            jobMap.put("mainClass", job.getMainClass());
+            jobMap.put("type", job.getType().getValue());
+            jobMap.put("enabled", job.isEnabled());
+            jobMap.put("status", state.getStatus().getValue());
+            jobMap.put("pid", state.getPid());
+            jobMap.put("startTime", state.getStartTime());
+            jobMap.put("exitCode", state.getExitCode());
+            jobMap.put("suspendedSince", state.getSuspendedSince());
+            jobMap.put("suspendReason", state.getSuspendReason());
+            jobMap.put("suspendedMillis", state.getTotalSuspendedMillis(System.currentTimeMillis()));
+            jobMap.put("description", job.getDescription());
+            jobMap.put("argsRequired", job.isArgsRequired());
+            jobMap.put("javaOpts", job.getJavaOpts());
+            jobMap.put("timeout", job.getTimeout());
+            jobMap.put("stallTimeout", job.getStallTimeout());
+            jobMap.put("execution", job.getExecution().getValue());
+            jobMap.put("cds", job.getCds());
+            jobMap.put("priorityClass", job.getPriorityClass().getValue());
+            jobMap.put("cpus", job.getCpus());
+            jobMap.put("effectivePriority", state.isRunning() ? state.getEffectivePriority() : null);
+            jobMap.put("memoryMax", job.getMemoryMax());
+            jobMap.put("cpuMax", job.getCpuMax());
+            jobMap.put("cpuWeight", job.getCpuWeight());
+            jobMap.put("pidsMax", job.getPidsMax());
+            jobMap.put("resources", state.isRunning() && wants(fields, "resources") ? jobManager.getResourceUsage(job.getId()) : null);
+            jobMap.put("heap", job.getHeap());
+            jobMap.put("heapWeight", job.getHeapWeight());
+            jobMap.put("heapAllocation", state.isRunning() ? state.getHeapAllocation() : null);
+            jobMap.put("healthLogPattern", job.getHealthLogPattern());
+            jobMap.put("healthPort", job.getHealthPort());
+            jobMap.put("healthFile", job.getHealthFile());
+            jobMap.put("healthMaxAge", job.getHealthMaxAge());
+            jobMap.put("healthGrace", job.getHealthGrace());
+            jobMap.put("healthFailures", job.getHealthFailures());
+            jobMap.put("healthAction", job.getHealthAction().getValue());
+            jobMap.put("health", wants(fields, "health") ? jobManager.getHealth(job) : null);
+            if (fields != null) {
+                jobMap.keySet().retainAll(fields);
+            }
+            jobList.add(jobMap);
+        }
+        if (!query.isPaged()) {
+            return jobList;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobs", jobList);
+        result.put("total", page.total);
+        result.put("nextCursor", page.nextCursor);
+        return result;
+    }
+
+    private static boolean wants(Set<String> fields, String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    private void handleGetJob(String jobId, HttpServletResponse resp) throws IOException {
+        Job job = ConfigManager.getInstance().getConfig().getJob(jobId);
+        if (job == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Job not found: " + jobId);
+            return;
+        }
+
+        JobManager.getInstance().getJobStatus(jobId); // Refresh status
+        sendJson(resp, job);
+    }
+
+    private void handleGetLogs(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String linesParam = req.getParameter("lines");
+        int lines = 100;
+        if (linesParam != null) {
+            try {
+                lines = Integer.parseInt(linesParam);
+            } catch (NumberFormatException e) {
+                sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid lines: " + linesParam);
+                return;
+            }
+            if (lines < 1 || lines > MAX_LOG_LINES) {
+                sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "lines must be between 1 and " + MAX_LOG_LINES);
+                return;
+            }
+        }
+
+        String logs = JobManager.getInstance().getJobLogs(jobId, lines);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("jobId", jobId);
+        result.put("logs", logs);
+        result.put("lines", lines);
+
+        sendJson(resp, result);
+    }
+
+    private void handleStartJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // Parse optional runtime arguments from request body
+        List<String> runtimeArgs = parseRuntimeArgs(req);
+
+        JobManager.JobResult result = JobManager.getInstance().startJob(jobId, runtimeArgs);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+        response.put("pid", result.getPid());
+
+        resp.setStatus(result.isSuccess() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
+        sendJson(resp, response);
+    }
+
+    private void handleStopJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        runOperation("stop", jobId, req, resp, () -> {
+            JobManager.JobResult result = JobManager.getInstance().stopJob(jobId);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", result.isSuccess());
+            response.put("message", result.getMessage());
+
+            return new Operations.Reply(result.isSuccess() ? HttpServletResponse.SC_OK
+                    : HttpServletResponse.SC_BAD_REQUEST, response);
+        });
+    }
+
+    private void handleSuspendJob(String jobId, HttpServletResponse resp) throws IOException {
+        JobManager.JobResult result = JobManager.getInstance().suspendJob(jobId);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+
+        resp.setStatus(result.isSuccess() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
+        sendJson(resp, response);
+    }
+
+    private void handleResumeJob(String jobId, HttpServletResponse resp) throws IOException {
+        JobManager.JobResult result = JobManager.getInstance().resumeJob(jobId);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", result.isSuccess());
+        response.put("message", result.getMessage());
+
+        resp.setStatus(result.isSuccess() ? HttpServletResponse.SC_OK : HttpServletResponse.SC_BAD_REQUEST);
+        sendJson(resp, response);
+    }
+
+    private void handleRestartJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        runOperation("restart", jobId, req, resp, () -> {
+            JobManager jobManager = JobManager.getInstance();
+            jobManager.stopJob(jobId);
+
+            // Wait a bit for clean shutdown
+            try { Thread.sleep(1000); } catch (InterruptedException e) { /* ignore */ }
+
+            JobManager.JobResult result = jobManager.startJob(jobId);
+            if (result.isSuccess()) {
+                Metrics.getInstance().restarted(jobId, Metrics.RESTART_MANUAL);
+            }
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", result.isSuccess());
+            response.put("message", "Restart: " + result.getMessage());
+            response.put("pid", result.getPid());
+
+            return new Operations.Reply(HttpServletResponse.SC_OK, response);
+        });
+    }
+
+    private void handleClearLogs(String jobId, HttpServletResponse resp) throws IOException {
+        JobManager.getInstance().clearJobLogs(jobId);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Logs cleared for job: " + jobId);
+
+        sendJson(resp, response);
+    }
+
+    private void handleCreateJob(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String body = readBody(req);
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+
+        Job job = new Job();
+        job.setId(json.get("id").getAsString());
+        job.setName(json.get("name").getAsString());
+        job.setMainClass(json.get("mainClass").getAsString());
+
+        if (json.has("app")) {
+            if (json.get("app").isJsonArray()) {
+                List<String> apps = new ArrayList<>();
+                json.get("app").getAsJsonArray().forEach(e -> apps.add(e.getAsString()));
+                job.setApps(apps);
+            } else {
+                job.setApp(json.get("app").getAsString());
+            }
+        }
+
+        if (json.has("type")) {
+            job.setType(json.get("type").getAsString());
+        }
+        if (json.has("enabled")) {
+            job.setEnabled(json.get("enabled").getAsBoolean());
+        }
+        if (json.has("description")) {
+            job.setDescription(json.get("description").getAsString());
+        }
+        if (json.has("params")) {
+            List<String> params = new ArrayList<>();
+            json.get("params").getAsJsonArray().forEach(e -> params.add(e.getAsString()));
+            job.setParams(params);
+        }
+        if (json.has("javaOpts") && !json.get("javaOpts").isJsonNull()) {
+            job.setJavaOpts(json.get("javaOpts").getAsString());
+        }
+        if (json.has("execution") && !json.get("execution").isJsonNull()) {
+            job.setExecution(json.get("execution").getAsString());
+        }
+        if (json.has("cds") && !json.get("cds").isJsonNull()) {
+            job.setCds(json.get("cds").getAsBoolean());
+        }
+        if (json.has("priorityClass") && !json.get("priorityClass").isJsonNull()) {
+            job.setPriorityClass(json.get("priorityClass").getAsString());
+        }
+        if (json.has("cpus") && !json.get("cpus").isJsonNull()) {
+            String cpus = json.get("cpus").getAsString().trim();
+            job.setCpus(cpus.isEmpty() ? null : cpus);
+        }
+        if (json.has("memoryMax") && !json.get("memoryMax").isJsonNull()) {
+            job.setMemoryMax(json.get("memoryMax").getAsString());
+        }
+        if (json.has("cpuMax") && !json.get("cpuMax").isJsonNull()) {
+            job.setCpuMax(json.get("cpuMax").getAsString());
+        }
+        if (json.has("cpuWeight") && !json.get("cpuWeight").isJsonNull()) {
+            job.setCpuWeight(json.get("cpuWeight").getAsInt());
+        }
+        if (json.has("pidsMax") && !json.get("pidsMax").isJsonNull()) {
+            job.setPidsMax(json.get("pidsMax").getAsInt());
+        }
+        if (json.has("heap") && !json.get("heap").isJsonNull()) {
+            job.setHeap(json.get("heap").getAsString());
+        }
+        if (json.has("heapWeight") && !json.get("heapWeight").isJsonNull()) {
+            job.setHeapWeight(json.get("heapWeight").getAsInt());
+        }
+        if (json.has("healthLogPattern") && !json.get("healthLogPattern").isJsonNull()) {
+            job.setHealthLogPattern(json.get("healthLogPattern").getAsString());
+        }
+        if (json.has("healthPort") && !json.get("healthPort").isJsonNull()) {
+            job.setHealthPort(json.get("healthPort").getAsInt());
+        }
+        if (json.has("healthFile") && !json.get("healthFile").isJsonNull()) {
+            job.setHealthFile(json.get("healthFile").getAsString());
+        }
+        if (json.has("healthMaxAge") && !json.get("healthMaxAge").isJsonNull()) {
+            job.setHealthMaxAge(json.get("healthMaxAge").getAsLong());
+        }
+        if (json.has("healthGrace") && !json.get("healthGrace").isJsonNull()) {
+            job.setHealthGrace(json.get("healthGrace").getAsLong());
+        }
+        if (json.has("healthFailures") && !json.get("healthFailures").isJsonNull()) {
+            job.setHealthFailures(json.get("healthFailures").getAsInt());
+        }
+        if (json.has("healthAction") && !json.get("healthAction").isJsonNull()) {
+            job.setHealthAction(json.get("healthAction").getAsString());
+        }
+        if (json.has("timeout") && !json.get("timeout").isJsonNull()) {
+            job.setTimeout(json.get("timeout").getAsLong());
+        }
+        if (json.has("stallTimeout") && !json.get("stallTimeout").isJsonNull()) {
+            job.setStallTimeout(json.get("stallTimeout").getAsLong());
+        }
+
+        ConfigManager configManager = ConfigManager.getInstance();
+        job.setSource(configManager.defaultSource(job));
+        JobsConfig updated = configManager.update(config ->
+                config.getJob(job.getId()) != null ? config : config.withJob(job));
+        if (updated.getJob(job.getId()) != job) {
+            sendError(resp, HttpServletResponse.SC_CONFLICT, "Job already exists: " + job.getId());
+            return;
+        }
+
+        resp.setStatus(HttpServletResponse.SC_CREATED);
+        sendJson(resp, job);
+    }
+
+    private void handleUpdateJob(String jobId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        ConfigManager configManager = ConfigManager.getInstance();
+        Job job = configManager.getConfig().getJob(jobId);
+
+        if (job == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Job not found: " + jobId);
+            return;
+        }
+
+        String body = readBody(req);
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+
+        // Copy, change and publish, so readers never see a half-updated job
+        JobsConfig updated = configManager.update(config -> {
+            Job current = config.getJob(jobId);
+            if (current == null) {
+                return config;
+            }
+            Job changed = current.copy();
+            applyJobUpdate(changed, json);
+            return config.withJob(changed);
+        });
+        if (updated.getJob(jobId) == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Job not found: " + jobId);
+            return;
+        }
+        sendJson(resp, updated.getJob(jobId));
+    }
+
+    private void applyJobUpdate(Job job, JsonObject json) {
+        if (json.has("name")) job.setName(json.get("name").getAsString());
+        if (json.has("mainClass")) job.setMainClass(json.get("mainClass").getAsString());
+        if (json.has("type")) job.setType(json.get("type").getAsString());
+        if (json.has("enabled")) job.setEnabled(json.get("enabled").getAsBoolean());
+        if (json.has("description")) job.setDescription(json.get("description").getAsString());
+        if (json.has("javaOpts")) {
+            String opts = json.get("javaOpts").isJsonNull() ? "" : json.get("javaOpts").getAsString();
+            job.setJavaOpts(opts.isEmpty() ? null : opts);
+        }
+        if (json.has("execution")) {
+            job.setExecution(json.get("execution").isJsonNull() ? "process" : json.get("execution").getAsString());
+        }
+        if (json.has("cds")) {
+            job.setCds(json.get("cds").isJsonNull() ? null : json.get("cds").getAsBoolean());
+        }
+        if (json.has("priorityClass")) {
+            job.setPriorityClass(json.get("priorityClass").isJsonNull() ? "normal" : json.get("priorityClass").getAsString());
+        }
+        if (json.has("cpus")) {
+            String cpus = json.get("cpus").isJsonNull() ? "" : json.get("cpus").getAsString().trim();
+            job.setCpus(cpus.isEmpty() ? null : cpus);
+        }
+        if (json.has("memoryMax")) {
+            String memoryMax = json.get("memoryMax").isJsonNull() ? "" : json.get("memoryMax").getAsString().trim();
+            job.setMemoryMax(memoryMax.isEmpty() ? null : memoryMax);
+        }
+        if (json.has("cpuMax")) {
+            String cpuMax = json.get("cpuMax").isJsonNull() ? "" : json.get("cpuMax").getAsString().trim();
+            job.setCpuMax(cpuMax.isEmpty() ? null : cpuMax);
+        }
+        if (json.has("cpuWeight")) {
+            job.setCpuWeight(json.get("cpuWeight").isJsonNull() ? 0 : json.get("cpuWeight").getAsInt());
+        }
+        if (json.has("pidsMax")) {
+            job.setPidsMax(json.get("pidsMax").isJsonNull() ? 0 : json.get("pidsMax").getAsInt());
+        }
+        if (json.has("heap")) {
+            String heap = json.get("heap").isJsonNull() ? "" : json.get("heap").getAsString().trim();
+            job.setHeap(heap.isEmpty() ? null : heap);
+        }
+        if (json.has("heapWeight")) {
+            job.setHeapWeight(json.get("heapWeight").isJsonNull() ? 1 : json.get("heapWeight").getAsInt());
+        }
+        if (json.has("healthLogPattern")) {
+            String pattern = json.get("healthLogPattern").isJsonNull() ? "" : json.get("healthLogPattern").getAsString();
+            job.setHealthLogPattern(pattern.isEmpty() ? null : pattern);
+        }
+        if (json.has("healthPort")) {
+            job.setHealthPort(json.get("healthPort").isJsonNull() ? 0 : json.get("healthPort").getAsInt());
+        }
+        if (json.has("healthFile")) {
+            String file = json.get("healthFile").isJsonNull() ? "" : json.get("healthFile").getAsString().trim();
+            job.setHealthFile(file.isEmpty() ? null : file);
+        }
+        if (json.has("healthMaxAge")) {
+            job.setHealthMaxAge(json.get("healthMaxAge").isJsonNull() ? 60 : json.get("healthMaxAge").getAsLong());
+        }
+        if (json.has("healthGrace")) {
+            job.setHealthGrace(json.get("healthGrace").isJsonNull() ? 30 : json.get("healthGrace").getAsLong());
+        }
+        if (json.has("healthFailures")) {
+            job.setHealthFailures(json.get("healthFailures").isJsonNull() ? 3 : json.get("healthFailures").getAsInt());
+        }
+        if (json.has("healthAction")) {
+            job.setHealthAction(json.get("healthAction").isJsonNull() ? "restart" : json.get("healthAction").getAsString());
+        }
+        if (json.has("timeout")) {
+            job.setTimeout(json.get("timeout").isJsonNull() ? 0 : json.get("timeout").getAsLong());
+        }
+        if (json.has("stallTimeout")) {
+            job.setStallTimeout(json.get("stallTimeout").isJsonNull() ? 0 : json.get("stallTimeout").getAsLong());
+        }
+
+        if (json.has("app")) {
+            if (json.get("app").isJsonArray()) {
+                List<String> apps = new ArrayList<>();
+                json.get("app").getAsJsonArray().forEach(e -> apps.add(e.getAsString()));
+                job.setApps(apps);
+            } else {
+                job.setApp(json.get("app").getAsString());
+            }
+        }
+    }
+
+    private void handleDeleteJob(String jobId, HttpServletResponse resp) throws IOException {
+        ConfigManager configManager = ConfigManager.getInstance();
+
+        // Stop job if running
+        JobManager.getInstance().stopJob(jobId);
+
+        configManager.update(config -> config.withoutJob(jobId));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Job deleted: " + jobId);
+
+        sendJson(resp, response);
+    }
+
+    private void handleListApps(HttpServletResponse resp) throws IOException {
+        Map<String, AppConfig> apps = ConfigManager.getInstance().getConfig().getApps();
+        sendJson(resp, apps.values());
+    }
+
+    private void handleCreateApp(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String body = readBody(req);
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+
+        AppConfig app = new AppConfig();
+        app.setId(json.get("id").getAsString());
+        app.setName(json.get("name").getAsString());
+        app.setWebappPath(json.get("webappPath").getAsString());
+
+        ConfigManager.getInstance().update(config -> config.withApp(app));
+
+        resp.setStatus(HttpServletResponse.SC_CREATED);
+        sendJson(resp, app);
+    }
+
+    private void handleUpdateApp(String appId, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        ConfigManager configManager = ConfigManager.getInstance();
+        AppConfig app = configManager.getConfig().getApp(appId);
+
+        if (app == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "App not found: " + appId);
+            return;
+        }
+
+        String body = readBody(req);
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+
+        JobsConfig updated = configManager.update(config -> {
+            AppConfig current = config.getApp(appId);
+            if (current == null) {
+                return config;
+            }
+            AppConfig changed = current.copy();
+            if (json.has("name")) changed.setName(json.get("name").getAsString());
+            if (json.has("webappPath")) changed.setWebappPath(json.get("webappPath").getAsString());
+            return config.withApp(changed);
+        });
+        sendJson(resp, updated.getApp(appId));
+    }
+
+    private void handleRestartAppJobs(String appId, HttpServletResponse resp) throws IOException {
+        Map<String, Object> rollout = JobManager.getInstance().restartAppJobs(appId);
+        if (rollout == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "App not found: " + appId);
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Rolling restart of " + ((List<?>) rollout.get("jobs")).size()
+                + " job(s) " + rollout.get("state"));
+        response.put("rollout", rollout);
+
+        sendJson(resp, response);
+    }
+
+    private void handleDeleteApp(String appId, HttpServletResponse resp) throws IOException {
+        ConfigManager configManager = ConfigManager.getInstance();
+        configManager.update(config -> config.withoutApp(appId));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "App deleted: " + appId);
+
+        sendJson(resp, response);
+    }
+
+    private void handleGetConfig(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        sendCachedJson("config", req, resp, false, () -> ConfigManager.getInstance().getConfig());
+    }
+
+    private void handleUpdateGlobalConfig(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String body = readBody(req);
+        JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+
+        ConfigManager configManager = ConfigManager.getInstance();
+        JobsConfig updated = configManager.update(config -> {
+            GlobalConfig global = config.getGlobal().copy();
+            if (json.has("javaHome")) global.setJavaHome(json.get("javaHome").getAsString());
+            if (json.has("javaOpts")) global.setJavaOpts(json.get("javaOpts").getAsString());
+            if (json.has("configDir")) global.setConfigDir(json.get("configDir").getAsString());
+            if (json.has("logsDir")) global.setLogsDir(json.get("logsDir").getAsString());
+            if (json.has("poolSize")) global.setPoolSize(json.get("poolSize").getAsInt());
+            if (json.has("poolMaxRuns")) global.setPoolMaxRuns(json.get("poolMaxRuns").getAsInt());
+            if (json.has("cds")) global.setCds(json.get("cds").getAsBoolean());
+            if (json.has("cgroupRoot")) global.setCgroupRoot(json.get("cgroupRoot").getAsString());
+            if (json.has("memoryBudget")) global.setMemoryBudget(json.get("memoryBudget").getAsString());
+            if (json.has("killOnShutdown")) global.setKillOnShutdown(json.get("killOnShutdown").getAsBoolean());
+            if (json.has("suspendLoad")) global.setSuspendLoad(json.get("suspendLoad").getAsDouble());
+            if (json.has("resumeLoad")) global.setResumeLoad(json.get("resumeLoad").getAsDouble());
+            if (json.has("restartOnDeploy")) global.setRestartOnDeploy(json.get("restartOnDeploy").getAsBoolean());
+            if (json.has("deployDebounce")) global.setDeployDebounce(json.get("deployDebounce").getAsInt());
+            if (json.has("rollingBatchSize")) global.setRollingBatchSize(json.get("rollingBatchSize").getAsInt());
+            if (json.has("rollingReadyTimeout")) global.setRollingReadyTimeout(json.get("rollingReadyTimeout").getAsInt());
+            if (json.has("watchConfig")) global.setWatchConfig(json.get("watchConfig").getAsBoolean());
+            if (json.has("restartOnConfigChange")) {
+                global.setRestartOnConfigChange(json.get("restartOnConfigChange").getAsBoolean());
+            }
+            if (json.has("configBackups")) global.setConfigBackups(json.get("configBackups").getAsInt());
+            if (json.has("slowRequestMs")) global.setSlowRequestMs(json.get("slowRequestMs").getAsInt());
+            if (json.has("apiReadRate")) global.setApiReadRate(json.get("apiReadRate").getAsDouble());
+            if (json.has("apiControlRate")) global.setApiControlRate(json.get("apiControlRate").getAsDouble());
+            if (json.has("apiExpensiveRate")) global.setApiExpensiveRate(json.get("apiExpensiveRate").getAsDouble());
+            if (json.has("apiMaxExpensive")) global.setApiMaxExpensive(json.get("apiMaxExpensive").getAsInt());
+            return config.withGlobal(global);
+        });
+        sendJson(resp, updated.getGlobal());
+    }
+
+    private void handleReloadConfig(HttpServletResponse resp) throws IOException {
+        Map<String, Object> diff;
+        try {
+            diff = JobManager.getInstance().reloadConfig();
+        } catch (IOException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Configuration reloaded");
+        response.put("changes", diff);
+
+        sendJson(resp, response);
+    }
+
+    private void handleStartAllJobs(HttpServletResponse resp) throws IOException {
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        List<String> started = new ArrayList<>();
+        List<String> failed = new ArrayList<>();
+
+        for (Job job : config.getJobs()) {
+            if (job.isEnabled() && job.getType() == Job.JobType.CONTINUOUS) {
+                JobManager.JobResult result = JobManager.getInstance().startJob(job.getId());
+                if (result.isSuccess()) {
+                    started.add(job.getId());
+                } else {
+                    failed.add(job.getId() + ": " + result.getMessage());
+                }
+            }
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", failed.isEmpty());
+        response.put("started", started);
+        response.put("failed", failed);
+
+        sendJson(resp, response);
+    }
+
+    private void handleStopAllJobs(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        runOperation("stop-all", null, req, resp, () -> {
+            JobManager.getInstance().stopAllJobs();
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("success", true);
+            response.put("message", "All jobs stopped");
+
+            return new Operations.Reply(HttpServletResponse.SC_OK, response);
+        });
+    }
+
+    private void handleBatch(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        JobBatch batch;
+        try {
+            batch = JobBatch.parse(JsonParser.parseString(readBody(req)));
+        } catch (RuntimeException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid batch: " + e.getMessage());
+            return;
+        }
+
+        // All-or-nothing: refuse the whole batch before anything runs
+        if (!batch.validate() && batch.isAtomic()) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            sendJson(resp, batch.describeRejected());
+            return;
+        }
+        runOperation("batch", null, req, resp, () -> new Operations.Reply(HttpServletResponse.SC_OK, batch.run()));
+    }
+
+    private void handleGetOperation(String operationId, HttpServletResponse resp) throws IOException {
+        Operations.Operation operation = operations.get(operationId);
+        if (operation == null) {
+            sendError(resp, HttpServletResponse.SC_NOT_FOUND, "Operation not found: " + operationId);
+            return;
+        }
+        sendJson(resp, operation.describe());
+    }
+
+    private void handleLatency(HttpServletResponse resp) throws IOException {
+        int slowRequestMs = ConfigManager.getInstance().getConfig().getGlobal().getSlowRequestMs();
+        sendJson(resp, RequestStats.getInstance().describe(slowRequestMs));
+    }
+
+    private void handleStatus(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // The load average is always live
+        sendCachedJson("status", req, resp, true, this::buildStatus);
+    }
+
+    private Map<String, Object> buildStatus() {
+        JobManager jobManager = JobManager.getInstance();
+        jobManager.refreshAllJobStatus();
+
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+
+        int running = 0;
+        int suspended = 0;
+        int stopped = 0;
+        int error = 0;
+
+        for (Job job : config.getJobs()) {
+            switch (jobManager.getState(job.getId()).getStatus()) {
+                case RUNNING: running++; break;
+                case SUSPENDED: suspended++; break;
+                case STOPPED: stopped++; break;
+                case ERROR: error++; break;
+            }
+        }
+
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("totalJobs", config.getJobs().size());
+        status.put("running", running);
+        status.put("suspended", suspended);
+        status.put("stopped", stopped);
+        status.put("error", error);
+        status.put("totalApps", config.getApps().size());
+        status.put("configFile", ConfigManager.getInstance().getConfigFilePath());
+        status.put("configErrors", ConfigManager.getInstance().getConfigErrors());
+        status.put("javaVersion", System.getProperty("java.version"));
+        double load = jobManager.getLoadPerCpu();
+        status.put("loadPerCpu", load >= 0 ? Math.round(load * 100) / 100.0 : null);
+        status.put("rollouts", jobManager.getRollouts());
+        return status;
+    }
+
+    /**
+     * Events after ?since=<version> (see EventFeed). Without since, or if there are events
+     * already, the answer is immediate; otherwise the request waits without holding a
+     * thread until the next event or EVENTS_WAIT_MS, and then sends what it has.
+     */
+    private void handleEvents(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        EventFeed feed = EventFeed.getInstance();
+        String sinceParam = req.getParameter("since");
+        long since;
+        try {
+            since = sinceParam != null ? Long.parseLong(sinceParam) : feed.getVersion();
+        } catch (NumberFormatException e) {
+            sendError(resp, HttpServletResponse.SC_BAD_REQUEST, "Invalid since: " + sinceParam);
+            return;
+        }
+        Map<String, Object> batch = feed.since(since, EVENTS_MAX);
+        if (sinceParam == null || !((List<?>) batch.get("events")).isEmpty() || Boolean.TRUE.equals(batch.get("reset"))
+                || !req.isAsyncSupported()) {
+            sendJson(resp, batch);
+            return;
+        }
+
+        AsyncContext async = req.startAsync();
+        async.setTimeout(EVENTS_WAIT_MS);
+        AtomicBoolean answered = new AtomicBoolean();
+        Runnable answer = () -> {
+            if (answered.compareAndSet(false, true)) {
+                finishAsync(async, resp, HttpServletResponse.SC_OK, feed.since(since, EVENTS_MAX));
+            }
+        };
+        // Called by the thread that published the event: answer on a container thread
+        Runnable waiter = () -> {
+            try {
+                if (!answered.get()) {
+                    async.start(answer);
+                }
+            } catch (IllegalStateException e) {
+                // Timed out or disconnected meanwhile
+            }
+        };
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                feed.cancel(waiter);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                feed.cancel(waiter);
+                answer.run();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                feed.cancel(waiter);
+                answered.set(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        if (!feed.await(since, waiter)) {
+            answer.run();  // An event came in meanwhile
+        }
+    }
+
+    // ==================== Async Operations ====================
+
+    /**
+     * Run a slow job operation on the operations pool. The request waits for the result
+     * without holding a container thread; with ?async (or "Prefer: respond-async"), or
+     * after OPERATION_WAIT_MS, it gets 202 Accepted with the operation id to poll at
+     * GET /api/operations/{id} instead.
+     */
+    private void runOperation(String type, String jobId, HttpServletRequest req, HttpServletResponse resp,
+                              Operations.Work work) throws IOException {
+        Operations.Operation operation;
+        try {
+            operation = operations.submit(type, jobId, work);
+        } catch (RejectedExecutionException e) {
+            resp.setHeader("Retry-After", "5");
+            sendError(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many pending job operations");
+            return;
+        }
+
+        String prefer = req.getHeader("Prefer");
+        if (hasQueryFlag(req, "async") || (prefer != null && prefer.contains("respond-async"))) {
+            resp.setStatus(HttpServletResponse.SC_ACCEPTED);
+            sendJson(resp, accepted(req, resp, operation));
+            return;
+        }
+        if (!req.isAsyncSupported()) {
+            Operations.Reply reply = operation.future.join();
+            resp.setStatus(reply.status);
+            sendJson(resp, reply.body);
+            return;
+        }
+
+        AsyncContext async = req.startAsync();
+        async.setTimeout(OPERATION_WAIT_MS);
+        AtomicBoolean answered = new AtomicBoolean();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                if (answered.compareAndSet(false, true)) {
+                    finishAsync(async, resp, HttpServletResponse.SC_ACCEPTED, accepted(req, resp, operation));
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                answered.set(true);  // The operation still runs to the end
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        operation.future.thenAccept(reply -> {
+            if (answered.compareAndSet(false, true)) {
+                finishAsync(async, resp, reply.status, reply.body);
+            }
+        });
+    }
+
+    private static Map<String, Object> accepted(HttpServletRequest req, HttpServletResponse resp,
+                                                Operations.Operation operation) {
+        String location = req.getContextPath() + "/api/operations/" + operation.id;
+        resp.setHeader("Location", location);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("message", "Operation accepted: " + operation.type);
+        response.put("operationId", operation.id);
+        response.put("location", location);
+        return response;
+    }
+
+    /**
+     * Send the response of an async request and complete it
+     */
+    private void finishAsync(AsyncContext async, HttpServletResponse resp, int status, Object body) {
+        try {
+            resp.setStatus(status);
+            sendJson(resp, body);
+            resp.getWriter().close();  // Ends a compressed body (GzipFilter) before completing
+        } catch (IOException e) {
+            LOGGER.fine("Async response not sent: " + e.getMessage());
+        } finally {
+            async.complete();
+        }
+    }
+
+    // ==================== Response Cache ====================
+
+    /**
+     * Send a polled response from the cache. The serialized body is kept per state
+     * version and config snapshot, so an unchanged poll costs a version check, and a
+     * 304 if the client sends the ETag it already has. Responses with live metrics are
+     * rebuilt after LIVE_TTL_MS; the ETag is a hash of the body, so an identical
+     * rebuild still answers 304.
+     */
+    private void sendCachedJson(String key, HttpServletRequest req, HttpServletResponse resp, boolean live,
+                                Supplier<Object> build) throws IOException {
+        if (Boolean.TRUE.equals(PRETTY.get())) {
+            long start = System.nanoTime();
+            Object data = build.get();
+            RequestStats.phase(RequestStats.BUILD, System.nanoTime() - start);
+            sendJson(resp, data);
+            return;
+        }
+
+        long version = JobManager.getInstance().getStateVersion();
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        long now = System.currentTimeMillis();
+        CachedResponse cached = responseCache.get(key);
+        if (cached == null || cached.version != version || cached.config != config
+                || (cached.live && now - cached.created > LIVE_TTL_MS)) {
+            // Version and config are read before building: a change during the build forces the next rebuild
+            long start = System.nanoTime();
+            Object data = build.get();
+            long built = System.nanoTime();
+            byte[] body = gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+            RequestStats.phase(RequestStats.BUILD, built - start);
+            RequestStats.phase(RequestStats.SERIALIZE, System.nanoTime() - built);
+            String etag = cached != null && Arrays.equals(cached.body, body) ? cached.etag : etag(body);
+            cached = new CachedResponse(version, config, now, live, body, etag);
+            if (responseCache.size() >= MAX_CACHED_RESPONSES && !responseCache.containsKey(key)) {
+                responseCache.clear();  // Many different queries: start over rather than grow
+            }
+            responseCache.put(key, cached);
+        }
+
+        // Prevent browser caching of API responses (clients revalidate with If-None-Match themselves)
+        resp.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        resp.setHeader("Pragma", "no-cache");
+        resp.setHeader("Expires", "0");
+        resp.setHeader("ETag", cached.etag);
+        if (matchesEtag(req.getHeader("If-None-Match"), cached.etag)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        resp.setContentLength(cached.body.length);
+        resp.getOutputStream().write(cached.body);
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);  // Proxies may weaken the tag of a compressed response
+            }
+            if (candidate.equals(etag) || candidate.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serialized body of a polled endpoint and what it was built from
+     */
+    private static class CachedResponse {
+        final long version;
+        final JobsConfig config;
+        final long created;
+        final boolean live;
+        final byte[] body;
+        final String etag;
+
+        CachedResponse(long version, JobsConfig config, long created, boolean live, byte[] body, String etag) {
+            this.version = version;
+            this.config = config;
+            this.created = created;
+            this.live = live;
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+
+    // ==================== Utility Methods ====================
+
+    private void sendJson(HttpServletResponse resp, Object data) throws IOException {
+        // Prevent browser caching of API responses
+        resp.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
+        resp.setHeader("Pragma", "no-cache");
+        resp.setHeader("Expires", "0");
+
+        // Serialize straight into the response (compact unless ?pretty was given)
+        long start = System.nanoTime();
+        PrintWriter out = resp.getWriter();
+        JsonWriter writer = gson.newJsonWriter(out);
+        if (Boolean.TRUE.equals(PRETTY.get())) {
+            writer.setIndent("  ");
+        }
+        gson.toJson(data, data.getClass(), writer);
+        writer.flush();
+        RequestStats.phase(RequestStats.SERIALIZE, System.nanoTime() - start);
+    }
+
+    /**
+     * True if the query string has the parameter (read without touching the request body)
+     */
+    private static boolean hasQueryFlag(HttpServletRequest req, String name) {
+        String query = req.getQueryString();
+        if (query == null) {
+            return false;
+        }
+        for (String param : query.split("&")) {
+            if (param.equals(name) || param.startsWith(name + "=")) {
+                return !param.equals(name + "=false");
+            }
+        }
+        return false;
+    }
+
+    private void sendError(HttpServletResponse resp, int status, String message) throws IOException {
+        resp.setStatus(status);
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", message);
+        sendJson(resp, error);
+    }
+
+    private String readBody(HttpServletRequest req) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader reader = req.getReader()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse runtime arguments from request body.
+     * Expects JSON: { "args": ["arg1", "arg2", ...] }
+     */
+    private List<String> parseRuntimeArgs(HttpServletRequest req) {
+        try {
+            String body = readBody(req);
+            if (body == null || body.trim().isEmpty()) {
+                return null;
+            }
+
+            JsonObject json = JsonParser.parseString(body).getAsJsonObject();
+            if (json.has("args") && json.get("args").isJsonArray()) {
+                List<String> args = new ArrayList<>();
+                for (int i = 0; i < json.get("args").getAsJsonArray().size(); i++) {
+                    args.add(json.get("args").getAsJsonArray().get(i).getAsString());
+                }
+                return args.isEmpty() ? null : args;
+            }
+        } catch (Exception e) {
+            LOGGER.fine("Could not parse runtime args: " + e.getMessage());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,562 @@
+package com.tts.jobrunner.servlet;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip filter for API responses and static assets.
+ *
+ * Compresses text responses (JSON, HTML, JS, CSS) for clients that send
+ * "Accept-Encoding: gzip". The first MIN_SIZE bytes of a response are held back:
+ * smaller responses are sent as they are, with a Content-Length. Deflaters and
+ * buffers are pooled, so a poll does not set up a new zlib stream every time.
+ * A strong ETag on a compressed response is made weak (as Tomcat's compression does),
+ * since the gzip body is not byte-identical to the one the tag was computed for.
+ * Mapped in web.xml after CORSFilter. An async response is finished when its handler
+ * closes it; non-blocking writes (setWriteListener) are supported.
+ * Compatible with Java 11+
+ */
+public class GzipFilter implements Filter {
+    private static final int MIN_SIZE = 1024;    // Smaller responses are not compressed
+    private static final int BUFFER_SIZE = 8192;
+    private static final int POOL_SIZE = 16;     // Compressors kept for reuse
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final BlockingQueue<Compressor> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+
+        // Range responses and HEAD requests are passed through unchanged
+        if (!acceptsGzip(httpRequest) || "HEAD".equalsIgnoreCase(httpRequest.getMethod())
+                || httpRequest.getHeader("Range") != null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        httpResponse.addHeader("Vary", "Accept-Encoding");
+        GzipResponse gzipResponse = new GzipResponse(httpResponse);
+        try {
+            chain.doFilter(request, gzipResponse);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The async handler closes the response when it is done; this only cleans up after errors
+                request.getAsyncContext().addListener(new FinishListener(gzipResponse));
+            } else {
+                gzipResponse.finish();
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Compressor compressor;
+        while ((compressor = pool.poll()) != null) {
+            compressor.deflater.end();
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader("Accept-Encoding");
+        if (accept == null) {
+            return false;
+        }
+        for (String coding : accept.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("json") || type.contains("javascript")
+                || type.contains("xml") || type.contains("svg");
+    }
+
+    private Compressor takeCompressor() {
+        Compressor compressor = pool.poll();
+        return compressor != null ? compressor : new Compressor();
+    }
+
+    private void releaseCompressor(Compressor compressor) {
+        compressor.reset();
+        if (!pool.offer(compressor)) {
+            compressor.deflater.end();
+        }
+    }
+
+    // ==================== Response Wrapper ====================
+
+    /**
+     * Response whose body goes through a GzipStream; Content-Length is only passed on
+     * when the body is sent uncompressed
+     */
+    private class GzipResponse extends HttpServletResponseWrapper {
+        private final HttpServletResponse response;
+        private GzipStream stream;
+        private PrintWriter writer;
+        private long contentLength = -1;
+
+        GzipResponse(HttpServletResponse response) {
+            super(response);
+            this.response = response;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            contentLength = len;
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            contentLength = len;
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value != null ? Long.parseLong(value) : -1;
+            } else {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                setHeader(name, value);
+            } else {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if ("Content-Length".equalsIgnoreCase(name)) {
+                contentLength = value;
+            } else {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flushAll();
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (stream != null) {
+                stream.discardHeld();
+            }
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            contentLength = -1;
+            if (stream != null) {
+                stream.discardHeld();
+            }
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.finish();
+            } else if (!response.isCommitted()) {
+                if (response.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                    weakenEtag(response);  // Same tag as the (compressed) 200 would carry
+                }
+                if (contentLength >= 0) {
+                    response.setContentLengthLong(contentLength);
+                }
+            }
+        }
+
+        private GzipStream stream() {
+            if (stream == null) {
+                stream = new GzipStream(this, response);
+            }
+            return stream;
+        }
+    }
+
+    /**
+     * Finishes the body of an async response that was not closed by its handler
+     */
+    private static class FinishListener implements AsyncListener {
+        private final GzipResponse response;
+
+        FinishListener(GzipResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            try {
+                response.finish();
+            } catch (IOException e) {
+                // Client gone
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Make a strong ETag weak: W/"tag"
+     */
+    private static void weakenEtag(HttpServletResponse response) {
+        String etag = response.getHeader("ETag");
+        if (etag != null && etag.startsWith("\"")) {
+            response.setHeader("ETag", "W/" + etag);
+        }
+    }
+
+    /**
+     * Holds back the first MIN_SIZE bytes, then either compresses or passes everything through.
+     *
+     * Output to the client goes through sink. In non-blocking mode (after setWriteListener)
+     * the sink collects what one call produces and sends it in a single write while the
+     * container stream is ready; a caller that waits for isReady() between writes never
+     * leaves anything behind, and whatever is left is sent from onWritePossible.
+     */
+    private class GzipStream extends ServletOutputStream {
+        private final GzipResponse wrapper;
+        private final HttpServletResponse response;
+        private final OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (pending != null) {
+                    pending.write(b, off, len);
+                } else {
+                    response.getOutputStream().write(b, off, len);
+                }
+            }
+        };
+        private Compressor compressor;  // Pooled buffers; held until the stream is finished
+        private ByteArrayOutputStream pending;  // Not yet sent, non-blocking mode only
+        private int held;               // Bytes held back in compressor.head
+        private boolean decided;
+        private boolean compressing;
+        private boolean finished;
+
+        GzipStream(GzipResponse wrapper, HttpServletResponse response) {
+            this.wrapper = wrapper;
+            this.response = response;
+            this.compressor = takeCompressor();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!decided && held < MIN_SIZE) {
+                compressor.head[held++] = (byte) b;
+            } else {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                throw new IOException("Response already finished");
+            }
+            if (!decided) {
+                if (held + len <= MIN_SIZE) {
+                    System.arraycopy(b, off, compressor.head, held, len);
+                    held += len;
+                    return;
+                }
+                decide(true);
+            }
+            if (compressing) {
+                compressor.write(sink, b, off, len);
+            } else {
+                sink.write(b, off, len);
+            }
+            drain();
+        }
+
+        /**
+         * Writer flushes are not passed on, so that small responses can still get a
+         * Content-Length and large ones compress well; see flushAll
+         */
+        @Override
+        public void flush() throws IOException {
+            if (decided && !compressing && drain()) {
+                response.getOutputStream().flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            if (pending == null) {
+                return true;
+            }
+            try {
+                return drain() && response.getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Switch to non-blocking mode: the container calls back when the client can take
+         * more, pending output is sent first, then the handler's listener is called
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (writeListener == null) {
+                throw new NullPointerException("writeListener");
+            }
+            ServletOutputStream out;
+            try {
+                out = response.getOutputStream();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            pending = new ByteArrayOutputStream(BUFFER_SIZE);
+            out.setWriteListener(new WriteListener() {
+                @Override
+                public void onWritePossible() throws IOException {
+                    if (drain() && out.isReady()) {
+                        writeListener.onWritePossible();
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    writeListener.onError(t);
+                }
+            });
+        }
+
+        /**
+         * Send pending output if the container stream can take it; true when nothing is left
+         */
+        private boolean drain() throws IOException {
+            if (pending == null || pending.size() == 0) {
+                return true;
+            }
+            ServletOutputStream out = response.getOutputStream();
+            if (!out.isReady()) {
+                return false;
+            }
+            out.write(pending.toByteArray());
+            pending.reset();
+            return true;
+        }
+
+        /**
+         * Send everything written so far (HttpServletResponse.flushBuffer)
+         */
+        void flushAll() throws IOException {
+            if (finished) {
+                return;
+            }
+            if (!decided) {
+                decide(true);
+            }
+            if (compressing) {
+                compressor.syncFlush(sink);
+            }
+            if (drain()) {
+                response.getOutputStream().flush();
+            }
+        }
+
+        void discardHeld() {
+            if (!decided) {
+                held = 0;
+            }
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                if (!decided) {
+                    decide(false);
+                }
+                if (compressing) {
+                    compressor.finish(sink);
+                }
+                drain();
+            } finally {
+                if (compressor != null) {
+                    releaseCompressor(compressor);
+                    compressor = null;
+                }
+            }
+        }
+
+        private void decide(boolean large) throws IOException {
+            decided = true;
+            int status = response.getStatus();
+            compressing = large && isCompressible(response.getContentType())
+                    && response.getHeader("Content-Encoding") == null
+                    && status != HttpServletResponse.SC_NO_CONTENT && status != HttpServletResponse.SC_NOT_MODIFIED
+                    && status != HttpServletResponse.SC_PARTIAL_CONTENT;
+            if (compressing) {
+                response.setHeader("Content-Encoding", "gzip");
+                weakenEtag(response);
+                sink.write(GZIP_HEADER);
+                compressor.write(sink, compressor.head, 0, held);
+            } else {
+                if (!large && held > 0) {
+                    response.setContentLength(held);
+                } else if (wrapper.contentLength >= 0) {
+                    response.setContentLengthLong(wrapper.contentLength);
+                }
+                if (held > 0) {  // Nothing was written (e.g. after sendError): leave the response alone
+                    sink.write(compressor.head, 0, held);
+                }
+                if (!large) {
+                    return;
+                }
+                releaseCompressor(compressor);  // Buffers are not needed for a pass-through body
+                compressor = null;
+            }
+            held = 0;
+        }
+    }
+
+    // ==================== Compressor ====================
+
+    /**
+     * Raw deflater with gzip checksum and the buffers of one response
+     */
+    private static class Compressor {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        final CRC32 crc = new CRC32();
+        final byte[] head = new byte[MIN_SIZE];
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long totalIn;
+
+        void write(OutputStream out, byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            crc.update(b, off, len);
+            totalIn += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) {
+                int n = deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH);
+                if (n > 0) {
+                    out.write(buffer, 0, n);
+                }
+            }
+        }
+
+        void syncFlush(OutputStream out) throws IOException {
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, n);
+            } while (n == buffer.length);
+        }
+
+        void finish(OutputStream out) throws IOException {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer, 0, buffer.length);
+                out.write(buffer, 0, n);
+            }
+            writeInt(out, (int) crc.getValue());
+            writeInt(out, (int) totalIn);
+        }
+
+        void reset() {
+            deflater.reset();
+            crc.reset();
+            totalIn = 0;
+        }
+
+        private static void writeInt(OutputStream out, int value) throws IOException {
+            out.write(value & 0xff);
+            out.write((value >>> 8) & 0xff);
+            out.write((value >>> 16) & 0xff);
+            out.write((value >>> 24) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.tts.jobrunner.servlet;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.tts.jobrunner.model.Job;
+import com.tts.jobrunner.model.JobsConfig;
+import com.tts.jobrunner.service.ConfigManager;
+import com.tts.jobrunner.service.JobManager;
+import com.tts.jobrunner.service.Metrics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Batch of job actions (POST /api/jobs/batch) - start, stop or restart many jobs in
+ * one request.
+ *
+ * Every action is checked first: the job exists, the action applies to its current
+ * state and no job appears twice. With "atomic" nothing runs unless all actions pass;
+ * otherwise the failing ones are reported and skipped. The actions then run on their
+ * own threads, at most "concurrency" at a time (stops wait for their processes in
+ * parallel, see JobManager#stopJob). Results and timings are listed in request order.
+ * Compatible with Java 11+
+ */
+class JobBatch {
+    private static final Logger LOGGER = Logger.getLogger(JobBatch.class.getName());
+    private static final int MAX_ACTIONS = 500;
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final int MAX_CONCURRENCY = 16;
+    private static final List<String> ACTIONS = Arrays.asList("start", "stop", "restart");
+
+    private final List<Item> items = new ArrayList<>();
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private boolean atomic;
+    private boolean valid;
+
+    /**
+     * Read a batch: either {"actions": [...], "concurrency": n, "atomic": true} or just
+     * the array of {"id", "action", "args"}. Throws IllegalArgumentException if malformed.
+     */
+    static JobBatch parse(JsonElement json) {
+        JobBatch batch = new JobBatch();
+        JsonArray actions;
+        if (json != null && json.isJsonArray()) {
+            actions = json.getAsJsonArray();
+        } else if (json != null && json.isJsonObject() && json.getAsJsonObject().has("actions")
+                && json.getAsJsonObject().get("actions").isJsonArray()) {
+            JsonObject object = json.getAsJsonObject();
+            actions = object.getAsJsonArray("actions");
+            if (object.has("concurrency")) {
+                batch.concurrency = Math.max(1, Math.min(MAX_CONCURRENCY, object.get("concurrency").getAsInt()));
+            }
+            if (object.has("atomic")) {
+                batch.atomic = object.get("atomic").getAsBoolean();
+            }
+        } else {
+            throw new IllegalArgumentException("expected an array of actions or {\"actions\": [...]}");
+        }
+        if (actions.size() == 0 || actions.size() > MAX_ACTIONS) {
+            throw new IllegalArgumentException("between 1 and " + MAX_ACTIONS + " actions expected, got " + actions.size());
+        }
+
+        for (JsonElement element : actions) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("each action must be an object");
+            }
+            JsonObject object = element.getAsJsonObject();
+            Item item = new Item();
+            item.id = object.has("id") ? object.get("id").getAsString() : null;
+            item.action = object.has("action") ? object.get("action").getAsString().toLowerCase(Locale.ROOT) : null;
+            if (object.has("args") && object.get("args").isJsonArray()) {
+                List<String> args = new ArrayList<>();
+                for (JsonElement arg : object.getAsJsonArray("args")) {
+                    args.add(arg.getAsString());
+                }
+                item.args = args.isEmpty() ? null : args;
+            }
+            batch.items.add(item);
+        }
+        return batch;
+    }
+
+    boolean isAtomic() {
+        return atomic;
+    }
+
+    /**
+     * Check every action against the current config and job states; true if all pass
+     */
+    boolean validate() {
+        JobManager jobManager = JobManager.getInstance();
+        JobsConfig config = ConfigManager.getInstance().getConfig();
+        Set<String> seen = new HashSet<>();
+        valid = true;
+        for (Item item : items) {
+            Job job = item.id != null ? config.getJob(item.id) : null;
+            if (item.id == null || item.id.isEmpty()) {
+                item.error = "Missing id";
+            } else if (!ACTIONS.contains(item.action)) {
+                item.error = "Unknown action: " + item.action + " (start, stop or restart)";
+            } else if (!seen.add(item.id)) {
+                item.error = "Job appears more than once in the batch: " + item.id;
+            } else if (job == null) {
+                item.error = "Job not found: " + item.id;
+            } else if (!item.action.equals("stop") && !job.isEnabled()) {
+                item.error = "Job is disabled: " + item.id;
+            } else {
+                boolean running = jobManager.getJobStatus(item.id) != Job.JobStatus.STOPPED;
+                if (item.action.equals("start") && running) {
+                    item.error = "Job is already running: " + item.id;
+                } else if (item.action.equals("stop") && !running) {
+                    item.error = "Job is not running: " + item.id;
+                }
+            }
+            valid &= item.error == null;
+        }
+        return valid;
+    }
+
+    /**
+     * Run the actions that passed validation (none if atomic and any failed)
+     */
+    Map<String, Object> run() throws InterruptedException {
+        long start = System.nanoTime();
+        List<Item> runnable = new ArrayList<>();
+        for (Item item : items) {
+            if (item.error == null && (valid || !atomic)) {
+                runnable.add(item);
+            }
+        }
+
+        if (!runnable.isEmpty()) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(Math.min(concurrency, runnable.size()), r -> {
+                Thread thread = new Thread(r, "JobRunner-Batch-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (Item item : runnable) {
+                    futures.add(pool.submit(item::execute));
+                }
+                for (Future<?> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        LOGGER.log(Level.SEVERE, "Batch action failed", e.getCause());
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return describe(runnable.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Validation result, when an atomic batch is refused
+     */
+    Map<String, Object> describeRejected() {
+        return describe(0, 0);
+    }
+
+    // ==================== Private Methods ====================
+
+    private Map<String, Object> describe(int executed, long durationMs) {
+        int succeeded = 0;
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Item item : items) {
+            if (item.success) {
+                succeeded++;
+            }
+            results.add(item.describe());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("success", succeeded == items.size());
+        result.put("atomic", atomic);
+        result.put("concurrency", concurrency);
+        result.put("total", items.size());
+        result.put("executed", executed);
+        result.put("succeeded", succeeded);
+        result.put("failed", items.size() - succeeded);
+        result.put("durationMs", durationMs);
+        result.put("results", results);
+        return result;
+    }
+
+    /**
+     * One action of the batch and its outcome
+     */
+    private static class Item {
+        String id;
+        String action;
+        List<String> args;
+        String error;       // Validation failure (the action is not run)
+        boolean executed;
+        boolean success;
+        String message;
+        Long pid;
+        long durationMs;
+
+        void execute() {
+            long start = System.nanoTime();
+            try {
+                JobManager.JobResult result = run(JobManager.getInstance());
+                success = result.isSuccess();
+                message = result.getMessage();
+                pid = result.getPid();
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, "Batch action " + action + " failed for job " + id, e);
+                success = false;
+                message = e.getMessage() != null ? e.getMessage() : e.toString();
+            }
+            executed = true;
+            durationMs = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        private JobManager.JobResult run(JobManager jobManager) {
+            JobManager.JobResult result;
+            switch (action) {
+                case "start":
+                    result = jobManager.startJob(id, args);
+                    break;
+                case "stop":
+                    result = jobManager.stopJob(id);
+                    break;
+                default:
+                    result = null;
+                    if (jobManager.getJobStatus(id) != Job.JobStatus.STOPPED) {
+                        result = jobManager.stopJob(id);
+                    }
+                    if (result == null || result.isSuccess()) {
+                        result = jobManager.startJob(id, args);
+                        if (result.isSuccess()) {
+                            Metrics.getInstance().restarted(id, Metrics.RESTART_MANUAL);
+                        }
+                    }
+                    break;
+            }
+            return result;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("id", id);
+            result.put("action", action);
+            result.put("success", success);
+            result.put("executed", executed);
+            result.put("message", error != null ? error : executed ? message : "Not run: another action failed validation");
+            result.put("pid", pid);
+            result.put("durationMs", durationMs);
+            return result;
+        }
+    }
+}
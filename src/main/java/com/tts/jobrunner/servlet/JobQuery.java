@@ -0,0 +1,340 @@
+package com.tts.jobrunner.servlet;
+
+import com.tts.jobrunner.model.Job;
+import com.tts.jobrunner.model.JobState;
+import com.tts.jobrunner.model.JobsConfig;
+import com.tts.jobrunner.service.JobManager;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Query of GET /api/jobs - filters, sort, paging and field projection.
+ *
+ * status, app and type take comma-separated values (any of them matches), q searches
+ * id, name, description, main class and apps. Candidates come from the snapshot's
+ * indexes (JobsConfig#getJobsForApp, #getJobsOfType, #search); only the status filter
+ * and sort look at runtime state. sort is id, name, type, status or startTime ("-" for
+ * descending, config order by default). With limit or cursor the response is a page:
+ * {jobs, total, nextCursor}; the cursor holds the sort key and id of the last job, so
+ * paging stays in place when jobs are added or removed. In config order the page goes
+ * on after the last job's current position (the stored one only if it was removed).
+ * fields limits the properties
+ * of each job (id is always included).
+ * Compatible with Java 11+
+ */
+class JobQuery {
+    private static final int MAX_LIMIT = 1000;
+    private static final List<String> SORTS = Arrays.asList("id", "name", "type", "status", "startTime");
+
+    private Set<String> statuses;
+    private Set<String> apps;
+    private Set<Job.JobType> types;
+    private String text;
+    private String sort;
+    private boolean descending;
+    private int limit = -1;
+    private Cursor after;
+    private Set<String> fields;
+    private String key = "";  // Canonical form, for the response cache
+
+    /**
+     * A page of the selected jobs
+     */
+    static class Page {
+        final List<Job> jobs;
+        final int total;
+        final String nextCursor;
+
+        Page(List<Job> jobs, int total, String nextCursor) {
+            this.jobs = jobs;
+            this.total = total;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /**
+     * Read the query parameters; throws IllegalArgumentException for invalid values
+     */
+    static JobQuery parse(HttpServletRequest req) {
+        JobQuery query = new JobQuery();
+        StringBuilder key = new StringBuilder();
+
+        query.statuses = values(req, "status", key);
+        if (query.statuses != null) {
+            for (String status : query.statuses) {
+                if (status(status) == null) {
+                    throw new IllegalArgumentException("Unknown status: " + status);
+                }
+            }
+        }
+        query.apps = values(req, "app", key);
+        Set<String> types = values(req, "type", key);
+        if (types != null) {
+            query.types = EnumSet.noneOf(Job.JobType.class);
+            for (String type : types) {
+                query.types.add(type(type));
+            }
+        }
+
+        String text = req.getParameter("q");
+        if (text != null && !text.trim().isEmpty()) {
+            query.text = text.trim();
+            key.append("&q=").append(query.text);
+        }
+
+        String sort = req.getParameter("sort");
+        if (sort != null && !sort.isEmpty()) {
+            query.descending = sort.startsWith("-");
+            query.sort = query.descending ? sort.substring(1) : sort;
+            if (!SORTS.contains(query.sort)) {
+                throw new IllegalArgumentException("Unknown sort: " + sort + " (" + String.join(", ", SORTS) + ")");
+            }
+            key.append("&sort=").append(sort);
+        }
+
+        String limit = req.getParameter("limit");
+        if (limit != null) {
+            try {
+                query.limit = Integer.parseInt(limit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid limit: " + limit);
+            }
+            if (query.limit < 1 || query.limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            key.append("&limit=").append(limit);
+        }
+        String cursor = req.getParameter("cursor");
+        if (cursor != null && !cursor.isEmpty()) {
+            query.after = Cursor.decode(cursor, query.sort);
+            key.append("&cursor=").append(cursor);
+        }
+
+        query.fields = values(req, "fields", key);
+        if (query.fields != null) {
+            query.fields.add("id");
+        }
+        query.key = key.toString();
+        return query;
+    }
+
+    boolean isPaged() {
+        return limit > 0 || after != null;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * Properties to return, or null for all
+     */
+    Set<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * The matching jobs in sort order, from the cursor on, at most limit
+     */
+    Page select(JobsConfig config, JobManager jobManager) {
+        List<Entry> entries = new ArrayList<>();
+        for (Job job : candidates(config)) {
+            JobState state = jobManager.getState(job.getId());
+            if (statuses == null || statuses.contains(state.getStatus().getValue())) {
+                entries.add(new Entry(job, sortKey(job, state, config)));
+            }
+        }
+        Comparator<Entry> order = Comparator.<Entry, Comparable<Object>>comparing(entry -> entry.key)
+                .thenComparing(entry -> entry.job.getId());
+        if (descending) {
+            order = order.reversed();
+        }
+        if (sort != null) {
+            entries.sort(order);
+        }
+
+        int from = 0;
+        if (after != null) {
+            Entry last = after.last;
+            int position = sort == null ? config.indexOf(last.job.getId()) : -1;
+            if (position >= 0) {
+                last = new Entry(last.job, (long) position);  // The job may have moved since
+            }
+            // First entry after the cursor (entries are sorted by key, then id)
+            int low = 0;
+            int high = entries.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (order.compare(entries.get(mid), last) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        int to = limit > 0 ? Math.min(entries.size(), from + limit) : entries.size();
+
+        List<Job> jobs = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            jobs.add(entries.get(i).job);
+        }
+        String nextCursor = to < entries.size() && to > from ? Cursor.encode(entries.get(to - 1)) : null;
+        return new Page(jobs, entries.size(), nextCursor);
+    }
+
+    // ==================== Private Methods ====================
+
+    /**
+     * Jobs matching the config-based filters, in config order
+     */
+    private List<Job> candidates(JobsConfig config) {
+        List<Job> jobs = null;
+        if (text != null) {
+            jobs = config.search(text);
+        }
+        if (apps != null) {
+            Set<Job> matching = new HashSet<>();
+            for (String app : apps) {
+                matching.addAll(config.getJobsForApp(app));
+            }
+            jobs = retain(jobs != null ? jobs : config.getJobs(), matching, config);
+        }
+        if (types != null) {
+            Set<Job> matching = new HashSet<>();
+            for (Job.JobType type : types) {
+                matching.addAll(config.getJobsOfType(type));
+            }
+            jobs = retain(jobs != null ? jobs : config.getJobs(), matching, config);
+        }
+        return jobs != null ? jobs : config.getJobs();
+    }
+
+    /**
+     * Jobs of the list that are in the set; walks the smaller of the two
+     */
+    private static List<Job> retain(List<Job> jobs, Set<Job> matching, JobsConfig config) {
+        List<Job> result = new ArrayList<>();
+        if (matching.size() < jobs.size() && jobs == config.getJobs()) {
+            result.addAll(matching);
+            result.sort(Comparator.comparingInt(job -> config.indexOf(job.getId())));
+            return result;
+        }
+        for (Job job : jobs) {
+            if (matching.contains(job)) {
+                result.add(job);
+            }
+        }
+        return result;
+    }
+
+    private Comparable<?> sortKey(Job job, JobState state, JobsConfig config) {
+        if (sort == null) {
+            return (long) config.indexOf(job.getId());
+        }
+        switch (sort) {
+            case "name":
+                return job.getName() != null ? job.getName().toLowerCase(Locale.ROOT) : "";
+            case "type":
+                return job.getType().getValue();
+            case "status":
+                return state.getStatus().getValue();
+            case "startTime":
+                return state.getStartTime() != null ? state.getStartTime() : -1L;
+            default:
+                return job.getId();
+        }
+    }
+
+    private static Set<String> values(HttpServletRequest req, String name, StringBuilder key) {
+        String value = req.getParameter(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        Set<String> values = new TreeSet<>();
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                values.add(part.trim());
+            }
+        }
+        key.append('&').append(name).append('=').append(String.join(",", values));
+        return values;
+    }
+
+    private static Job.JobStatus status(String value) {
+        for (Job.JobStatus status : Job.JobStatus.values()) {
+            if (status.getValue().equals(value)) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    private static Job.JobType type(String value) {
+        for (Job.JobType type : Job.JobType.values()) {
+            if (type.getValue().equals(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown type: " + value);
+    }
+
+    // ==================== Cursor ====================
+
+    private static class Entry {
+        final Job job;
+        final Comparable<Object> key;
+
+        @SuppressWarnings("unchecked")
+        Entry(Job job, Comparable<?> key) {
+            this.job = job;
+            this.key = (Comparable<Object>) key;
+        }
+    }
+
+    /**
+     * Sort key and id of the last job of a page, as an opaque base64url string
+     */
+    private static class Cursor {
+        final Entry last;  // Entry to compare with
+
+        Cursor(Entry last) {
+            this.last = last;
+        }
+
+        static String encode(Entry entry) {
+            String raw = entry.key + "\n" + entry.job.getId();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Read a cursor made with the given sort; throws IllegalArgumentException if it
+         * is malformed or was made with a sort whose keys are of another kind
+         */
+        static Cursor decode(String cursor, String sort) {
+            String raw;
+            try {
+                raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            int newline = raw.lastIndexOf('\n');
+            if (newline < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            String key = raw.substring(0, newline);
+            Job job = new Job();
+            job.setId(raw.substring(newline + 1));
+            if (sort == null || sort.equals("startTime")) {
+                try {
+                    return new Cursor(new Entry(job, Long.parseLong(key)));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Cursor does not match the sort");
+                }
+            }
+            return new Cursor(new Entry(job, key));
+        }
+    }
+}
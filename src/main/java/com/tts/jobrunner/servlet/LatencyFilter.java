@@ -0,0 +1,202 @@
+package com.tts.jobrunner.servlet;
+
+import com.tts.jobrunner.service.ConfigManager;
+import com.tts.jobrunner.service.Metrics;
+import com.tts.jobrunner.service.RequestStats;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+/**
+ * Latency filter for API requests - records time and response size per route
+ * (RequestStats for /api/diagnostics/latency, Metrics for /metrics) and logs slow ones.
+ *
+ * ApiServlet names the matched route pattern in the ROUTE attribute, so "/jobs/a" and
+ * "/jobs/b" count as "/jobs/{id}". Mapped in web.xml after CORSFilter and before
+ * GzipFilter: the time includes compression and the size is what was sent. An async
+ * request is recorded when it completes.
+ * Compatible with Java 11+
+ */
+public class LatencyFilter implements Filter {
+    static final String ROUTE = "com.tts.jobrunner.route";
+
+    private final RequestStats stats = RequestStats.getInstance();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        CountingResponse countingResponse = new CountingResponse((HttpServletResponse) response);
+        RequestStats.Sample sample = stats.begin();
+        boolean async = false;
+        try {
+            chain.doFilter(request, countingResponse);
+            async = request.isAsyncStarted();
+        } finally {
+            stats.detach(sample, async);
+            if (async) {
+                request.getAsyncContext().addListener(new RecordListener(this, sample, httpRequest, countingResponse));
+            } else {
+                record(sample, httpRequest, countingResponse);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    // ==================== Private Methods ====================
+
+    private void record(RequestStats.Sample sample, HttpServletRequest request, CountingResponse response) {
+        Object route = request.getAttribute(ROUTE);
+        String routeName = route != null ? route.toString() : "unmatched";
+        String uri = request.getQueryString() != null
+                ? request.getRequestURI() + "?" + request.getQueryString() : request.getRequestURI();
+        int slowRequestMs = ConfigManager.getInstance().getConfig().getGlobal().getSlowRequestMs();
+        long nanos = stats.end(sample, request.getMethod(), routeName, uri, response.getStatus(),
+                response.bytes, slowRequestMs);
+        Metrics.getInstance().request(request.getMethod(), routeName, nanos);
+    }
+
+    /**
+     * Records an async request when it completes
+     */
+    private static class RecordListener implements AsyncListener {
+        private final LatencyFilter filter;
+        private final RequestStats.Sample sample;
+        private final HttpServletRequest request;
+        private final CountingResponse response;
+
+        RecordListener(LatencyFilter filter, RequestStats.Sample sample, HttpServletRequest request,
+                       CountingResponse response) {
+            this.filter = filter;
+            this.sample = sample;
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            filter.record(sample, request, response);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    /**
+     * Counts the bytes of the body (UTF-8 for text written through the writer)
+     */
+    private static class CountingResponse extends HttpServletResponseWrapper {
+        private long bytes;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream out = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return out.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        out.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                Writer out = super.getWriter();
+                writer = new PrintWriter(new Writer() {
+                    @Override
+                    public void write(char[] buffer, int off, int len) throws IOException {
+                        out.write(buffer, off, len);
+                        for (int i = off; i < off + len; i++) {
+                            bytes += utf8Length(buffer[i]);
+                        }
+                    }
+
+                    @Override
+                    public void write(String text, int off, int len) throws IOException {
+                        out.write(text, off, len);
+                        for (int i = off; i < off + len; i++) {
+                            bytes += utf8Length(text.charAt(i));
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.close();
+                    }
+                });
+            }
+            return writer;
+        }
+
+        /**
+         * Bytes of a char in UTF-8 (each half of a surrogate pair counts 2 of its 4)
+         */
+        private static int utf8Length(char c) {
+            return c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+    }
+}
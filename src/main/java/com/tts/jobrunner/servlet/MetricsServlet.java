@@ -0,0 +1,31 @@
+package com.tts.jobrunner.servlet;
+
+import com.tts.jobrunner.service.ConfigManager;
+import com.tts.jobrunner.service.JobManager;
+import com.tts.jobrunner.service.Metrics;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Prometheus scrape endpoint - GET /metrics (see Metrics for what is exported).
+ * Compatible with Java 11+
+ */
+@WebServlet(urlPatterns = {"/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String body = Metrics.getInstance().render(ConfigManager.getInstance().getConfig(), JobManager.getInstance());
+        resp.setContentType(Metrics.CONTENT_TYPE);
+        resp.setHeader("Cache-Control", "no-store");
+        PrintWriter writer = resp.getWriter();
+        writer.write(body);
+        writer.flush();
+    }
+}
@@ -0,0 +1,151 @@
+package com.tts.jobrunner.servlet;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Slow job operations (stop, restart, stop-all) run off the request thread.
+ *
+ * Operations run on a small bounded pool, so waiting for processes to exit never ties
+ * up the container's request threads; a full queue is refused instead of piling up.
+ * Every operation gets an id under which its result can be polled
+ * (GET /api/operations/{id}); finished operations are kept for RETAIN_MS.
+ * Compatible with Java 11+
+ */
+class Operations {
+    private static final Logger LOGGER = Logger.getLogger(Operations.class.getName());
+    private static final int THREADS = 4;        // Stops of one JobManager are serialized anyway
+    private static final int QUEUE_SIZE = 64;
+    private static final long RETAIN_MS = 10 * 60 * 1000;
+    private static final int MAX_RETAINED = 200;  // Finished operations kept at most
+
+    /**
+     * The work of an operation; returns the HTTP status and body of its response
+     */
+    interface Work {
+        Reply run() throws Exception;
+    }
+
+    static class Reply {
+        final int status;
+        final Map<String, Object> body;
+
+        Reply(int status, Map<String, Object> body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * A submitted operation; future completes with its reply (never exceptionally)
+     */
+    static class Operation {
+        final String id;
+        final String type;
+        final String jobId;
+        final long created = System.currentTimeMillis();
+        final CompletableFuture<Reply> future = new CompletableFuture<>();
+        volatile long finished;
+
+        Operation(String id, String type, String jobId) {
+            this.id = id;
+            this.type = type;
+            this.jobId = jobId;
+        }
+
+        Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            Reply reply = future.getNow(null);
+            result.put("id", id);
+            result.put("type", type);
+            result.put("jobId", jobId);
+            result.put("status", reply != null ? "done" : "running");
+            result.put("created", created);
+            result.put("finished", reply != null ? finished : null);
+            result.put("httpStatus", reply != null ? reply.status : null);
+            result.put("result", reply != null ? reply.body : null);
+            return result;
+        }
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Operation> operations = new LinkedHashMap<>();  // In submission order
+
+    Operations() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+                    Thread thread = new Thread(r, "JobRunner-Operation-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queue an operation; throws RejectedExecutionException if the queue is full
+     */
+    Operation submit(String type, String jobId, Work work) {
+        Operation operation = new Operation(UUID.randomUUID().toString(), type, jobId);
+        executor.execute(() -> {
+            Reply reply;
+            try {
+                reply = work.run();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Operation " + type + (jobId != null ? " " + jobId : "") + " failed", e);
+                Map<String, Object> error = new LinkedHashMap<>();
+                error.put("error", true);
+                error.put("message", e.getMessage());
+                reply = new Reply(500, error);
+            }
+            operation.finished = System.currentTimeMillis();
+            operation.future.complete(reply);
+        });
+        synchronized (operations) {
+            prune();
+            operations.put(operation.id, operation);
+        }
+        return operation;
+    }
+
+    Operation get(String id) {
+        synchronized (operations) {
+            return operations.get(id);
+        }
+    }
+
+    /**
+     * Stop taking operations; queued ones still run
+     */
+    void shutdown() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ==================== Private Methods ====================
+
+    private void prune() {
+        long cutoff = System.currentTimeMillis() - RETAIN_MS;
+        int finished = 0;
+        for (Operation operation : operations.values()) {
+            if (operation.future.isDone()) {
+                finished++;
+            }
+        }
+        Iterator<Operation> it = operations.values().iterator();
+        while (it.hasNext()) {
+            Operation operation = it.next();
+            if (operation.future.isDone() && (operation.finished < cutoff || finished > MAX_RETAINED)) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+}
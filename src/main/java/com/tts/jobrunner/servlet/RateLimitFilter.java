@@ -0,0 +1,225 @@
+package com.tts.jobrunner.servlet;
+
+import com.google.gson.Gson;
+import com.tts.jobrunner.model.GlobalConfig;
+import com.tts.jobrunner.service.ConfigManager;
+import com.tts.jobrunner.service.Metrics;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Rate limit filter for API requests - answers 429 Too Many Requests with Retry-After
+ * when a client goes over its limit, before the request reaches ApiServlet.
+ *
+ * Requests fall in three classes: reads (GET), control (POST, PUT, DELETE: start, stop,
+ * edits) and expensive reads (job logs and searches with q=). Each client address has a
+ * token bucket per class, refilled at the [global] api_read_rate, api_control_rate or
+ * api_expensive_rate per second, holding up to BURST_SECONDS of requests so a page load
+ * is not throttled. Expensive reads are also capped to api_max_expensive in progress at
+ * once across all clients, so a burst of log reads cannot take every request thread.
+ * Mapped in web.xml after CORSFilter (a 429 still carries the CORS headers) and before
+ * LatencyFilter (rejections do not count as route latency).
+ * Compatible with Java 11+
+ */
+public class RateLimitFilter implements Filter {
+    private static final Logger LOGGER = Logger.getLogger(RateLimitFilter.class.getName());
+    private static final double BURST_SECONDS = 5;  // Bucket size, in seconds of the rate
+    private static final int PRUNE_SIZE = 1000;     // Buckets kept before idle ones are dropped
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final Gson GSON = new Gson();
+
+    static final String READ = "read";
+    static final String CONTROL = "control";
+    static final String EXPENSIVE = "expensive";
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();  // By "client class"
+    private final AtomicInteger expensiveInFlight = new AtomicInteger();
+
+    /**
+     * Token bucket of one client and class
+     */
+    private static class Bucket {
+        private double tokens = -1;   // -1 until first use (starts full)
+        private long updated = System.nanoTime();
+        private boolean throttled;    // Last request was rejected (log once per episode)
+
+        /**
+         * Take a token; returns 0 if there was one, else the nanoseconds until there is
+         */
+        synchronized long take(double rate, double burst) {
+            long now = System.nanoTime();
+            tokens = tokens < 0 ? burst : Math.min(burst, tokens + (now - updated) / 1e9 * rate);
+            updated = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                throttled = false;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - tokens) / rate * 1e9));
+        }
+
+        /**
+         * Mark the bucket throttled; true if it was not already
+         */
+        synchronized boolean startThrottling() {
+            boolean first = !throttled;
+            throttled = true;
+            return first;
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - updated > IDLE_NANOS;
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        if ("OPTIONS".equalsIgnoreCase(httpRequest.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GlobalConfig global = ConfigManager.getInstance().getConfig().getGlobal();
+        String endpointClass = classify(httpRequest);
+        double rate = rate(global, endpointClass);
+        if (rate > 0) {
+            String client = httpRequest.getRemoteAddr();
+            Bucket bucket = bucket(client, endpointClass);
+            long waitNanos = bucket.take(rate, Math.max(1, rate * BURST_SECONDS));
+            if (waitNanos > 0) {
+                if (bucket.startThrottling()) {
+                    LOGGER.warning("Client " + client + " is over the " + endpointClass + " rate limit ("
+                            + format(rate) + "/s), answering 429 until it slows down");
+                }
+                reject(httpResponse, endpointClass, "rate", waitNanos,
+                        "Too many " + endpointClass + " requests, limit is " + format(rate) + " per second");
+                return;
+            }
+        }
+
+        if (EXPENSIVE.equals(endpointClass) && global.getApiMaxExpensive() > 0) {
+            int max = global.getApiMaxExpensive();
+            if (expensiveInFlight.incrementAndGet() > max) {
+                expensiveInFlight.decrementAndGet();
+                reject(httpResponse, endpointClass, "concurrency", TimeUnit.SECONDS.toNanos(1),
+                        "Too many log reads and searches in progress (limit " + max + "), try again shortly");
+                return;
+            }
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                expensiveInFlight.decrementAndGet();
+            }
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Class of a request: EXPENSIVE for job logs and job searches, READ for other GETs,
+     * CONTROL for everything that changes something
+     */
+    static String classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method)) {
+            return CONTROL;
+        }
+        String path = request.getPathInfo();
+        if (path == null) {
+            return READ;
+        }
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (path.startsWith("/jobs/") && path.endsWith("/logs")) {
+            return EXPENSIVE;
+        }
+        if (path.equals("/jobs")) {
+            String text = request.getParameter("q");
+            if (text != null && !text.trim().isEmpty()) {
+                return EXPENSIVE;
+            }
+        }
+        return READ;
+    }
+
+    // ==================== Private Methods ====================
+
+    private static double rate(GlobalConfig global, String endpointClass) {
+        switch (endpointClass) {
+            case CONTROL:
+                return global.getApiControlRate();
+            case EXPENSIVE:
+                return global.getApiExpensiveRate();
+            default:
+                return global.getApiReadRate();
+        }
+    }
+
+    private static String format(double rate) {
+        return rate == Math.rint(rate) ? String.valueOf((long) rate) : String.valueOf(rate);
+    }
+
+    private Bucket bucket(String client, String endpointClass) {
+        String key = client + " " + endpointClass;
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= PRUNE_SIZE) {
+                prune();
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+        }
+        return bucket;
+    }
+
+    /**
+     * Drop buckets not used for IDLE_NANOS (they would be full again anyway)
+     */
+    private void prune() {
+        long now = System.nanoTime();
+        for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().isIdle(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    private static void reject(HttpServletResponse response, String endpointClass, String reason, long waitNanos,
+                               String message) throws IOException {
+        long retryAfter = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        Metrics.getInstance().throttled(endpointClass, reason);
+        response.setStatus(429);
+        response.setHeader("Retry-After", String.valueOf(retryAfter));
+        response.setHeader("Cache-Control", "no-store");
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", true);
+        error.put("message", message);
+        error.put("retryAfter", retryAfter);
+        response.getWriter().write(GSON.toJson(error));
+    }
+}
@@ -0,0 +1,182 @@
+package com.tts.jobrunner.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.*;
+
+/**
+ * Request router - maps method and path to a handler.
+ *
+ * Routes like "/jobs/{id}/logs" are added once into a trie of path segments: a request
+ * is matched in one pass over its path, without regexes or splitting. Literal segments
+ * win over parameters ("/jobs/start-all" before "/jobs/{id}"); if a literal branch has
+ * no route for the method, the parameter branch is tried. A trailing slash is ignored.
+ * Compatible with Java 11+
+ */
+class Router {
+
+    /**
+     * Handles a matched request
+     */
+    interface Handler {
+        void handle(HttpServletRequest req, HttpServletResponse resp, PathParams params) throws Exception;
+    }
+
+    /**
+     * Values of the {name} segments of the matched route
+     */
+    static class PathParams {
+        private final String[] names;
+        private final String[] values;
+
+        PathParams(String[] names, String[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        String get(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            throw new IllegalArgumentException("No path parameter " + name);
+        }
+    }
+
+    /**
+     * Result of a lookup: the handler and its route pattern, or null with the allowed
+     * methods if the path exists but not for this method
+     */
+    static class Match {
+        final Handler handler;
+        final String pattern;
+        final PathParams params;
+        final Set<String> allowed;
+
+        Match(Handler handler, String pattern, PathParams params, Set<String> allowed) {
+            this.handler = handler;
+            this.pattern = pattern;
+            this.params = params;
+            this.allowed = allowed;
+        }
+    }
+
+    private static final String[] NO_NAMES = new String[0];
+
+    private final Node root = new Node();
+
+    // ==================== Building ====================
+
+    Router get(String pattern, Handler handler) {
+        return add("GET", pattern, handler);
+    }
+
+    Router post(String pattern, Handler handler) {
+        return add("POST", pattern, handler);
+    }
+
+    Router put(String pattern, Handler handler) {
+        return add("PUT", pattern, handler);
+    }
+
+    Router delete(String pattern, Handler handler) {
+        return add("DELETE", pattern, handler);
+    }
+
+    Router add(String method, String pattern, Handler handler) {
+        Node node = root;
+        List<String> names = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (node.param == null) {
+                    node.param = new Node();
+                }
+                node = node.param;
+                names.add(segment.substring(1, segment.length() - 1));
+            } else {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        if (node.routes.put(method, new Route(handler, pattern, names.toArray(NO_NAMES))) != null) {
+            throw new IllegalStateException("Duplicate route: " + method + " " + pattern);
+        }
+        return this;
+    }
+
+    // ==================== Matching ====================
+
+    /**
+     * Find the route for a request, or null if no route has this path
+     */
+    Match match(String method, String path) {
+        String[] values = new String[4];
+        Node node = find(root, path, skipSlash(path, 0), method, values, 0);
+        if (node == null) {
+            node = find(root, path, skipSlash(path, 0), null, values, 0);
+            return node != null ? new Match(null, null, null, node.routes.keySet()) : null;
+        }
+        Route route = node.routes.get(method);
+        return new Match(route.handler, route.pattern, new PathParams(route.names,
+                Arrays.copyOf(values, route.names.length)), null);
+    }
+
+    /**
+     * Node for the rest of the path from start, with a route for the method (any route
+     * if method is null). Parameter values are stored in values from index paramIndex.
+     */
+    private static Node find(Node node, String path, int start, String method, String[] values, int paramIndex) {
+        if (start >= path.length()) {
+            boolean found = method != null ? node.routes.containsKey(method) : !node.routes.isEmpty();
+            return found ? node : null;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int next = skipSlash(path, end);
+
+        Node child = node.children.isEmpty() ? null : node.children.get(path.substring(start, end));
+        if (child != null) {
+            Node found = find(child, path, next, method, values, paramIndex);
+            if (found != null) {
+                return found;
+            }
+        }
+        if (node.param != null && end > start && paramIndex < values.length) {
+            values[paramIndex] = path.substring(start, end);
+            return find(node.param, path, next, method, values, paramIndex + 1);
+        }
+        return null;
+    }
+
+    /**
+     * Index after the slash at position i (only one slash is skipped, so "//" leaves an empty segment)
+     */
+    private static int skipSlash(String path, int i) {
+        return i < path.length() && path.charAt(i) == '/' ? i + 1 : i;
+    }
+
+    // ==================== Trie ====================
+
+    private static class Node {
+        final Map<String, Node> children = new HashMap<>();
+        final Map<String, Route> routes = new HashMap<>(4);
+        Node param;
+    }
+
+    private static class Route {
+        final Handler handler;
+        final String pattern;
+        final String[] names;
+
+        Route(Handler handler, String pattern, String[] names) {
+            this.handler = handler;
+            this.pattern = pattern;
+            this.names = names;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.tts.jobrunner.worker;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pooled worker JVM entry point.
+ * Runs inside a pre-started child JVM whose classpath holds the app libraries.
+ * Reads one request per line from stdin, runs the requested main class in a
+ * fresh class loader over the app's classes directories, and prints an end
+ * marker with the exit code when main() returns.
+ *
+ * Request line:  RUN &lt;classes-path&gt; &lt;main-class&gt; [args...]  (each field URL-encoded)
+ * End marker:    &lt;marker&gt; &lt;exit-code&gt;
+ *
+ * Must only depend on the JDK - it is copied out of the runner webapp and
+ * started with the job's own classpath.
+ * Compatible with Java 11+
+ */
+public final class PoolWorker {
+
+    private PoolWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PoolWorker <end-marker>");
+            System.exit(2);
+        }
+        String marker = args[0];
+
+        // Requests arrive on stdin - jobs must not consume them
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+        System.setIn(new ByteArrayInputStream(new byte[0]));
+
+        String line;
+        while ((line = requests.readLine()) != null) {
+            String[] fields = line.split(" ", -1);
+            if (fields.length < 3 || !"RUN".equals(fields[0])) {
+                System.err.println("PoolWorker: ignoring malformed request");
+                continue;
+            }
+
+            String classesPath = decode(fields[1]);
+            String mainClass = decode(fields[2]);
+            String[] jobArgs = new String[fields.length - 3];
+            for (int i = 3; i < fields.length; i++) {
+                jobArgs[i - 3] = decode(fields[i]);
+            }
+
+            int exitCode = run(classesPath, mainClass, jobArgs);
+
+            System.out.flush();
+            System.err.flush();
+            System.out.println(marker + " " + exitCode);
+            System.out.flush();
+        }
+    }
+
+    private static int run(String classesPath, String mainClass, String[] args) {
+        ClassLoader previous = Thread.currentThread().getContextClassLoader();
+        URLClassLoader loader = null;
+        try {
+            loader = new URLClassLoader(toUrls(classesPath), PoolWorker.class.getClassLoader());
+            Thread.currentThread().setContextClassLoader(loader);
+
+            Class<?> clazz = Class.forName(mainClass, true, loader);
+            Method main = clazz.getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+            return 0;
+
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+            return 1;
+        } catch (Throwable t) {
+            t.printStackTrace();
+            return 1;
+        } finally {
+            Thread.currentThread().setContextClassLoader(previous);
+            if (loader != null) {
+                try {
+                    loader.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private static URL[] toUrls(String classesPath) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        for (String path : classesPath.split(File.pathSeparator)) {
+            if (!path.isEmpty()) {
+                urls.add(new File(path).toURI().toURL());
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    private static String decode(String value) throws UnsupportedEncodingException {
+        return URLDecoder.decode(value, "UTF-8");
+    }
+}
@@ -0,0 +1,169 @@
+package com.tts.jobrunner.servlet;
+
+import java.util.Locale;
+
+/**
+ * Router microbenchmark - dispatches the UI polling mix through the regex chain that
+ * ApiServlet used before Router, and through a Router with the same routes.
+ *
+ * The mix is what an open dashboard sends: GET /jobs, /status, /jobs/{id}/logs and
+ * /jobs/{id}, plus a POST /jobs/{id}/restart. Both dispatchers only find the route and
+ * its id; handlers are empty. Each runs WARMUP_ROUNDS first, then ROUNDS measured rounds
+ * of REQUESTS dispatches, alternating so both see the same JIT and GC state.
+ *
+ * Not a unit test (surefire does not pick it up). Run it with:
+ *   mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/classes:target/test-classes:$(cat target/cp.txt) com.tts.jobrunner.servlet.RouterBenchmark
+ * Compatible with Java 11+
+ */
+public class RouterBenchmark {
+    private static final int REQUESTS = 2_000_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private static final String[][] MIX = {
+            {"GET", "/jobs"},
+            {"GET", "/status"},
+            {"GET", "/jobs/order-sync/logs"},
+            {"GET", "/jobs/order-sync"},
+            {"GET", "/jobs"},
+            {"GET", "/status"},
+            {"GET", "/jobs/report-daily/logs"},
+            {"GET", "/jobs/report-daily"},
+            {"POST", "/jobs/report-daily/restart"},
+    };
+
+    private static final Router.Handler NONE = (req, resp, p) -> { };
+
+    private static int sink;  // Keeps the JIT from dropping the dispatch
+
+    public static void main(String[] args) {
+        Router router = createRouter();
+        for (String[] request : MIX) {
+            String legacy = legacyDispatch(request[0], request[1]);
+            Router.Match match = router.match(request[0], request[1]);
+            String routed = match.pattern + (match.pattern.contains("{id}") ? " " + match.params.get("id") : "");
+            if (!legacy.equals(routed)) {
+                throw new IllegalStateException("Dispatchers disagree on " + request[1] + ": " + legacy + " / " + routed);
+            }
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runLegacy();
+            runRouter(router);
+        }
+        System.out.println(REQUESTS + " dispatches of the UI polling mix per round");
+        for (int i = 0; i < ROUNDS; i++) {
+            double legacy = runLegacy();
+            double routed = runRouter(router);
+            System.out.println(String.format(Locale.ROOT, "round %d: regex chain %6.1f ns/request, router %6.1f ns/request",
+                    i + 1, legacy, routed));
+        }
+        System.out.println("(checksum " + sink + ")");
+    }
+
+    // ==================== Rounds ====================
+
+    private static double runLegacy() {
+        long start = System.nanoTime();
+        int hash = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            String[] request = MIX[i % MIX.length];
+            hash += legacyDispatch(request[0], request[1]).length();
+        }
+        sink += hash;
+        return (System.nanoTime() - start) / (double) REQUESTS;
+    }
+
+    private static double runRouter(Router router) {
+        long start = System.nanoTime();
+        int hash = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            String[] request = MIX[i % MIX.length];
+            Router.Match match = router.match(request[0], request[1]);
+            hash += match.pattern.length();
+            if (match.pattern.contains("{id}")) {
+                hash += match.params.get("id").length();
+            }
+        }
+        sink += hash;
+        return (System.nanoTime() - start) / (double) REQUESTS;
+    }
+
+    // ==================== Dispatchers ====================
+
+    /**
+     * The routes of ApiServlet.createRouter that the old chain had
+     */
+    private static Router createRouter() {
+        return new Router()
+                .get("/jobs", NONE)
+                .get("/jobs/{id}", NONE)
+                .get("/jobs/{id}/logs", NONE)
+                .get("/config", NONE)
+                .get("/apps", NONE)
+                .get("/status", NONE)
+                .post("/jobs", NONE)
+                .post("/jobs/{id}/start", NONE)
+                .post("/jobs/{id}/stop", NONE)
+                .post("/jobs/{id}/suspend", NONE)
+                .post("/jobs/{id}/resume", NONE)
+                .post("/jobs/{id}/restart", NONE)
+                .post("/jobs/{id}/logs/clear", NONE)
+                .post("/jobs/start-all", NONE)
+                .post("/jobs/stop-all", NONE)
+                .post("/apps", NONE)
+                .post("/apps/{id}/restart-jobs", NONE)
+                .post("/config/reload", NONE);
+    }
+
+    /**
+     * The doGet/doPost if-chain of ApiServlet before Router, returning the route
+     * pattern and id instead of calling the handler
+     */
+    private static String legacyDispatch(String method, String pathInfo) {
+        if (method.equals("GET")) {
+            if (pathInfo.equals("/jobs") || pathInfo.equals("/jobs/")) {
+                return "/jobs";
+            } else if (pathInfo.matches("/jobs/[^/]+/logs")) {
+                return "/jobs/{id}/logs " + pathInfo.split("/")[2];
+            } else if (pathInfo.matches("/jobs/[^/]+")) {
+                return "/jobs/{id} " + pathInfo.split("/")[2];
+            } else if (pathInfo.equals("/config") || pathInfo.equals("/config/")) {
+                return "/config";
+            } else if (pathInfo.equals("/apps") || pathInfo.equals("/apps/")) {
+                return "/apps";
+            } else if (pathInfo.equals("/status") || pathInfo.equals("/status/")) {
+                return "/status";
+            }
+            return "";
+        }
+
+        if (pathInfo.matches("/jobs/[^/]+/start")) {
+            return "/jobs/{id}/start " + pathInfo.split("/")[2];
+        } else if (pathInfo.matches("/jobs/[^/]+/stop")) {
+            return "/jobs/{id}/stop " + pathInfo.split("/")[2];
+        } else if (pathInfo.matches("/jobs/[^/]+/suspend")) {
+            return "/jobs/{id}/suspend " + pathInfo.split("/")[2];
+        } else if (pathInfo.matches("/jobs/[^/]+/resume")) {
+            return "/jobs/{id}/resume " + pathInfo.split("/")[2];
+        } else if (pathInfo.matches("/jobs/[^/]+/restart")) {
+            return "/jobs/{id}/restart " + pathInfo.split("/")[2];
+        } else if (pathInfo.matches("/jobs/[^/]+/logs/clear")) {
+            return "/jobs/{id}/logs/clear " + pathInfo.split("/")[2];
+        } else if (pathInfo.equals("/jobs") || pathInfo.equals("/jobs/")) {
+            return "/jobs";
+        } else if (pathInfo.equals("/apps") || pathInfo.equals("/apps/")) {
+            return "/apps";
+        } else if (pathInfo.matches("/apps/[^/]+/restart-jobs")) {
+            return "/apps/{id}/restart-jobs " + pathInfo.split("/")[2];
+        } else if (pathInfo.equals("/config/reload")) {
+            return "/config/reload";
+        } else if (pathInfo.equals("/jobs/start-all")) {
+            return "/jobs/start-all";
+        } else if (pathInfo.equals("/jobs/stop-all")) {
+            return "/jobs/stop-all";
+        }
+        return "";
+    }
+}